@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Compares the platform-thread and the virtual-thread execution mode of Stage6 under the same load.
+# Persistence is enabled so every write blocks its request thread on the write-ahead log fsync.
+# Needs a Java 21+ runtime (virtual threads) and both modules built:
+#   (cd ../Stage6 && ./mvnw install -DskipTests) && ./mvnw package
+# Usage: ./run-load-test.sh [clients] [seconds] [writePercent]
+set -euo pipefail
+
+CLIENTS=${1:-2000}
+SECONDS_PER_RUN=${2:-30}
+WRITE_PERCENT=${3:-20}
+PORT=18080
+APP_JAR=$(ls ../Stage6/target/Stage6-*-exec.jar)
+DATA_DIR=$(mktemp -d)
+
+run_mode() {
+  local virtual=$1
+  java -jar "$APP_JAR" --server.port=$PORT \
+       --spring.threads.virtual.enabled="$virtual" \
+       --student.repository.persistence.enabled=true \
+       --student.repository.persistence.directory="$DATA_DIR/$virtual" \
+       --logging.level.org.springframework.web=INFO > "$DATA_DIR/app-$virtual.log" 2>&1 &
+  local pid=$!
+  until curl -s "http://localhost:$PORT/student/getStudent/1" > /dev/null; do sleep 1; done
+  java -cp target/benchmarks.jar org.example.stage6.benchmarks.HttpLoadTest \
+       "http://localhost:$PORT" "$CLIENTS" "$SECONDS_PER_RUN" "$WRITE_PERCENT" "virtual-threads=$virtual"
+  kill $pid
+  wait $pid 2> /dev/null || true
+}
+
+run_mode false
+run_mode true
+rm -rf "$DATA_DIR"
@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+# Compares the startup of Stage6 as the plain exec jar, as AOT + AppCDS on the JVM and as a native executable.
+# For every run it prints one JSON line with
+#   readyMs         launch until the port accepts connections
+#   startedSeconds  the "Started Stage6Application in ..." time Spring logs
+#   firstRequestMs  latency of the first GET /student/getStudent/1, served by cold code
+# Build the modes first (a mode that is not built is skipped, the plain jar is always needed):
+#   (cd ../Stage6 && ./mvnw package -DskipTests)              plain jar
+#   (cd ../Stage6 && ./mvnw -Pcds package -DskipTests)        target/cds, also builds the plain jar
+#   (cd ../Stage6 && ./mvnw -Pnative native:compile -DskipTests)  target/stage6, needs GraalVM
+# Usage: ./run-startup-test.sh [runsPerMode]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=18081
+TARGET=../Stage6/target
+APP_JAR=$(cd "$TARGET" && ls Stage6-*-exec.jar)
+LOG=$(mktemp)
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+run_once() {
+  local mode=$1 run=$2
+  shift 2
+  local start
+  start=$(now_ms)
+  "$@" --server.port=$PORT --logging.level.org.springframework.web=INFO > "$LOG" 2>&1 &
+  local pid=$!
+  until (exec 3<> "/dev/tcp/localhost/$PORT") 2> /dev/null; do
+    if ! kill -0 $pid 2> /dev/null; then
+      echo "$mode did not start:" >&2
+      cat "$LOG" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  local ready=$(( $(now_ms) - start ))
+  local first
+  first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT/student/getStudent/1")
+  kill $pid
+  wait $pid 2> /dev/null || true
+  local started
+  started=$(grep -ao 'Started Stage6Application in [0-9.]*' "$LOG" | grep -o '[0-9.]*$' || echo null)
+  printf '{"mode":"%s","run":%d,"readyMs":%d,"startedSeconds":%s,"firstRequestMs":%s}\n' \
+         "$mode" "$run" "$ready" "$started" "$(awk "BEGIN { printf \"%.1f\", $first * 1000 }")"
+}
+
+for run in $(seq "$RUNS"); do
+  run_once jar "$run" java -jar "$TARGET/$APP_JAR"
+done
+
+run_cds() {
+  # the archive is only used with the class path it was created with, so start from the same directory
+  cd "$TARGET/cds" && exec java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar "$APP_JAR" "$@"
+}
+
+if [ -f "$TARGET/cds/application.jsa" ]; then
+  for run in $(seq "$RUNS"); do
+    run_once cds "$run" run_cds
+  done
+fi
+
+if [ -x "$TARGET/stage6" ]; then
+  for run in $(seq "$RUNS"); do
+    run_once native "$run" "$TARGET/stage6"
+  done
+fi
+
+rm -f "$LOG"
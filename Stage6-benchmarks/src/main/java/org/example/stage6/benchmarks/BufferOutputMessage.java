@@ -0,0 +1,32 @@
+package org.example.stage6.benchmarks;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Response stand-in that keeps the written bytes and headers in reused objects,
+ * so only what the converter allocates shows up in -prof gc
+ */
+final class BufferOutputMessage implements HttpOutputMessage {
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+    private final HttpHeaders headers = new HttpHeaders();
+
+    void reset() {
+        body.reset();
+        headers.clear();
+    }
+
+    @Override
+    public OutputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.stage6.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.model.Student;
+import org.example.stage6.repository.StudentRepository;
+import org.example.stage6.repository.StudentRepositoryConfiguration;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.example.stage6.service.StudentChangeFeed;
+import org.example.stage6.service.StudentServiceImpl;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Builds the objects under test the same way the Spring context does, without starting it
+ */
+final class Fixtures {
+
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Charlie", "David", "Eve", "Frank", "Grace", "Heidi"};
+    private static final String[] LAST_NAMES = {"Moskovitz", "Smith", "Brown", "Miller", "Cohen", "Levi", "Mizrahi"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * A store of the given type holding students with IDs 1..size
+     */
+    static StudentRepository repository(StudentRepositoryProperties.Type type, int size) {
+        StudentRepositoryProperties properties = new StudentRepositoryProperties();
+        properties.setType(type);
+        properties.getOffHeap().setInitialCapacity(size);
+        StudentRepository repository = new StudentRepositoryConfiguration().studentRepository(properties);
+        // one batch, so the JDBC store loads the students with statement batches in a single transaction
+        repository.executeAtomically(() -> {
+            for (long id = 1; id <= size; id++) {
+                repository.insertIfAbsent(student(id));
+            }
+            return null;
+        });
+        return repository;
+    }
+
+    static StudentServiceImpl service(StudentRepository repository) {
+        return new StudentServiceImpl(repository, new StudentMapper(), new StudentChangeFeed(1024));
+    }
+
+    static Student student(long id) {
+        int i = (int) (id & Integer.MAX_VALUE);
+        return new Student(id, FIRST_NAMES[i % FIRST_NAMES.length], LAST_NAMES[i % LAST_NAMES.length], 18 + i % 40 + 0.5, 1);
+    }
+
+    /**
+     * The ObjectMapper Spring Boot configures for MVC (Java time module, ISO dates)
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * Mapper of the given wire format, json, cbor or smile, configured like the Stage6 converters
+     */
+    static ObjectMapper objectMapper(String format) {
+        return switch (format) {
+            case "json" -> objectMapper();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+}
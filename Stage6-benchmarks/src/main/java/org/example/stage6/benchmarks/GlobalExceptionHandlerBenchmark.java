@@ -0,0 +1,110 @@
+package org.example.stage6.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.AlreadyExists;
+import org.example.stage6.exception.GlobalExceptionHandler;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.example.stage6.response.StandardResponse;
+import org.example.stage6.response.StandardResponseHttpMessageConverter;
+import org.example.stage6.service.StudentServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error paths: the service throws, GlobalExceptionHandler builds the error response, and it is written
+ * with plain Jackson or, like Stage6 does, with the pre-encoded StandardResponseHttpMessageConverter
+ * Run with -prof gc to see the allocation per error: about 2 KB with Jackson and still about 1 KB pre-encoded,
+ * of which roughly 0.45 KB are the Content-Type and Content-Length headers Spring adds to every response
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+    private static final long MISSING_ID = -1L;
+
+    private StudentServiceImpl service;
+    private GlobalExceptionHandler handler;
+    private ObjectMapper objectMapper;
+    private StudentDto existing;
+    private StandardResponseHttpMessageConverter converter;
+    private BufferOutputMessage output;
+
+    @Setup
+    public void setUp() {
+        service = Fixtures.service(Fixtures.repository(StudentRepositoryProperties.Type.IN_MEMORY, 1000));
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        objectMapper = Fixtures.objectMapper();
+        existing = service.getStudent(1L);
+        converter = new StandardResponseHttpMessageConverter(objectMapper, 10_000);
+        output = new BufferOutputMessage();
+    }
+
+    @Benchmark
+    public byte[] notFound() throws JsonProcessingException {
+        try {
+            service.getStudent(MISSING_ID);
+            throw new IllegalStateException("student should not exist");
+        } catch (NotExists ex) {
+            ResponseEntity<StandardResponse> response = handler.handleNotExists(ex, null);
+            return objectMapper.writeValueAsBytes(response.getBody());
+        }
+    }
+
+    @Benchmark
+    public byte[] conflict() throws JsonProcessingException {
+        try {
+            service.addStudent(existing);
+            throw new IllegalStateException("student should already exist");
+        } catch (AlreadyExists ex) {
+            ResponseEntity<StandardResponse> response = handler.handleAlreadyExists(ex, null);
+            return objectMapper.writeValueAsBytes(response.getBody());
+        }
+    }
+
+    @Benchmark
+    public int notFoundPreEncoded() throws IOException {
+        try {
+            service.getStudent(MISSING_ID);
+            throw new IllegalStateException("student should not exist");
+        } catch (NotExists ex) {
+            return write(handler.handleNotExists(ex, null));
+        }
+    }
+
+    @Benchmark
+    public int conflictPreEncoded() throws IOException {
+        try {
+            service.addStudent(existing);
+            throw new IllegalStateException("student should already exist");
+        } catch (AlreadyExists ex) {
+            return write(handler.handleAlreadyExists(ex, null));
+        }
+    }
+
+    private int write(ResponseEntity<StandardResponse> response) throws IOException {
+        output.reset();
+        converter.write(response.getBody(), MediaType.APPLICATION_JSON, output);
+        return output.body.size();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.stage6.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Closed-loop HTTP load generator for a running Stage6 instance
+ * Each simulated client sends a request, waits for the answer, then sends the next one.
+ * Used to compare the platform-thread and the virtual-thread execution mode (see run-load-test.sh).
+ * <p>
+ * Arguments: baseUrl clients seconds writePercent label
+ * Prints one JSON line with throughput, latency percentiles and errors.
+ */
+public final class HttpLoadTest {
+
+    // latency histogram with 100 microsecond buckets up to 10 seconds
+    private static final int BUCKET_MICROS = 100;
+    private static final int BUCKETS = 100_000;
+    private static final int STUDENT_IDS = 1000;
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int writePercent = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        String label = args.length > 4 ? args[4] : "run";
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        prepareStudents(client, baseUrl);
+
+        AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(clients);
+        long started = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            sendNext(client, baseUrl, writePercent, deadline, histogram, completed, errors, done);
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("{\"label\":\"%s\",\"clients\":%d,\"seconds\":%.1f,\"requests\":%d,\"errors\":%d,"
+                        + "\"throughput\":%.1f,\"p50Ms\":%.2f,\"p99Ms\":%.2f,\"p999Ms\":%.2f}%n",
+                label, clients, elapsed, completed.get(), errors.get(), completed.get() / elapsed,
+                percentile(histogram, 0.50), percentile(histogram, 0.99), percentile(histogram, 0.999));
+    }
+
+    /**
+     * Send one request and chain the next one of the same client when it completes
+     */
+    private static void sendNext(HttpClient client, String baseUrl, int writePercent, long deadline,
+                                 AtomicLongArray histogram, AtomicLong completed, AtomicLong errors, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(1, STUDENT_IDS + 1);
+        HttpRequest request = random.nextInt(100) < writePercent
+                ? HttpRequest.newBuilder(URI.create(baseUrl + "/student/updateStudent/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(studentJson(id, random.nextInt(18, 60))))
+                        .build()
+                : HttpRequest.newBuilder(URI.create(baseUrl + "/student/getStudent/" + id)).GET().build();
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long micros = (System.nanoTime() - sent) / 1000;
+            histogram.incrementAndGet((int) Math.min(BUCKETS - 1, micros / BUCKET_MICROS));
+            completed.incrementAndGet();
+            if (failure != null || response.statusCode() >= 400) {
+                errors.incrementAndGet();
+            }
+            sendNext(client, baseUrl, writePercent, deadline, histogram, completed, errors, done);
+        });
+    }
+
+    /**
+     * Make sure the students the load test reads and updates exist
+     */
+    private static void prepareStudents(HttpClient client, String baseUrl) throws Exception {
+        StringBuilder body = new StringBuilder("{\"students\":[");
+        for (int id = 1; id <= STUDENT_IDS; id++) {
+            body.append(id > 1 ? "," : "").append(studentJson(id, 20));
+        }
+        body.append("]}");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/student/addStudents?mode=BEST_EFFORT"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static String studentJson(int id, int age) {
+        return "{\"id\":" + id + ",\"firstName\":\"Load\",\"lastName\":\"Test" + id + "\",\"age\":" + age + "}";
+    }
+
+    private static double percentile(AtomicLongArray histogram, double fraction) {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+        }
+        long total = Arrays.stream(counts).sum();
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target && target > 0) {
+                return (i + 1) * BUCKET_MICROS / 1000.0;
+            }
+        }
+        return 0;
+    }
+}
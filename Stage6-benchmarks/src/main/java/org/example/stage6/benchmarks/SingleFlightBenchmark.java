@@ -0,0 +1,87 @@
+package org.example.stage6.benchmarks;
+
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.example.stage6.response.StandardResponse;
+import org.example.stage6.response.StandardResponseHttpMessageConverter;
+import org.example.stage6.service.SingleFlightStudentService;
+import org.example.stage6.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads asking for the same thing at once, with and without SingleFlightStudentService
+ * Each call is a full response: the service read plus the JSON encoding of the StandardResponse.
+ * Without coalescing every thread copies, maps and encodes the students itself, with it the threads that arrive
+ * while a read runs wait for it and copy its bytes, so the same CPU answers more calls.
+ * Run with -t N to change the number of threads, and with -prof gc to compare the allocation per call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(16)
+public class SingleFlightBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean singleFlight;
+
+    private StudentService service;
+
+    private StandardResponseHttpMessageConverter converter;
+
+    /**
+     * The response of one thread
+     */
+    @State(Scope.Thread)
+    public static class Output {
+        final BufferOutputMessage message = new BufferOutputMessage();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = Fixtures.service(Fixtures.repository(StudentRepositoryProperties.Type.IN_MEMORY, size));
+        if (singleFlight) {
+            service = new SingleFlightStudentService(service, null);
+        }
+        converter = new StandardResponseHttpMessageConverter(Fixtures.objectMapper(), 10_000);
+    }
+
+    @Benchmark
+    public int getAllStudents(Output output) throws IOException {
+        return write(output, service.getAllStudents());
+    }
+
+    /**
+     * One popular student, read without the getStudent cache
+     */
+    @Benchmark
+    public int getHotStudent(Output output) throws IOException {
+        return write(output, service.getStudent(1L));
+    }
+
+    private int write(Output output, Object data) throws IOException {
+        output.message.reset();
+        converter.write(new StandardResponse("success", data, null), MediaType.APPLICATION_JSON, output.message);
+        return output.message.body.size();
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.stage6.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.response.StandardResponse;
+import org.example.stage6.response.StandardResponseHttpMessageConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of StandardResponse, as done for every successful response,
+ * compared with the pre-encoded StandardResponseHttpMessageConverter
+ * Includes creating the StandardResponse, which reads the clock
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StandardResponseSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private StudentDto student;
+    private List<StudentDto> students;
+    private MappingJackson2HttpMessageConverter jacksonConverter;
+    private StandardResponseHttpMessageConverter converter;
+    private BufferOutputMessage output;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Fixtures.objectMapper();
+        StudentMapper mapper = new StudentMapper();
+        student = mapper.toDto(Fixtures.student(1));
+        students = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            students.add(mapper.toDto(Fixtures.student(id)));
+        }
+        jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+        converter = new StandardResponseHttpMessageConverter(objectMapper, 10_000);
+        output = new BufferOutputMessage();
+    }
+
+    @Benchmark
+    public byte[] singleStudent() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new StandardResponse("success", student, null));
+    }
+
+    @Benchmark
+    public byte[] studentList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new StandardResponse("success", students, null));
+    }
+
+    /**
+     * The Jackson converter Spring MVC uses by default, including its header handling
+     */
+    @Benchmark
+    public int singleStudentJacksonConverter() throws IOException {
+        output.reset();
+        jacksonConverter.write(new StandardResponse("success", student, null), MediaType.APPLICATION_JSON, output);
+        return output.body.size();
+    }
+
+    @Benchmark
+    public int studentListJacksonConverter() throws IOException {
+        output.reset();
+        jacksonConverter.write(new StandardResponse("success", students, null), MediaType.APPLICATION_JSON, output);
+        return output.body.size();
+    }
+
+    /**
+     * Same student instance on every call, like a getStudent cache hit
+     */
+    @Benchmark
+    public int singleStudentPreEncoded() throws IOException {
+        output.reset();
+        converter.write(new StandardResponse("success", student, null), MediaType.APPLICATION_JSON, output);
+        return output.body.size();
+    }
+
+    @Benchmark
+    public int studentListPreEncoded() throws IOException {
+        output.reset();
+        converter.write(new StandardResponse("success", students, null), MediaType.APPLICATION_JSON, output);
+        return output.body.size();
+    }
+}
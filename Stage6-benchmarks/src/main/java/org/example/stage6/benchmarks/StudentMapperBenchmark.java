@@ -0,0 +1,80 @@
+package org.example.stage6.benchmarks;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.model.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * StudentMapper conversions in both directions, one student and lists of listSize students
+ * The list variants compare the old per-element stream with the bulk methods
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentMapperBenchmark {
+
+    private final StudentMapper mapper = new StudentMapper();
+
+    @Param({"100", "10000"})
+    public int listSize;
+
+    private Student entity;
+    private StudentDto dto;
+    private List<Student> entities;
+    private List<StudentDto> dtos;
+
+    @Setup
+    public void setUp() {
+        entity = Fixtures.student(42);
+        dto = mapper.toDto(entity);
+        entities = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            entities.add(Fixtures.student(id));
+        }
+        dtos = mapper.toDtoList(entities);
+    }
+
+    @Benchmark
+    public StudentDto toDto() {
+        return mapper.toDto(entity);
+    }
+
+    @Benchmark
+    public Student toEntity() {
+        return mapper.toEntity(dto);
+    }
+
+    @Benchmark
+    public List<StudentDto> toDtoStream() {
+        return entities.stream().map(mapper::toDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<StudentDto> toDtoList() {
+        return mapper.toDtoList(entities);
+    }
+
+    @Benchmark
+    public List<Student> toEntityList() {
+        return mapper.toEntityList(dtos);
+    }
+}
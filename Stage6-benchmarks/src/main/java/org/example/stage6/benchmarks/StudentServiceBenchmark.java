@@ -0,0 +1,90 @@
+package org.example.stage6.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.example.stage6.service.MeteredStudentService;
+import org.example.stage6.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CRUD operations of StudentServiceImpl at different store sizes and store types
+ * metered=true adds the operation timers of MeteredStudentService, to measure their overhead
+ * Run with -t N to measure contention with N threads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StudentServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"IN_MEMORY", "OFF_HEAP", "JDBC"})
+    public StudentRepositoryProperties.Type store;
+
+    @Param({"false", "true"})
+    public boolean metered;
+
+    private StudentService service;
+
+    // IDs above the initial range, used by add/delete so the store size stays stable
+    private final AtomicLong nextNewId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = Fixtures.service(Fixtures.repository(store, size));
+        if (metered) {
+            service = new MeteredStudentService(service, new SimpleMeterRegistry());
+        }
+        nextNewId.set(size + 1L);
+    }
+
+    @Benchmark
+    public StudentDto getStudent() {
+        return service.getStudent(randomId());
+    }
+
+    @Benchmark
+    public StudentDto updateStudent() {
+        long id = randomId();
+        StudentDto dto = new StudentDto(id, "Updated", "Student", 30.5, 0);
+        return service.updateStudent(dto, id);
+    }
+
+    @Benchmark
+    public StudentDto addAndDeleteStudent() {
+        long id = nextNewId.getAndIncrement();
+        StudentDto added = service.addStudent(new StudentDto(id, "New", "Student", 20.5, 0));
+        service.deleteStudent(id);
+        return added;
+    }
+
+    @Benchmark
+    public List<StudentDto> getStudentsPage() {
+        return service.getStudentsPage(randomId(), 100);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, size + 1L);
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.stage6.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.response.StandardResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of the wire formats negotiated on /student/*: JSON, CBOR and Smile
+ * The encoded sizes are printed once per trial, next to the timings
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"1", "1000"})
+    public int listSize;
+
+    private ObjectWriter studentWriter;
+    private ObjectReader studentReader;
+    private ObjectWriter responseWriter;
+    private ObjectReader listReader;
+
+    private StudentDto student;
+    private StandardResponse response;
+    private byte[] encodedStudent;
+    private byte[] encodedList;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Fixtures.objectMapper(format);
+        studentWriter = mapper.writerFor(StudentDto.class);
+        studentReader = mapper.readerFor(StudentDto.class);
+        responseWriter = mapper.writerFor(StandardResponse.class);
+        listReader = mapper.readerFor(new TypeReference<List<StudentDto>>() { });
+
+        StudentMapper studentMapper = new StudentMapper();
+        student = studentMapper.toDto(Fixtures.student(1));
+        List<StudentDto> students = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            students.add(studentMapper.toDto(Fixtures.student(id)));
+        }
+        response = new StandardResponse("success", students, null);
+
+        encodedStudent = studentWriter.writeValueAsBytes(student);
+        encodedList = mapper.writeValueAsBytes(students);
+        System.out.printf("%n%s: student %d bytes, response with %d students %d bytes, list %d bytes%n",
+                format, encodedStudent.length, listSize, responseWriter.writeValueAsBytes(response).length, encodedList.length);
+    }
+
+    @Benchmark
+    public byte[] encodeStudent() throws IOException {
+        return studentWriter.writeValueAsBytes(student);
+    }
+
+    @Benchmark
+    public StudentDto decodeStudent() throws IOException {
+        return studentReader.readValue(encodedStudent);
+    }
+
+    @Benchmark
+    public byte[] encodeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public List<StudentDto> decodeList() throws IOException {
+        return listReader.readValue(encodedList);
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.stage6.benchmarks;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.example.stage6.service.StudentService;
+import org.example.stage6.service.WritePipelineStudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads updating students at once, straight on the store and through WritePipelineStudentService
+ * hot is the number of students the updates go to: with few of them most updates in a batch are coalesced,
+ * with many of them the gain comes from applying a batch under one store operation (one transaction on JDBC)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(16)
+public class WritePipelineBenchmark {
+
+    @Param({"IN_MEMORY", "JDBC"})
+    public StudentRepositoryProperties.Type store;
+
+    @Param({"16", "10000"})
+    public int hot;
+
+    @Param({"false", "true"})
+    public boolean pipeline;
+
+    private StudentService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = Fixtures.service(Fixtures.repository(store, 10_000));
+        if (pipeline) {
+            service = new WritePipelineStudentService(service, 8192, 512, null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (service instanceof WritePipelineStudentService writePipeline) {
+            writePipeline.close();
+        }
+    }
+
+    @Benchmark
+    public StudentDto updateStudent() {
+        long id = 1 + ThreadLocalRandom.current().nextInt(hot);
+        return service.updateStudent(new StudentDto(id, "Alice", "Moskovitz", 18 + ThreadLocalRandom.current().nextInt(40), 0), id);
+    }
+}
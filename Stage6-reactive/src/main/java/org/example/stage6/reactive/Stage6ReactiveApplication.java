@@ -0,0 +1,22 @@
+package org.example.stage6.reactive;
+
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.repository.StudentRepositoryConfiguration;
+import org.example.stage6.service.StudentServiceConfiguration;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Stage6 student API served by Spring WebFlux
+ * Reuses the Stage6 store, mapper and business logic, only the web layer is reactive
+ */
+@SpringBootApplication
+@Import({StudentRepositoryConfiguration.class, StudentMapper.class, StudentServiceConfiguration.class})
+public class Stage6ReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(Stage6ReactiveApplication.class, args);
+    }
+
+}
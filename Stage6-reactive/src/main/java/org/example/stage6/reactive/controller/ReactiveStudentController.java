@@ -0,0 +1,201 @@
+package org.example.stage6.reactive.controller;
+
+import jakarta.validation.Valid;
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentBatchRequest;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.dto.StudentIdsRequest;
+import org.example.stage6.dto.StudentPageDto;
+import org.example.stage6.reactive.service.ReactiveStudentService;
+import org.example.stage6.response.ErrorDetails;
+import org.example.stage6.response.StandardResponse;
+import org.example.stage6.service.BatchMode;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Reactive REST controller for student operations
+ * Same /student/* contract and responses as the Stage6 StudentController, served on the WebFlux event loop
+ */
+@RestController
+@RequestMapping("/student")
+public class ReactiveStudentController {
+
+    // page size limits for getStudents and search
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveStudentService studentService;
+
+    public ReactiveStudentController(ReactiveStudentService studentService) {
+        this.studentService = studentService;
+    }
+
+    /**
+     * Get all students
+     * Returns ResponseEntity with StandardResponse and 200 OK status
+     */
+    @GetMapping("/getAllStudents")
+    public Mono<ResponseEntity<StandardResponse>> getAllStudents() {
+        return studentService.getAllStudents()
+                .collectList()
+                .map(students -> ResponseEntity.ok(new StandardResponse("success", students, null))); // 200 OK
+    }
+
+    /**
+     * Get one page of students ordered by ID (keyset pagination)
+     * The first page is requested without "after", each next page with the nextAfter of the previous one
+     * Returns ResponseEntity with StandardResponse and 200 OK status
+     */
+    @GetMapping("/getStudents")
+    public Mono<ResponseEntity<StandardResponse>> getStudents(@RequestParam(required = false) Long after,
+                                                              @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        return studentService.getStudentsPage(after, pageSize)
+                .collectList()
+                .map(students -> {
+                    Long nextAfter = students.size() < pageSize ? null : students.get(students.size() - 1).getId();
+                    StandardResponse response = new StandardResponse("success", new StudentPageDto(students, nextAfter), null);
+                    return ResponseEntity.ok(response); // 200 OK
+                });
+    }
+
+    /**
+     * Search students by last name prefix, first name prefix and age range
+     * Every parameter is optional, name prefixes are case-insensitive, the age range is inclusive
+     * Returns ResponseEntity with StandardResponse and 200 OK status
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<StandardResponse>> searchStudents(@RequestParam(required = false) String lastNamePrefix,
+                                                                 @RequestParam(required = false) String firstNamePrefix,
+                                                                 @RequestParam(required = false) Double minAge,
+                                                                 @RequestParam(required = false) Double maxAge,
+                                                                 @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        return studentService.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, pageSize)
+                .collectList()
+                .map(students -> ResponseEntity.ok(new StandardResponse("success", students, null))); // 200 OK
+    }
+
+    /**
+     * Stream all students as NDJSON (one student per line) or as a single JSON array
+     * Students are read from the store only as fast as the client consumes them
+     */
+    @GetMapping(value = "/streamAllStudents", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<StudentDto> streamAllStudents() {
+        return studentService.getAllStudents(); // 200 OK
+    }
+
+    /**
+     * Get a student by ID
+     * Returns ResponseEntity with StandardResponse and 200 OK status
+     */
+    @GetMapping("/getStudent/{id}")
+    public Mono<ResponseEntity<StandardResponse>> getStudent(@PathVariable Long id) {
+        return studentService.getStudent(id)
+                .map(student -> ResponseEntity.ok(new StandardResponse("success", student, null))); // 200 OK
+    }
+
+    /**
+     * Add a new student
+     * Uses @Valid to validate a student according to Jakarta Validation constraints
+     * Returns ResponseEntity with StandardResponse and 201 Created status with location header
+     */
+    @PostMapping("/addStudent")
+    public Mono<ResponseEntity<StandardResponse>> addStudent(@Valid @RequestBody StudentDto studentDto, ServerHttpRequest request) {
+        return studentService.addStudent(studentDto)
+                .map(added -> {
+                    URI location = UriComponentsBuilder
+                            .fromUri(request.getURI())
+                            .path("/{id}")
+                            .buildAndExpand(added.getId())
+                            .toUri();
+                    StandardResponse response = new StandardResponse("success", added, null);
+                    return ResponseEntity.created(location).body(response); // 201 Created
+                });
+    }
+
+    /**
+     * Update a student
+     * Uses @Valid to validate a student according to Jakarta Validation constraints
+     * Returns ResponseEntity with StandardResponse and 200 OK status
+     */
+    @PutMapping("/updateStudent/{id}")
+    public Mono<ResponseEntity<StandardResponse>> updateStudent(@Valid @RequestBody StudentDto studentDto, @PathVariable Long id) {
+        return studentService.updateStudent(studentDto, id)
+                .map(updated -> ResponseEntity.ok(new StandardResponse("success", updated, null))); // 200 OK
+    }
+
+    /**
+     * Delete a student
+     * Returns ResponseEntity with 204 No Content status without a response body
+     */
+    @DeleteMapping("/deleteStudent/{id}")
+    public Mono<ResponseEntity<Void>> deleteStudent(@PathVariable Long id) {
+        return studentService.deleteStudent(id)
+                .then(Mono.fromSupplier(() -> ResponseEntity.noContent().<Void>build())); // 204 No Content
+    }
+
+    /**
+     * Add several students in one request
+     * mode=ATOMIC (default) applies all students or none, mode=BEST_EFFORT applies every valid student
+     * Returns 200 OK with one result per student. If nothing was applied it returns 404 Not Found
+     * when every failed student does not exist, else 409 Conflict
+     */
+    @PostMapping("/addStudents")
+    public Mono<ResponseEntity<StandardResponse>> addStudents(@Valid @RequestBody StudentBatchRequest request,
+                                                              @RequestParam(defaultValue = "ATOMIC") BatchMode mode) {
+        return studentService.addStudents(request.getStudents(), mode).map(this::batchResponse);
+    }
+
+    /**
+     * Update several students in one request, each student is matched by its ID
+     * Same validation, modes and statuses as addStudents
+     */
+    @PutMapping("/updateStudents")
+    public Mono<ResponseEntity<StandardResponse>> updateStudents(@Valid @RequestBody StudentBatchRequest request,
+                                                                 @RequestParam(defaultValue = "ATOMIC") BatchMode mode) {
+        return studentService.updateStudents(request.getStudents(), mode).map(this::batchResponse);
+    }
+
+    /**
+     * Delete several students in one request
+     * Same modes and statuses as addStudents
+     */
+    @DeleteMapping("/deleteStudents")
+    public Mono<ResponseEntity<StandardResponse>> deleteStudents(@Valid @RequestBody StudentIdsRequest request,
+                                                                 @RequestParam(defaultValue = "ATOMIC") BatchMode mode) {
+        return studentService.deleteStudents(request.getIds(), mode).map(this::batchResponse);
+    }
+
+    /**
+     * Builds the response of a batch operation
+     * success: every item was applied, warning: some items failed, error: no item was applied
+     */
+    private ResponseEntity<StandardResponse> batchResponse(List<BatchItemResult> results) {
+        long applied = results.stream().filter(r -> "success".equals(r.getStatus())).count();
+        if (applied == 0) {
+            StandardResponse response = new StandardResponse("error", results, null);
+            // skipped items failed only because of the failed ones, so those decide the status
+            if (results.stream().filter(r -> "error".equals(r.getStatus())).allMatch(ReactiveStudentController::notFound)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response); // 404 Not Found
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response); // 409 Conflict
+        }
+        String status = applied == results.size() ? "success" : "warning";
+        return ResponseEntity.ok(new StandardResponse(status, results, null)); // 200 OK
+    }
+
+    private static boolean notFound(BatchItemResult result) {
+        return result.getError() instanceof ErrorDetails error && "Resource Not Found".equals(error.getType());
+    }
+}
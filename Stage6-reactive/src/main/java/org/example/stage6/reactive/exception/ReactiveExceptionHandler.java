@@ -0,0 +1,90 @@
+package org.example.stage6.reactive.exception;
+
+import org.example.stage6.exception.AlreadyExists;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.exception.StudentIdAndIdMismatch;
+import org.example.stage6.response.ErrorDetails;
+import org.example.stage6.response.StandardResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reactive port of the Stage6 GlobalExceptionHandler
+ * Same statuses and StandardResponse bodies, errors arrive here from the failed Mono/Flux of a handler
+ */
+@ControllerAdvice
+public class ReactiveExceptionHandler {
+
+    /**
+     * takes care of the exception when a resource is not found, 404 Not Found
+     */
+    @ExceptionHandler(NotExists.class)
+    public ResponseEntity<StandardResponse> handleNotExists(NotExists ex) {
+        return error(HttpStatus.NOT_FOUND, "Resource Not Found", ex.getMessage());
+    }
+
+    /**
+     * takes care of the exception when a resource already exists, 409 Conflict
+     */
+    @ExceptionHandler(AlreadyExists.class)
+    public ResponseEntity<StandardResponse> handleAlreadyExists(AlreadyExists ex) {
+        return error(HttpStatus.CONFLICT, "Resource Conflict", ex.getMessage());
+    }
+
+    /**
+     * takes care of the exception when there's an ID mismatch, 400 Bad Request
+     */
+    @ExceptionHandler(StudentIdAndIdMismatch.class)
+    public ResponseEntity<StandardResponse> handleIdMismatch(StudentIdAndIdMismatch ex) {
+        return error(HttpStatus.BAD_REQUEST, "ID Mismatch", ex.getMessage());
+    }
+
+    /**
+     * Exception handler for @Valid validation errors, such as @NotNull, @Size, etc.
+     * WebFlux reports them as WebExchangeBindException instead of MethodArgumentNotValidException
+     * BadRequest 400
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<StandardResponse> handleValidationExceptions(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+
+        ex.getBindingResult().getFieldErrors().forEach(error ->
+                errors.put(error.getField(), error.getDefaultMessage())
+        );
+
+        Map<String, Object> details = new HashMap<>();
+        details.put("type", "Validation Failed");
+        details.put("fields", errors);
+
+        StandardResponse response = new StandardResponse("error", null, details);
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * takes care of unreadable bodies and bad request parameters, 400 Bad Request
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<StandardResponse> handleBadInput(ServerWebInputException ex) {
+        return error(HttpStatus.BAD_REQUEST, "Bad Request", ex.getReason());
+    }
+
+    /**
+     * takes care of general exceptions, 500 Internal Server Error
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<StandardResponse> handleGenericException(Exception ex) {
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", ex.getMessage());
+    }
+
+    private ResponseEntity<StandardResponse> error(HttpStatus status, String type, String message) {
+        StandardResponse response = new StandardResponse("error", null, new ErrorDetails(type, message));
+        return new ResponseEntity<>(response, status);
+    }
+}
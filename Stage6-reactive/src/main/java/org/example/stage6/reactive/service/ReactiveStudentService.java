@@ -0,0 +1,83 @@
+package org.example.stage6.reactive.service;
+
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.service.BatchMode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking service interface for student operations
+ * Same operations as StudentService, errors are signalled through the returned Mono/Flux
+ */
+public interface ReactiveStudentService {
+    /**
+     * Get all students ordered by ID
+     * Students are read page by page as the subscriber requests them
+     * @return Flux of all students as DTOs
+     */
+    Flux<StudentDto> getAllStudents();
+
+    /**
+     * Get one page of students ordered by ID
+     * @param afterId Only students with a greater ID are returned, null to start from the beginning
+     * @param limit Maximum page size
+     * @return Flux of the students of the page as DTOs
+     */
+    Flux<StudentDto> getStudentsPage(Long afterId, int limit);
+
+    /**
+     * Search students by name prefix and age range, every criterion is optional
+     * @return Flux of the matching students as DTOs
+     */
+    Flux<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit);
+
+    /**
+     * Get student by ID as DTO
+     * @param id The student ID to retrieve
+     * @return Mono of the found student, fails with NotExists if a student doesn't exist
+     */
+    Mono<StudentDto> getStudent(Long id);
+
+    /**
+     * Add a new student
+     * @param studentDto Student data to add (as DTO)
+     * @return Mono of the added student, fails with AlreadyExists if a student with the same ID already exists
+     */
+    Mono<StudentDto> addStudent(StudentDto studentDto);
+
+    /**
+     * Update an existing student
+     * @param studentDto Updated student data (as DTO)
+     * @param id The ID from the path parameter
+     * @return Mono of the updated student, fails with NotExists or StudentIdAndIdMismatch
+     */
+    Mono<StudentDto> updateStudent(StudentDto studentDto, Long id);
+
+    /**
+     * Delete a student by ID
+     * @param id Student ID to delete
+     * @return Empty Mono, fails with NotExists if a student doesn't exist
+     */
+    Mono<Void> deleteStudent(Long id);
+
+    /**
+     * Add several students in one batch
+     * @return Mono of one result per student, in request order
+     */
+    Mono<List<BatchItemResult>> addStudents(List<StudentDto> studentDtos, BatchMode mode);
+
+    /**
+     * Update several existing students in one batch
+     * @return Mono of one result per student, in request order
+     */
+    Mono<List<BatchItemResult>> updateStudents(List<StudentDto> studentDtos, BatchMode mode);
+
+    /**
+     * Delete several students in one batch
+     * @return Mono of one result per ID, in request order
+     */
+    Mono<List<BatchItemResult>> deleteStudents(List<Long> ids, BatchMode mode);
+}
@@ -0,0 +1,110 @@
+package org.example.stage6.reactive.service;
+
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.example.stage6.service.BatchMode;
+import org.example.stage6.service.StudentService;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Implementation of the ReactiveStudentService interface
+ * Delegates the business logic to the Stage6 StudentService:
+ * reads of the in-memory and off-heap stores only touch the indexes and run on the calling event-loop thread,
+ * reads of the JDBC store may wait for the database, so they run on the bounded elastic scheduler like the writes,
+ * which may wait for a lock, the write-ahead log fsync or the database
+ */
+@Service
+public class ReactiveStudentServiceImpl implements ReactiveStudentService {
+
+    // number of students read from the store per demand when streaming all students
+    static final int STREAM_CHUNK_SIZE = 1000;
+
+    private final StudentService studentService;
+
+    private final Scheduler writeScheduler = Schedulers.boundedElastic();
+
+    private final Scheduler readScheduler;
+
+    public ReactiveStudentServiceImpl(StudentService studentService, StudentRepositoryProperties repositoryProperties) {
+        this.studentService = studentService;
+        this.readScheduler = repositoryProperties.getType() == StudentRepositoryProperties.Type.JDBC
+                ? writeScheduler
+                : Schedulers.immediate();
+    }
+
+    @Override
+    public Flux<StudentDto> getAllStudents() {
+        // expand() asks for the next keyset page only after the subscriber consumed the previous one
+        return Mono.fromCallable(() -> studentService.getStudentsPage(null, STREAM_CHUNK_SIZE))
+                .expand(page -> page.size() < STREAM_CHUNK_SIZE
+                        ? Mono.empty()
+                        : Mono.fromCallable(() -> studentService.getStudentsPage(page.get(page.size() - 1).getId(), STREAM_CHUNK_SIZE)))
+                .concatMapIterable(Function.identity())
+                .subscribeOn(readScheduler);
+    }
+
+    @Override
+    public Flux<StudentDto> getStudentsPage(Long afterId, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(studentService.getStudentsPage(afterId, limit)))
+                .subscribeOn(readScheduler);
+    }
+
+    @Override
+    public Flux<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(
+                studentService.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit)))
+                .subscribeOn(readScheduler);
+    }
+
+    @Override
+    public Mono<StudentDto> getStudent(Long id) {
+        return Mono.fromCallable(() -> studentService.getStudent(id)).subscribeOn(readScheduler);
+    }
+
+    @Override
+    public Mono<StudentDto> addStudent(StudentDto studentDto) {
+        return write(() -> studentService.addStudent(studentDto));
+    }
+
+    @Override
+    public Mono<StudentDto> updateStudent(StudentDto studentDto, Long id) {
+        return write(() -> studentService.updateStudent(studentDto, id));
+    }
+
+    @Override
+    public Mono<Void> deleteStudent(Long id) {
+        return Mono.<Void>fromRunnable(() -> studentService.deleteStudent(id))
+                .subscribeOn(writeScheduler);
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return write(() -> studentService.addStudents(studentDtos, mode));
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return write(() -> studentService.updateStudents(studentDtos, mode));
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> deleteStudents(List<Long> ids, BatchMode mode) {
+        return write(() -> studentService.deleteStudents(ids, mode));
+    }
+
+    /**
+     * Runs a blocking write off the event loop
+     */
+    private <T> Mono<T> write(Callable<T> work) {
+        return Mono.fromCallable(work).subscribeOn(writeScheduler);
+    }
+}
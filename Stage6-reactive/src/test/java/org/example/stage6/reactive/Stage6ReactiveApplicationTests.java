@@ -0,0 +1,13 @@
+package org.example.stage6.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class Stage6ReactiveApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.example.stage6.reactive.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads of the JDBC store wait for the database, so they must not run on the calling event-loop thread
+ */
+@SpringBootTest(properties = {
+        "student.repository.type=jdbc",
+        "student.repository.jdbc.url=jdbc:h2:mem:reactive-students;DB_CLOSE_DELAY=-1"})
+class ReactiveStudentServiceImplTest {
+
+    @Autowired
+    private ReactiveStudentService studentService;
+
+    @Test
+    void jdbcReadsRunOnTheBoundedElasticScheduler() {
+        String caller = Thread.currentThread().getName();
+
+        String studentThread = studentService.getStudent(1L)
+                .map(student -> Thread.currentThread().getName())
+                .block();
+        String pageThread = studentService.getStudentsPage(null, 10)
+                .map(student -> Thread.currentThread().getName())
+                .blockFirst();
+
+        assertTrue(studentThread.startsWith("boundedElastic"), caller + " read on " + studentThread);
+        assertTrue(pageThread.startsWith("boundedElastic"), caller + " read on " + pageThread);
+    }
+}
@@ -1,9 +1,21 @@
 package org.example.stage6;
 
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentChangeEvent;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.dto.StudentPageDto;
+import org.example.stage6.response.ErrorDetails;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+/**
+ * The types below are written as JSON through Object fields (StandardResponse.data and error, SSE event data),
+ * so Spring AOT cannot find them from the controller signatures, they are registered for the native image here
+ */
 @SpringBootApplication
+@RegisterReflectionForBinding({StudentDto.class, StudentPageDto.class, BatchItemResult.class, ErrorDetails.class,
+        StudentChangeEvent.class})
 public class Stage6Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,78 @@
+package org.example.stage6.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Limit of the requests in progress over all endpoints, adapted to the observed latency (additive increase,
+ * multiplicative decrease). Responses of requests admitted before the last decrease do not decrease it again,
+ * they only show the load the old limit allowed.
+ */
+final class AdaptiveLimit {
+
+    private final AdmissionProperties.Adaptive settings;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // the limit is a double, so fast responses can grow it by fractions
+    private final AtomicLong limitBits;
+
+    private volatile long lastDecrease = System.nanoTime();
+
+    AdaptiveLimit(AdmissionProperties.Adaptive settings) {
+        this.settings = settings;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(settings.getInitialLimit()));
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    double getLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    /**
+     * Admit a request if the requests in progress stay within the limit, or within its share for non-critical ones
+     */
+    boolean tryAcquire(boolean critical) {
+        double allowed = critical ? getLimit() : getLimit() * settings.getNonCriticalShare();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adapt the limit to the latency of a finished request
+     * @param startedAt System.nanoTime() when the request was admitted
+     */
+    void onResponse(long startedAt, long latency, long latencyTarget) {
+        if (latency <= latencyTarget) {
+            update(limit -> Math.min(settings.getMaxLimit(), limit + 1 / limit));
+        } else if (startedAt >= lastDecrease) {
+            lastDecrease = System.nanoTime();
+            update(limit -> Math.max(settings.getMinLimit(), limit * settings.getBackoff()));
+        }
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        while (true) {
+            long current = limitBits.get();
+            long next = Double.doubleToLongBits(change.applyAsDouble(Double.longBitsToDouble(current)));
+            if (current == next || limitBits.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.stage6.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.stage6.response.ErrorDetails;
+import org.example.stage6.response.PrebuiltErrorResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control in front of StudentController, a refused request gets 429 Too Many Requests
+ * from a pre-encoded StandardResponse and never reaches the service. A request must pass, in order:
+ * - the token bucket of its client for its endpoint (Retry-After tells when the next token is there)
+ * - the concurrency cap of its endpoint
+ * - the adaptive limit shared by all endpoints, non-critical endpoints may only use part of it,
+ *   so expensive calls cannot take the capacity the cheap ones need
+ * A streamed response keeps its endpoint's permit until the stream ends,
+ * its share of the adaptive limit is returned when the request thread is done.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    // requests for paths nobody configured share one limiter beyond this many endpoints
+    private static final int MAX_ENDPOINTS = 64;
+
+    private static final String OTHER_ENDPOINT = "other";
+
+    private static final String TOO_MANY_REQUESTS = "Too Many Requests";
+
+    private final AdmissionProperties properties;
+
+    private final MeterRegistry registry;
+
+    private final AdaptiveLimit adaptiveLimit;
+
+    private final Map<String, EndpointLimiter> limiters = new ConcurrentHashMap<>();
+
+    private final PrebuiltErrorResponse rateLimited;
+    private final PrebuiltErrorResponse concurrencyLimited;
+    private final PrebuiltErrorResponse overloaded;
+
+    public AdmissionControlFilter(AdmissionProperties properties, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        this.adaptiveLimit = properties.getAdaptive().isEnabled() ? new AdaptiveLimit(properties.getAdaptive()) : null;
+        this.rateLimited = new PrebuiltErrorResponse(objectMapper,
+                new ErrorDetails(TOO_MANY_REQUESTS, "Request rate limit exceeded, retry later"));
+        this.concurrencyLimited = new PrebuiltErrorResponse(objectMapper,
+                new ErrorDetails(TOO_MANY_REQUESTS, "Too many requests of this kind in progress, retry later"));
+        this.overloaded = new PrebuiltErrorResponse(objectMapper,
+                new ErrorDetails(TOO_MANY_REQUESTS, "Server is overloaded, retry later"));
+        if (adaptiveLimit != null) {
+            Gauge.builder("student.admission.in-flight", adaptiveLimit, AdaptiveLimit::getInFlight)
+                    .description("Requests in progress under the adaptive limit")
+                    .register(registry);
+            Gauge.builder("student.admission.limit", adaptiveLimit, AdaptiveLimit::getLimit)
+                    .description("Current adaptive limit of the requests in progress")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointLimiter endpoint = limiterOf(endpointOf(request));
+        long now = System.nanoTime();
+        long wait = endpoint.tryTake(clientOf(request), now);
+        if (wait > 0) {
+            endpoint.rateRejections.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999))));
+            rateLimited.writeTo(response, HttpStatus.TOO_MANY_REQUESTS.value()); // 429 Too Many Requests
+            return;
+        }
+        if (!endpoint.tryAcquire()) {
+            endpoint.concurrencyRejections.increment();
+            concurrencyLimited.writeTo(response, HttpStatus.TOO_MANY_REQUESTS.value()); // 429 Too Many Requests
+            return;
+        }
+        if (adaptiveLimit != null && !adaptiveLimit.tryAcquire(endpoint.isCritical())) {
+            endpoint.release();
+            endpoint.overloadRejections.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            overloaded.writeTo(response, HttpStatus.TOO_MANY_REQUESTS.value()); // 429 Too Many Requests
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            if (adaptiveLimit != null) {
+                adaptiveLimit.release();
+                if (!async) {
+                    adaptiveLimit.onResponse(now, System.nanoTime() - now, endpoint.getLatencyTarget());
+                }
+            }
+            if (async) {
+                request.getAsyncContext().addListener(new ReleaseOnEnd(endpoint));
+            } else {
+                endpoint.release();
+            }
+        }
+    }
+
+    /**
+     * Helper method that returns the path segment after /student/, the key of the endpoint's limits
+     */
+    private static String endpointOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int start = path.indexOf('/', 1) + 1;
+        if (start == 0) {
+            return "";
+        }
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (properties.getClientHeader() != null) {
+            String client = request.getHeader(properties.getClientHeader());
+            if (client != null) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private EndpointLimiter limiterOf(String endpoint) {
+        EndpointLimiter limiter = limiters.get(endpoint);
+        if (limiter != null) {
+            return limiter;
+        }
+        AdmissionProperties.Limit limit = properties.getEndpoints().get(endpoint);
+        if (limit == null && limiters.size() >= MAX_ENDPOINTS) {
+            endpoint = OTHER_ENDPOINT;
+        }
+        AdmissionProperties.Limit configured = limit != null ? limit : properties.getDefaults();
+        return limiters.computeIfAbsent(endpoint,
+                key -> new EndpointLimiter(key, configured, properties.getMaxClients(), registry));
+    }
+
+    /**
+     * Returns the endpoint's permit once a streamed response ends, however it ends
+     */
+    private static final class ReleaseOnEnd implements AsyncListener {
+
+        private final EndpointLimiter endpoint;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnEnd(EndpointLimiter endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // the request went async again, it keeps the permit
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                endpoint.release();
+            }
+        }
+    }
+}
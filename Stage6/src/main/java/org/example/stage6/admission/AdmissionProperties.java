@@ -0,0 +1,97 @@
+package org.example.stage6.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties of the admission control in front of /student, bound from "student.admission.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.admission")
+public class AdmissionProperties {
+
+    /**
+     * Whether /student requests go through the limits below
+     */
+    private boolean enabled = false;
+
+    /**
+     * Request header that names the client, the remote address is used when it is not set or not sent
+     */
+    private String clientHeader;
+
+    /**
+     * Clients tracked per endpoint, the ones not seen for the longest time are forgotten first
+     */
+    private long maxClients = 10_000;
+
+    /**
+     * Limits of the endpoints without an entry in endpoints
+     */
+    private Limit defaults = new Limit();
+
+    /**
+     * Limits per endpoint, keyed by the path segment after /student/ (getAllStudents, getStudent, ...)
+     * An entry replaces the defaults, its unset fields take the values of Limit, not of defaults
+     */
+    private Map<String, Limit> endpoints = new HashMap<>();
+
+    private Adaptive adaptive = new Adaptive();
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Requests per second of one client, 0 for no rate limit
+         */
+        private double rate = 100;
+
+        /**
+         * Requests a client may send at once on top of the rate (bucket size)
+         */
+        private int burst = 200;
+
+        /**
+         * Requests of all clients served at the same time, 0 for no limit
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * A response slower than this tells the adaptive limit the server is overloaded
+         */
+        private Duration latencyTarget = Duration.ofMillis(100);
+
+        /**
+         * Critical requests may use the whole adaptive limit, the others only its non-critical share
+         */
+        private boolean critical = true;
+    }
+
+    /**
+     * Shared limit of the requests in progress, adapted to the observed latency:
+     * it shrinks by the backoff factor after a response slower than its endpoint's target
+     * and grows by about one per limit's worth of fast responses
+     */
+    @Data
+    public static class Adaptive {
+
+        private boolean enabled = true;
+
+        private int initialLimit = 200;
+
+        private int minLimit = 10;
+
+        private int maxLimit = 1000;
+
+        /**
+         * Part of the limit non-critical requests may use, the rest stays free for critical ones
+         */
+        private double nonCriticalShare = 0.5;
+
+        private double backoff = 0.9;
+    }
+}
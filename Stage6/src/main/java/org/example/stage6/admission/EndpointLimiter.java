@@ -0,0 +1,95 @@
+package org.example.stage6.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits of one endpoint: a token bucket per client and a cap on the requests served at once
+ * Publishes student.admission.rejected (tags endpoint, reason), student.admission.endpoint.in-flight
+ * and student.admission.clients (tag endpoint)
+ */
+final class EndpointLimiter {
+
+    // clients that send nothing for this long start again with a full bucket
+    private static final Duration CLIENT_IDLE_TIMEOUT = Duration.ofMinutes(1);
+
+    private final AdmissionProperties.Limit limit;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final Semaphore concurrency;
+
+    private final long latencyTarget;
+
+    final Counter rateRejections;
+    final Counter concurrencyRejections;
+    final Counter overloadRejections;
+
+    EndpointLimiter(String endpoint, AdmissionProperties.Limit limit, long maxClients, MeterRegistry registry) {
+        this.limit = limit;
+        this.buckets = limit.getRate() > 0
+                ? Caffeine.newBuilder().maximumSize(maxClients).expireAfterAccess(CLIENT_IDLE_TIMEOUT).build()
+                : null;
+        this.concurrency = limit.getMaxConcurrent() > 0 ? new Semaphore(limit.getMaxConcurrent()) : null;
+        this.latencyTarget = limit.getLatencyTarget().toNanos();
+        this.rateRejections = rejections(registry, endpoint, "rate");
+        this.concurrencyRejections = rejections(registry, endpoint, "concurrency");
+        this.overloadRejections = rejections(registry, endpoint, "overload");
+        if (concurrency != null) {
+            Gauge.builder("student.admission.endpoint.in-flight", concurrency,
+                            semaphore -> limit.getMaxConcurrent() - semaphore.availablePermits())
+                    .description("Requests of the endpoint in progress")
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+        }
+        if (buckets != null) {
+            Gauge.builder("student.admission.clients", buckets, Cache::estimatedSize)
+                    .description("Clients with a token bucket for the endpoint")
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+        }
+    }
+
+    boolean isCritical() {
+        return limit.isCritical();
+    }
+
+    long getLatencyTarget() {
+        return latencyTarget;
+    }
+
+    /**
+     * Take a token from the client's bucket
+     * @return 0 if the request may go on, otherwise nanoseconds until the client gets a token
+     */
+    long tryTake(String client, long now) {
+        if (buckets == null) {
+            return 0;
+        }
+        return buckets.get(client, key -> new TokenBucket(limit.getRate(), limit.getBurst(), now)).tryTake(now);
+    }
+
+    boolean tryAcquire() {
+        return concurrency == null || concurrency.tryAcquire();
+    }
+
+    void release() {
+        if (concurrency != null) {
+            concurrency.release();
+        }
+    }
+
+    private static Counter rejections(MeterRegistry registry, String endpoint, String reason) {
+        return Counter.builder("student.admission.rejected")
+                .description("Requests refused with 429 before they reached the service")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.stage6.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of one client, kept as the time the bucket is full again (the generic cell rate algorithm)
+ * A request takes one token: the time moves one interval further, the request is refused
+ * when that would be more than burst intervals ahead of now. A single compare-and-set per request, no lock.
+ */
+final class TokenBucket {
+
+    private final long interval;
+
+    private final long capacity;
+
+    private final AtomicLong fullAt;
+
+    /**
+     * @param rate Tokens per second
+     * @param burst Bucket size, the bucket starts full
+     */
+    TokenBucket(double rate, int burst, long now) {
+        this.interval = (long) (1_000_000_000L / rate);
+        this.capacity = interval * Math.max(1, burst);
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Take a token
+     * @param now System.nanoTime()
+     * @return 0 if a token was taken, otherwise nanoseconds until the next token
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > capacity) {
+                return next - now - capacity;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.stage6.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+
+/**
+ * Creates the StudentCluster when "student.cluster.enabled" is set,
+ * the StudentService configuration then routes every call through it.
+ * Calls to other nodes carry the cluster secret, /cluster on this node requires it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "student.cluster", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfiguration {
+
+    @Bean
+    public StudentCluster studentCluster(ClusterProperties properties, RestClient.Builder restClientBuilder,
+                                         ObjectMapper objectMapper) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.getTimeout());
+        RestClient restClient = restClientBuilder
+                .requestFactory(requestFactory)
+                .defaultHeader(ClusterSecretFilter.HEADER, properties.getSecret())
+                .build();
+        return new StudentCluster(properties, restClient, objectMapper);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ClusterSecretFilter> clusterSecretFilter(StudentCluster studentCluster,
+                                                                           ClusterProperties properties,
+                                                                           ObjectMapper objectMapper) {
+        // created after the cluster, which checks that the secret is set
+        FilterRegistrationBean<ClusterSecretFilter> registration =
+                new FilterRegistrationBean<>(new ClusterSecretFilter(ClusterSecretFilter.HEADER, properties.getSecret(),
+                        "the nodes of the cluster", "/cluster", objectMapper));
+        registration.addUrlPatterns("/cluster/*");
+        return registration;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.stage6.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties of the partitioned deployment, bound from "student.cluster.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.cluster")
+public class ClusterProperties {
+
+    /**
+     * Run as one node of a partitioned deployment, the students are spread over the nodes by their ID
+     */
+    private boolean enabled = false;
+
+    /**
+     * Base URL the other nodes use to reach this node, for example http://localhost:8081
+     */
+    private String selfUrl;
+
+    /**
+     * Shared secret of the nodes, sent in the Cluster-Secret header of every call to /cluster, required
+     */
+    private String secret;
+
+    /**
+     * Base URLs of nodes to join at startup, the URL of this node may be in the list too
+     */
+    private List<String> seeds = new ArrayList<>();
+
+    /**
+     * Number of points of every node on the hash ring, more points spread the students more evenly
+     */
+    private int virtualNodes = 128;
+
+    /**
+     * Connect and read timeout of a call to another node
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+
+    /**
+     * Maximum number of students sent to another node in one call when students move after a membership change
+     */
+    private int rebalanceBatchSize = 500;
+}
@@ -0,0 +1,55 @@
+package org.example.stage6.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.stage6.response.ErrorDetails;
+import org.example.stage6.response.PrebuiltErrorResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Lets only the nodes of the deployment call their node-to-node API: a request must carry the shared secret
+ * in a header, Cluster-Secret for /cluster and Replication-Secret for /replication, anything else gets 401 Unauthorized
+ */
+public class ClusterSecretFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Cluster-Secret";
+
+    private final String header;
+
+    private final byte[] secret;
+
+    private final PrebuiltErrorResponse unauthorized;
+
+    /**
+     * @param header Header that carries the secret
+     * @param secret The shared secret
+     * @param nodes Who may call, for the error message ("the nodes of the cluster")
+     * @param path The protected path, for the error message
+     */
+    public ClusterSecretFilter(String header, String secret, String nodes, String path, ObjectMapper objectMapper) {
+        this.header = header;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.unauthorized = new PrebuiltErrorResponse(objectMapper,
+                new ErrorDetails("Unauthorized", "Only " + nodes + " can call " + path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String sent = request.getHeader(header);
+        // compared in constant time, so the time of a refusal tells nothing about the secret
+        if (sent == null || !MessageDigest.isEqual(secret, sent.getBytes(StandardCharsets.UTF_8))) {
+            unauthorized.writeTo(response, HttpStatus.UNAUTHORIZED.value()); // 401 Unauthorized
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
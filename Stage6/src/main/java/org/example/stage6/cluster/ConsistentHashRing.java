@@ -0,0 +1,100 @@
+package org.example.stage6.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring of the cluster nodes
+ * Every node is placed on the ring at several points (virtual nodes), a student belongs to the node
+ * of the first point at or after the hash of its ID, wrapping around at the end of the ring.
+ * When a node joins or leaves, only the students next to its points change owner, about 1/N of them.
+ * Immutable, a membership change builds a new ring
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> nodes;
+
+    private final int virtualNodes;
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = nodes.stream().distinct().sorted().toList();
+        this.virtualNodes = virtualNodes;
+        for (String node : this.nodes) {
+            long nodeHash = hash(node);
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(mix(nodeHash + i * 0x9E3779B97F4A7C15L), node);
+            }
+        }
+    }
+
+    /**
+     * The node a student belongs to
+     * @param id The student ID
+     * @return Base URL of the owning node
+     * @throws IllegalStateException If the ring has no nodes
+     */
+    public String ownerOf(long id) {
+        if (points.isEmpty()) {
+            throw new IllegalStateException("The cluster has no nodes");
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(id));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    /**
+     * The nodes of the ring, sorted
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    /**
+     * A ring with one more node
+     */
+    public ConsistentHashRing with(String node) {
+        List<String> changed = new ArrayList<>(nodes);
+        changed.add(node);
+        return new ConsistentHashRing(changed, virtualNodes);
+    }
+
+    /**
+     * A ring without a node
+     */
+    public ConsistentHashRing without(String node) {
+        List<String> changed = new ArrayList<>(nodes);
+        changed.remove(node);
+        return new ConsistentHashRing(changed, virtualNodes);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the node URL
+     */
+    private static long hash(String node) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : node.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads consecutive IDs and virtual node numbers over the whole ring
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.stage6.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentBatchRequest;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.dto.StudentIdsRequest;
+import org.example.stage6.exception.AlreadyExists;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.exception.StudentIdAndIdMismatch;
+import org.example.stage6.exception.VersionMismatch;
+import org.example.stage6.response.ErrorDetails;
+import org.example.stage6.service.BatchMode;
+import org.example.stage6.service.StudentService;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * StudentService of another node, called over HTTP through the node's /cluster API
+ * Every call works on the students stored on that node only, the node does not route it any further.
+ * Errors come back with the usual statuses and are thrown again as the same exceptions:
+ * 404 NotExists, 409 AlreadyExists, 400 StudentIdAndIdMismatch, 412 VersionMismatch
+ */
+public class RemoteStudentService implements StudentService {
+
+    private final String node;
+
+    private final RestClient restClient;
+
+    private final ObjectMapper objectMapper;
+
+    public RemoteStudentService(String node, RestClient restClient, ObjectMapper objectMapper) {
+        this.node = node;
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<StudentDto> getAllStudents() {
+        return students(exchange(HttpMethod.GET, uri("/cluster/students").build().encode().toUri(), null));
+    }
+
+    @Override
+    public List<StudentDto> getStudentsPage(Long afterId, int limit) {
+        return students(exchange(HttpMethod.GET, uri("/cluster/students/page")
+                .queryParamIfPresent("after", Optional.ofNullable(afterId))
+                .queryParam("limit", limit)
+                .build().encode().toUri(), null));
+    }
+
+    @Override
+    public List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        return students(exchange(HttpMethod.GET, uri("/cluster/students/search")
+                .queryParamIfPresent("lastNamePrefix", Optional.ofNullable(lastNamePrefix))
+                .queryParamIfPresent("firstNamePrefix", Optional.ofNullable(firstNamePrefix))
+                .queryParamIfPresent("minAge", Optional.ofNullable(minAge))
+                .queryParamIfPresent("maxAge", Optional.ofNullable(maxAge))
+                .queryParam("limit", limit)
+                .build().encode().toUri(), null));
+    }
+
+    @Override
+    public long getCollectionVersion() {
+        return exchange(HttpMethod.GET, uri("/cluster/version").build().encode().toUri(), null).asLong();
+    }
+
+    @Override
+    public long getStudentVersion(Long id) {
+        return exchange(HttpMethod.GET, uri("/cluster/students/{id}/version").build(id), null).asLong();
+    }
+
+    @Override
+    public StudentDto getStudent(Long id) {
+        return student(exchange(HttpMethod.GET, uri("/cluster/students/{id}").build(id), null));
+    }
+
+    @Override
+    public StudentDto addStudent(StudentDto studentDto) {
+        return student(exchange(HttpMethod.POST, uri("/cluster/students").build().encode().toUri(), studentDto));
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id) {
+        return student(exchange(HttpMethod.PUT, uri("/cluster/students/{id}").build(id), studentDto));
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion) {
+        return student(exchange(HttpMethod.PUT, uri("/cluster/students/{id}")
+                .queryParam("expectedVersion", expectedVersion)
+                .build(id), studentDto));
+    }
+
+    @Override
+    public void deleteStudent(Long id) {
+        exchange(HttpMethod.DELETE, uri("/cluster/students/{id}").build(id), null);
+    }
+
+    @Override
+    public void deleteStudent(Long id, long expectedVersion) {
+        exchange(HttpMethod.DELETE, uri("/cluster/students/{id}")
+                .queryParam("expectedVersion", expectedVersion)
+                .build(id), null);
+    }
+
+    @Override
+    public List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return batchResults(exchange(HttpMethod.POST, batchUri(mode), new StudentBatchRequest(studentDtos)));
+    }
+
+    @Override
+    public List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return batchResults(exchange(HttpMethod.PUT, batchUri(mode), new StudentBatchRequest(studentDtos)));
+    }
+
+    @Override
+    public List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode) {
+        return batchResults(exchange(HttpMethod.DELETE, batchUri(mode), new StudentIdsRequest(ids)));
+    }
+
+    @Override
+    public int importStudents(List<StudentDto> studentDtos) {
+        List<StudentCopy> copies = studentDtos.stream().map(StudentCopy::of).toList();
+        return exchange(HttpMethod.POST, uri("/cluster/students/import").build().encode().toUri(),
+                new StudentCopiesRequest(copies)).asInt();
+    }
+
+    /**
+     * Tell the node that another node joined
+     * @return The nodes the node knows after the join
+     */
+    public List<String> join(String joiningNode) {
+        JsonNode nodes = exchange(HttpMethod.POST, uri("/cluster/nodes/join").queryParam("url", joiningNode).build().encode().toUri(), null);
+        return Arrays.asList(objectMapper.convertValue(nodes, String[].class));
+    }
+
+    /**
+     * Tell the node that another node left
+     */
+    public void leave(String leavingNode) {
+        exchange(HttpMethod.POST, uri("/cluster/nodes/leave").queryParam("url", leavingNode).build().encode().toUri(), null);
+    }
+
+    private UriComponentsBuilder uri(String path) {
+        return UriComponentsBuilder.fromUriString(node).path(path);
+    }
+
+    private URI batchUri(BatchMode mode) {
+        return uri("/cluster/students/batch").queryParam("mode", mode).build().encode().toUri();
+    }
+
+    /**
+     * Helper method that sends one request and returns the data of its StandardResponse
+     * @throws IllegalStateException If the node cannot be reached or fails with another status
+     */
+    private JsonNode exchange(HttpMethod method, URI uri, Object body) {
+        try {
+            RestClient.RequestBodySpec request = restClient.method(method).uri(uri).accept(MediaType.APPLICATION_JSON);
+            if (body != null) {
+                request.contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+            JsonNode response = request.retrieve().body(JsonNode.class);
+            return response == null ? NullNode.getInstance() : response.path("data");
+        } catch (RestClientResponseException e) {
+            throw error(e);
+        } catch (ResourceAccessException e) {
+            throw new IllegalStateException("Node " + node + " is not reachable: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Helper method that turns an error response back into the exception that caused it on the node
+     */
+    private RuntimeException error(RestClientResponseException e) {
+        String message = e.getResponseBodyAsString();
+        try {
+            message = objectMapper.readTree(message).path("error").path("message").asText(message);
+        } catch (JsonProcessingException ignored) {
+            // not a StandardResponse, keep the raw body
+        }
+        return switch (e.getStatusCode().value()) {
+            case 404 -> new NotExists(message);
+            case 409 -> new AlreadyExists(message);
+            case 412 -> new VersionMismatch(message);
+            case 400 -> new StudentIdAndIdMismatch(message);
+            default -> new IllegalStateException("Node " + node + " failed with " + e.getStatusCode() + ": " + message);
+        };
+    }
+
+    private StudentDto student(JsonNode data) {
+        return objectMapper.convertValue(data, StudentCopy.class).toDto();
+    }
+
+    private List<StudentDto> students(JsonNode data) {
+        return Arrays.stream(objectMapper.convertValue(data, StudentCopy[].class)).map(StudentCopy::toDto).toList();
+    }
+
+    /**
+     * Batch results keep the version of their student, which StudentDto would drop when read,
+     * and their error as ErrorDetails like the results of a local batch
+     */
+    private List<BatchItemResult> batchResults(JsonNode data) {
+        return Arrays.stream(objectMapper.convertValue(data, BatchItemCopy[].class))
+                .map(item -> new BatchItemResult(item.id(), item.status(),
+                        item.data() == null ? null : item.data().toDto(),
+                        item.error() == null ? null : new ErrorDetails(item.error().get("type"), item.error().get("message"))))
+                .toList();
+    }
+
+    private record BatchItemCopy(Long id, String status, StudentCopy data, Map<String, String> error) {
+    }
+}
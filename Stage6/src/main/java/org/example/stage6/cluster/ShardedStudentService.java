@@ -0,0 +1,178 @@
+package org.example.stage6.cluster;
+
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.BatchSpansNodes;
+import org.example.stage6.service.BatchMode;
+import org.example.stage6.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * StudentService of a partitioned deployment, every call goes to the node that owns the student
+ * - a call about one student runs on its owner, which is the local service when this node owns it
+ * - getAllStudents, pages, search and the collection version ask every node at once and merge the answers
+ * - a BEST_EFFORT batch is split by owner and each part is applied on its node,
+ *   an ATOMIC batch must be owned by one node, it is rejected with BatchSpansNodes otherwise
+ * While students move after a membership change, a student can be missing for a moment
+ * or exist on two nodes, the merge keeps the newest copy of every ID
+ */
+public class ShardedStudentService implements StudentService {
+
+    private final StudentCluster cluster;
+
+    public ShardedStudentService(StudentCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * The service of the students stored on this node
+     */
+    public StudentService getLocal() {
+        return cluster.getLocal();
+    }
+
+    @Override
+    public List<StudentDto> getAllStudents() {
+        return merged(cluster.callAll((node, service) -> service.getAllStudents()), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<StudentDto> getStudentsPage(Long afterId, int limit) {
+        // every node returns its own first students after afterId, the first of all of them form the page
+        return merged(cluster.callAll((node, service) -> service.getStudentsPage(afterId, limit)), limit);
+    }
+
+    @Override
+    public List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        return merged(cluster.callAll((node, service) ->
+                service.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit)), limit);
+    }
+
+    /**
+     * The highest version of all nodes, versions come from the clocks of the nodes,
+     * so the clocks of nodes on different machines must be kept in sync
+     */
+    @Override
+    public long getCollectionVersion() {
+        return cluster.callAll((node, service) -> service.getCollectionVersion()).stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0);
+    }
+
+    @Override
+    public long getStudentVersion(Long id) {
+        return cluster.ownerOf(id).getStudentVersion(id);
+    }
+
+    @Override
+    public StudentDto getStudent(Long id) {
+        return cluster.ownerOf(id).getStudent(id);
+    }
+
+    @Override
+    public StudentDto addStudent(StudentDto studentDto) {
+        return cluster.ownerOf(studentDto.getId()).addStudent(studentDto);
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id) {
+        // routed by the path ID, its owner reports a body ID that does not match
+        return cluster.ownerOf(id).updateStudent(studentDto, id);
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion) {
+        return cluster.ownerOf(id).updateStudent(studentDto, id, expectedVersion);
+    }
+
+    @Override
+    public void deleteStudent(Long id) {
+        cluster.ownerOf(id).deleteStudent(id);
+    }
+
+    @Override
+    public void deleteStudent(Long id, long expectedVersion) {
+        cluster.ownerOf(id).deleteStudent(id, expectedVersion);
+    }
+
+    @Override
+    public List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return split(studentDtos, mode, StudentDto::getId, (service, part) -> service.addStudents(part, mode));
+    }
+
+    @Override
+    public List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return split(studentDtos, mode, StudentDto::getId, (service, part) -> service.updateStudents(part, mode));
+    }
+
+    @Override
+    public List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode) {
+        return split(ids, mode, Function.identity(), (service, part) -> service.deleteStudents(part, mode));
+    }
+
+    @Override
+    public int importStudents(List<StudentDto> studentDtos) {
+        Map<String, List<StudentDto>> parts = new LinkedHashMap<>();
+        for (StudentDto studentDto : studentDtos) {
+            parts.computeIfAbsent(cluster.ownerNodeOf(studentDto.getId()), node -> new ArrayList<>()).add(studentDto);
+        }
+        return cluster.callEach(parts.keySet(), (node, service) -> service.importStudents(parts.get(node))).values().stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Helper method that applies a batch on the owners of its items
+     * Each node gets its items in request order, the results are put back in request order
+     * @throws BatchSpansNodes If an ATOMIC batch has items on several nodes, nothing is applied then
+     */
+    private <T> List<BatchItemResult> split(List<T> items, BatchMode mode, Function<T, Long> idOf,
+                                            BiFunction<StudentService, List<T>, List<BatchItemResult>> apply) {
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            positions.computeIfAbsent(cluster.ownerNodeOf(idOf.apply(items.get(i))), node -> new ArrayList<>()).add(i);
+        }
+        if (positions.size() == 1) {
+            // all items on one node, the batch keeps its guarantees
+            return apply.apply(cluster.serviceOf(positions.keySet().iterator().next()), items);
+        }
+        if (mode == BatchMode.ATOMIC) {
+            // each node would commit its part on its own, a failure on one node could not undo the others
+            throw new BatchSpansNodes("An ATOMIC batch must only hold students stored on one node, these students are stored on "
+                    + positions.size() + " nodes, send them with mode=BEST_EFFORT or as one batch per node");
+        }
+        Map<String, List<BatchItemResult>> partResults = cluster.callEach(positions.keySet(), (node, service) ->
+                apply.apply(service, positions.get(node).stream().map(items::get).toList()));
+        BatchItemResult[] results = new BatchItemResult[items.size()];
+        partResults.forEach((node, part) -> {
+            List<Integer> itemPositions = positions.get(node);
+            for (int i = 0; i < part.size(); i++) {
+                results[itemPositions.get(i)] = part.get(i);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Helper method that merges the answers of the nodes into one list ordered by ID
+     */
+    private static List<StudentDto> merged(Collection<List<StudentDto>> parts, int limit) {
+        Map<Long, StudentDto> byId = new TreeMap<>();
+        for (List<StudentDto> part : parts) {
+            for (StudentDto student : part) {
+                byId.merge(student.getId(), student, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+            }
+        }
+        return byId.values().stream().limit(limit).toList();
+    }
+}
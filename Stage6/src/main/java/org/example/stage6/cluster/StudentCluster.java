@@ -0,0 +1,332 @@
+package org.example.stage6.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.exception.VersionMismatch;
+import org.example.stage6.service.StudentService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Membership of the partitioned deployment, and the StudentService of every node
+ * The nodes form a consistent hash ring, the owner of a student is looked up on the ring by its ID.
+ * <p>
+ * Membership changes by announcements: a starting node joins the seed nodes and every node they know,
+ * a stopping node tells the others that it leaves. After every change each node moves the students
+ * it no longer owns to their new owners (rebalancing), a leaving node hands over all of its students.
+ * A node that crashes is not detected, its students are unavailable until it comes back
+ * or an operator removes it with /cluster/nodes/leave (its students are then lost).
+ */
+public class StudentCluster {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentCluster.class);
+
+    // a student changed while it was being moved is moved again, at most this many times per rebalance
+    private static final int MAX_REBALANCE_ROUNDS = 5;
+
+    private final ClusterProperties properties;
+
+    private final String self;
+
+    private final RestClient restClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, RemoteStudentService> remotes = new ConcurrentHashMap<>();
+
+    private final ExecutorService callers;
+
+    private final ExecutorService rebalancer;
+
+    private final AtomicBoolean rebalanceQueued = new AtomicBoolean();
+
+    // membership changes replace the ring one at a time
+    private final ReentrantLock membershipLock = new ReentrantLock();
+
+    // rebalances run one at a time, without holding up membership changes,
+    // a j.u.c. lock so a virtual thread waiting on the calls to other nodes does not pin its carrier
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+    private volatile ConsistentHashRing ring;
+
+    // the service of the students stored on this node, set once while the StudentService is created
+    private volatile StudentService local;
+
+    public StudentCluster(ClusterProperties properties, RestClient restClient, ObjectMapper objectMapper) {
+        if (properties.getSelfUrl() == null || properties.getSelfUrl().isBlank()) {
+            throw new IllegalStateException("student.cluster.self-url must be set when student.cluster.enabled is true");
+        }
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            throw new IllegalStateException("student.cluster.secret must be set when student.cluster.enabled is true");
+        }
+        this.properties = properties;
+        this.self = properties.getSelfUrl();
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+        this.ring = new ConsistentHashRing(List.of(self), properties.getVirtualNodes());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.callers = Executors.newCachedThreadPool(runnable -> daemon(runnable, "student-cluster-" + threadNumber.incrementAndGet()));
+        this.rebalancer = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "student-cluster-rebalance"));
+    }
+
+    public StudentService getLocal() {
+        return local;
+    }
+
+    public void setLocal(StudentService local) {
+        this.local = local;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * The nodes this node knows, sorted
+     */
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * The service of the node that owns a student, the local service if it is this node
+     */
+    public StudentService ownerOf(Long id) {
+        return serviceOf(ring.ownerOf(id));
+    }
+
+    /**
+     * Base URL of the node that owns a student
+     */
+    public String ownerNodeOf(Long id) {
+        return ring.ownerOf(id);
+    }
+
+    public StudentService serviceOf(String node) {
+        return node.equals(self) ? local : remote(node);
+    }
+
+    /**
+     * Call several nodes at once, the call of this node runs on the calling thread
+     * @param nodes The nodes to call
+     * @param call Gets the node and its service
+     * @return The result of every node, in the order of the nodes
+     * @throws RuntimeException The exception of the first failed call
+     */
+    public <T> Map<String, T> callEach(Collection<String> nodes, BiFunction<String, StudentService, T> call) {
+        Map<String, CompletableFuture<T>> remoteCalls = new LinkedHashMap<>();
+        for (String node : nodes) {
+            if (!node.equals(self)) {
+                remoteCalls.put(node, CompletableFuture.supplyAsync(() -> call.apply(node, remote(node)), callers));
+            }
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        if (nodes.contains(self)) {
+            results.put(self, call.apply(self, local));
+        }
+        try {
+            remoteCalls.forEach((node, result) -> results.put(node, result.join()));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return results;
+    }
+
+    /**
+     * Call every node at once, see callEach
+     */
+    public <T> Collection<T> callAll(BiFunction<String, StudentService, T> call) {
+        return callEach(ring.getNodes(), call).values();
+    }
+
+    /**
+     * Add a node to the ring and move the students it now owns to it
+     * @return The nodes known after the join
+     */
+    public List<String> join(String node) {
+        membershipLock.lock();
+        try {
+            if (!ring.contains(node)) {
+                ring = ring.with(node);
+                log.info("Node {} joined, nodes: {}", node, ring.getNodes());
+                scheduleRebalance();
+            }
+            return ring.getNodes();
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a node from the ring
+     * A leaving node hands over its students itself, nothing has to move here
+     */
+    public void leave(String node) {
+        membershipLock.lock();
+        try {
+            if (ring.contains(node) && !node.equals(self)) {
+                ring = ring.without(node);
+                remotes.remove(node);
+                log.info("Node {} left, nodes: {}", node, ring.getNodes());
+            }
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    /**
+     * Joins the seed nodes once this node can serve requests,
+     * and every node they know that this node did not know yet
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void joinCluster() {
+        Deque<String> toJoin = new ArrayDeque<>(properties.getSeeds());
+        Set<String> asked = new HashSet<>(Set.of(self));
+        while (!toJoin.isEmpty()) {
+            String node = toJoin.poll();
+            if (!asked.add(node)) {
+                continue;
+            }
+            try {
+                toJoin.addAll(remote(node).join(self));
+                join(node);
+            } catch (RuntimeException e) {
+                // a seed that is not running yet joins this node itself when it starts
+                log.warn("Cannot join node {}: {}", node, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Leaves the cluster when the application shuts down, before the web server stops,
+     * and hands over every local student to its new owner
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void leaveCluster() {
+        List<String> others;
+        membershipLock.lock();
+        try {
+            ring = ring.without(self);
+            others = ring.getNodes();
+        } finally {
+            membershipLock.unlock();
+        }
+        for (String node : others) {
+            try {
+                remote(node).leave(self);
+            } catch (RuntimeException e) {
+                log.warn("Cannot tell node {} that this node leaves: {}", node, e.getMessage());
+            }
+        }
+        if (!others.isEmpty()) {
+            rebalance();
+        }
+        rebalancer.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    /**
+     * Queue a rebalance, at most one waits behind the running one, it sees every change made before it starts
+     */
+    private void scheduleRebalance() {
+        if (rebalanceQueued.compareAndSet(false, true)) {
+            rebalancer.execute(() -> {
+                rebalanceQueued.set(false);
+                rebalance();
+            });
+        }
+    }
+
+    /**
+     * Move every local student that belongs to another node to that node
+     * A student is copied to its owner first and removed here afterwards, only if it did not change in between,
+     * a student that changed is copied again in the next round
+     */
+    private void rebalance() {
+        rebalanceLock.lock();
+        try {
+            for (int round = 0; round < MAX_REBALANCE_ROUNDS; round++) {
+                ConsistentHashRing current = ring;
+                Map<String, List<StudentDto>> moving = new HashMap<>();
+                for (StudentDto student : local.getAllStudents()) {
+                    String owner = current.ownerOf(student.getId());
+                    if (!owner.equals(self)) {
+                        moving.computeIfAbsent(owner, node -> new ArrayList<>()).add(student);
+                    }
+                }
+                if (moving.isEmpty()) {
+                    return;
+                }
+                int moved = 0;
+                for (Map.Entry<String, List<StudentDto>> entry : moving.entrySet()) {
+                    moved += moveTo(entry.getKey(), entry.getValue());
+                }
+                log.info("Moved {} students to other nodes", moved);
+            }
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that copies students to a node in batches and removes the copied ones here
+     * @return Number of students removed here
+     */
+    private int moveTo(String node, List<StudentDto> students) {
+        int moved = 0;
+        int batchSize = properties.getRebalanceBatchSize();
+        for (int from = 0; from < students.size(); from += batchSize) {
+            List<StudentDto> batch = students.subList(from, Math.min(from + batchSize, students.size()));
+            try {
+                remote(node).importStudents(batch);
+            } catch (RuntimeException e) {
+                log.warn("Cannot move {} students to node {}: {}", batch.size(), node, e.getMessage());
+                continue;
+            }
+            for (StudentDto student : batch) {
+                try {
+                    local.deleteStudent(student.getId(), student.getVersion());
+                    moved++;
+                } catch (NotExists | VersionMismatch e) {
+                    // changed or deleted while it was copied, the next round looks at it again
+                }
+            }
+        }
+        return moved;
+    }
+
+    private RemoteStudentService remote(String node) {
+        return remotes.computeIfAbsent(node, url -> new RemoteStudentService(url, restClient, objectMapper));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
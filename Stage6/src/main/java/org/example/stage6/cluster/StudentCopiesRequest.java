@@ -0,0 +1,22 @@
+package org.example.stage6.cluster;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body of /cluster/students/import, the students another node moves here
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentCopiesRequest {
+    @NotEmpty(message = "Students are required")
+    @Size(max = 10000, message = "An import can hold at most 10000 students")
+    private List<@Valid StudentCopy> students;
+}
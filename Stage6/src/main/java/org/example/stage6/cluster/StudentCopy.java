@@ -0,0 +1,54 @@
+package org.example.stage6.cluster;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.model.VersionClock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A student as sent between nodes
+ * Unlike StudentDto, the version is read from JSON too, so a copy keeps the version it was made with.
+ * Validated like StudentDto, and its version must be a time no later than the clock skew allowed between nodes,
+ * a version far in the future would make every later change of the student lose against the copy
+ */
+public record StudentCopy(
+        @NotNull(message = "ID cannot be null")
+        Long id,
+
+        @NotBlank(message = "First name is required")
+        @Size(min = 2, max = 50, message = "First name must be between 2 and 50 characters")
+        String firstName,
+
+        @NotBlank(message = "Last name is required")
+        @Size(min = 2, max = 50, message = "Last name must be between 2 and 50 characters")
+        String lastName,
+
+        @Min(value = 0, message = "Age must be a positive number")
+        double age,
+
+        long version) {
+
+    // the clocks of the nodes are kept in sync, a copy can be made on a node whose clock is a little ahead
+    private static final long MAX_CLOCK_SKEW_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    public static StudentCopy of(StudentDto studentDto) {
+        return new StudentCopy(studentDto.getId(), studentDto.getFirstName(), studentDto.getLastName(),
+                studentDto.getAge(), studentDto.getVersion());
+    }
+
+    public StudentDto toDto() {
+        return new StudentDto(id, firstName, lastName, age, version);
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Version must be a positive time that is not in the future")
+    public boolean isVersionValid() {
+        return version > 0 && version <= VersionClock.nowMicros() + MAX_CLOCK_SKEW_MICROS;
+    }
+}
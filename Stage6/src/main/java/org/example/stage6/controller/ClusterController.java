@@ -0,0 +1,152 @@
+package org.example.stage6.controller;
+
+import jakarta.validation.Valid;
+import org.example.stage6.cluster.StudentCluster;
+import org.example.stage6.cluster.StudentCopiesRequest;
+import org.example.stage6.cluster.StudentCopy;
+import org.example.stage6.dto.StudentBatchRequest;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.dto.StudentIdsRequest;
+import org.example.stage6.response.StandardResponse;
+import org.example.stage6.service.BatchMode;
+import org.example.stage6.service.StudentService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * API the nodes of a partitioned deployment call on each other, under /cluster
+ * Only callers with the cluster secret get here (ClusterSecretFilter).
+ * Student calls work on the students stored on this node only, they are never routed further,
+ * and are validated like the /student API
+ */
+@RestController
+@RequestMapping("/cluster")
+@ConditionalOnProperty(prefix = "student.cluster", name = "enabled", havingValue = "true")
+public class ClusterController {
+
+    private final StudentCluster cluster;
+
+    public ClusterController(StudentCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * The nodes this node knows
+     */
+    @GetMapping("/nodes")
+    public ResponseEntity<StandardResponse> getNodes() {
+        return ok(cluster.getNodes());
+    }
+
+    /**
+     * Another node joins, students it now owns move to it in the background
+     * Returns the nodes known after the join, so the new node can join them too
+     */
+    @PostMapping("/nodes/join")
+    public ResponseEntity<StandardResponse> join(@RequestParam String url) {
+        return ok(cluster.join(url));
+    }
+
+    /**
+     * Another node leaves, also used by an operator to remove a node that crashed
+     */
+    @PostMapping("/nodes/leave")
+    public ResponseEntity<StandardResponse> leave(@RequestParam String url) {
+        cluster.leave(url);
+        return ok(cluster.getNodes());
+    }
+
+    @GetMapping("/version")
+    public ResponseEntity<StandardResponse> getCollectionVersion() {
+        return ok(local().getCollectionVersion());
+    }
+
+    @GetMapping("/students")
+    public ResponseEntity<StandardResponse> getAllStudents() {
+        return ok(local().getAllStudents());
+    }
+
+    @GetMapping("/students/page")
+    public ResponseEntity<StandardResponse> getStudentsPage(@RequestParam(required = false) Long after,
+                                                            @RequestParam int limit) {
+        return ok(local().getStudentsPage(after, limit));
+    }
+
+    @GetMapping("/students/search")
+    public ResponseEntity<StandardResponse> searchStudents(@RequestParam(required = false) String lastNamePrefix,
+                                                           @RequestParam(required = false) String firstNamePrefix,
+                                                           @RequestParam(required = false) Double minAge,
+                                                           @RequestParam(required = false) Double maxAge,
+                                                           @RequestParam int limit) {
+        return ok(local().searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit));
+    }
+
+    @GetMapping("/students/{id}")
+    public ResponseEntity<StandardResponse> getStudent(@PathVariable Long id) {
+        return ok(local().getStudent(id));
+    }
+
+    @GetMapping("/students/{id}/version")
+    public ResponseEntity<StandardResponse> getStudentVersion(@PathVariable Long id) {
+        return ok(local().getStudentVersion(id));
+    }
+
+    @PostMapping("/students")
+    public ResponseEntity<StandardResponse> addStudent(@Valid @RequestBody StudentDto studentDto) {
+        return ok(local().addStudent(studentDto));
+    }
+
+    @PutMapping("/students/{id}")
+    public ResponseEntity<StandardResponse> updateStudent(@Valid @RequestBody StudentDto studentDto, @PathVariable Long id,
+                                                          @RequestParam(required = false) Long expectedVersion) {
+        return ok(expectedVersion == null
+                ? local().updateStudent(studentDto, id)
+                : local().updateStudent(studentDto, id, expectedVersion));
+    }
+
+    @DeleteMapping("/students/{id}")
+    public ResponseEntity<Void> deleteStudent(@PathVariable Long id, @RequestParam(required = false) Long expectedVersion) {
+        if (expectedVersion == null) {
+            local().deleteStudent(id);
+        } else {
+            local().deleteStudent(id, expectedVersion);
+        }
+        return ResponseEntity.noContent().build(); // 204 No Content
+    }
+
+    @PostMapping("/students/batch")
+    public ResponseEntity<StandardResponse> addStudents(@Valid @RequestBody StudentBatchRequest request,
+                                                        @RequestParam BatchMode mode) {
+        return ok(local().addStudents(request.getStudents(), mode));
+    }
+
+    @PutMapping("/students/batch")
+    public ResponseEntity<StandardResponse> updateStudents(@Valid @RequestBody StudentBatchRequest request,
+                                                           @RequestParam BatchMode mode) {
+        return ok(local().updateStudents(request.getStudents(), mode));
+    }
+
+    @DeleteMapping("/students/batch")
+    public ResponseEntity<StandardResponse> deleteStudents(@Valid @RequestBody StudentIdsRequest request,
+                                                           @RequestParam BatchMode mode) {
+        return ok(local().deleteStudents(request.getIds(), mode));
+    }
+
+    /**
+     * Students moved here from another node, stored with their versions
+     * Returns the number of students stored
+     */
+    @PostMapping("/students/import")
+    public ResponseEntity<StandardResponse> importStudents(@Valid @RequestBody StudentCopiesRequest request) {
+        return ok(local().importStudents(request.getStudents().stream().map(StudentCopy::toDto).toList()));
+    }
+
+    private StudentService local() {
+        return cluster.getLocal();
+    }
+
+    private static ResponseEntity<StandardResponse> ok(Object data) {
+        return ResponseEntity.ok(new StandardResponse("success", data, null)); // 200 OK
+    }
+}
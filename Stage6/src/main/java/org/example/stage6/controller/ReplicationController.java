@@ -0,0 +1,81 @@
+package org.example.stage6.controller;
+
+import org.example.stage6.cluster.StudentCopy;
+import org.example.stage6.dto.StudentChangeEvent;
+import org.example.stage6.replication.ReplicationBatch;
+import org.example.stage6.replication.ReplicationProperties;
+import org.example.stage6.replication.ReplicationSnapshot;
+import org.example.stage6.response.ErrorDetails;
+import org.example.stage6.response.StandardResponse;
+import org.example.stage6.service.StudentChangeFeed;
+import org.example.stage6.service.StudentService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * API a leader serves to its followers, under /replication
+ * The change feed is the replication log: a follower starts from a snapshot,
+ * then keeps asking for the changes after the last one it applied
+ */
+@RestController
+@RequestMapping("/replication")
+@ConditionalOnProperty(prefix = "student.replication", name = "role", havingValue = "leader")
+public class ReplicationController {
+
+    // sequences start over when the leader restarts, a follower that sees another epoch starts from a snapshot again
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final StudentService studentService;
+
+    private final StudentChangeFeed changeFeed;
+
+    private final ReplicationProperties properties;
+
+    public ReplicationController(StudentService studentService, StudentChangeFeed changeFeed,
+                                 ReplicationProperties properties) {
+        this.studentService = studentService;
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+    }
+
+    /**
+     * All students with their versions, and the sequence to continue after
+     * The sequence is read first, so the students contain every change up to it
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<StandardResponse> getSnapshot() {
+        long sequence = changeFeed.getLastSequence();
+        List<StudentCopy> students = studentService.getAllStudents().stream().map(StudentCopy::of).toList();
+        return ok(new ReplicationSnapshot(epoch, sequence, students));
+    }
+
+    /**
+     * The changes starting at a sequence, waits up to the poll wait when there is none yet (long polling)
+     * 410 Gone when the changes were already overwritten in the feed, or the sequence is from before a restart,
+     * the follower needs a new snapshot
+     */
+    @GetMapping("/log")
+    public ResponseEntity<StandardResponse> getChanges(@RequestParam long from) throws InterruptedException {
+        List<StudentChangeEvent> events = changeFeed.read(from, properties.getBatchSize());
+        if (events != null && events.isEmpty() && changeFeed.awaitAfter(from - 1, properties.getPollWait())) {
+            events = changeFeed.read(from, properties.getBatchSize());
+        }
+        if (events == null) {
+            ErrorDetails details = new ErrorDetails("Changes Gone", "Changes from " + from + " on are no longer kept");
+            return ResponseEntity.status(HttpStatus.GONE).body(new StandardResponse("error", null, details)); // 410 Gone
+        }
+        return ok(new ReplicationBatch(epoch, changeFeed.getLastSequence(), events));
+    }
+
+    private static ResponseEntity<StandardResponse> ok(Object data) {
+        return ResponseEntity.ok(new StandardResponse("success", data, null)); // 200 OK
+    }
+}
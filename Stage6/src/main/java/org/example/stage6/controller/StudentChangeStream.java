@@ -0,0 +1,132 @@
+package org.example.stage6.controller;
+
+import jakarta.annotation.PreDestroy;
+import org.example.stage6.dto.StudentChangeEvent;
+import org.example.stage6.service.StudentChangeFeed;
+import org.example.stage6.service.StudentChangeFeedProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the change feed to Server-Sent Events subscribers, one pump thread per subscriber
+ * A subscriber that reads slower than students change falls out of the feed's buffer,
+ * it then gets a "reset" event and is disconnected instead of holding back the writers.
+ * A subscriber resuming after a sequence this run has not reached (the server restarted) gets the same reset.
+ */
+@Component
+public class StudentChangeStream {
+
+    // maximum number of events sent between two flushes
+    private static final int SEND_BATCH_SIZE = 256;
+
+    private final StudentChangeFeed changeFeed;
+
+    private final StudentChangeFeedProperties properties;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final ExecutorService pumps;
+
+    public StudentChangeStream(StudentChangeFeed changeFeed, StudentChangeFeedProperties properties) {
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pumps = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "student-change-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sequence of the newest change, a new subscriber without a resume point starts after it
+     */
+    public long getLastSequence() {
+        return changeFeed.getLastSequence();
+    }
+
+    /**
+     * Open a stream of the changes starting at a sequence
+     * @return The emitter, or null if there are already max-subscribers open streams
+     */
+    public SseEmitter subscribe(long fromSequence) {
+        if (subscribers.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscribers.decrementAndGet();
+            return null;
+        }
+        // no timeout, the stream stays open until the client or the server closes it
+        SseEmitter emitter = new SseEmitter(0L);
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(error -> closed.set(true));
+        try {
+            pumps.execute(() -> {
+                try {
+                    pump(emitter, closed, fromSequence);
+                } finally {
+                    subscribers.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            subscribers.decrementAndGet();
+            throw e;
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pumps.shutdownNow();
+    }
+
+    /**
+     * Sends the events to one subscriber until it disconnects, falls behind or the server stops
+     */
+    private void pump(SseEmitter emitter, AtomicBoolean closed, long fromSequence) {
+        long next = fromSequence;
+        try {
+            while (!closed.get()) {
+                List<StudentChangeEvent> events = changeFeed.read(next, SEND_BATCH_SIZE);
+                if (events == null) {
+                    // the events this subscriber needs were overwritten or are from an earlier run, it has to reload all students
+                    emitter.send(SseEmitter.event()
+                            .name("reset")
+                            .data(Map.of("requestedSequence", next, "lastSequence", changeFeed.getLastSequence()),
+                                    MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                    return;
+                }
+                if (events.isEmpty()) {
+                    if (!changeFeed.awaitAfter(next - 1, properties.getHeartbeatInterval())) {
+                        // keep idle connections open through proxies and notice closed clients
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    }
+                    continue;
+                }
+                for (StudentChangeEvent event : events) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.getSequence()))
+                            .name("change")
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                next += events.size();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the emitter was already completed, the container cleans up the request
+            emitter.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+}
@@ -1,15 +1,41 @@
 package org.example.stage6.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentBatchRequest;
 import org.example.stage6.dto.StudentDto;
+import org.example.stage6.dto.StudentIdsRequest;
+import org.example.stage6.dto.StudentPageDto;
+import org.example.stage6.exception.VersionMismatch;
+import org.example.stage6.model.VersionClock;
+import org.example.stage6.response.ErrorDetails;
 import org.example.stage6.response.StandardResponse;
+import org.example.stage6.service.BatchMode;
 import org.example.stage6.service.StudentService;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for student operations
@@ -19,30 +45,164 @@ import java.util.List;
 @RequestMapping("/student")
 public class StudentController {
 
+    // page size limits for getStudents, and the chunk size used when streaming
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 1000;
+
+    // the encodings a StandardResponse is negotiated to, in the order of their converters
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    private static final List<MediaType> ENCODINGS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+    // ETag suffix of the binary encodings, the JSON ETag has none
+    private static final Map<MediaType, String> ETAG_SUFFIXES = Map.of(MediaType.APPLICATION_CBOR, "+cbor", SMILE, "+smile");
+
     private final StudentService studentService;
 
-    public StudentController(StudentService studentService) {
+    private final ObjectMapper objectMapper;
+
+    private final ObjectMapper cborMapper;
+
+    private final ObjectMapper smileMapper;
+
+    private final StudentChangeStream changeStream;
+
+    public StudentController(StudentService studentService, ObjectMapper objectMapper,
+                             MappingJackson2CborHttpMessageConverter cborConverter,
+                             MappingJackson2SmileHttpMessageConverter smileConverter,
+                             StudentChangeStream changeStream) {
         this.studentService = studentService;
+        this.changeStream = changeStream;
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+        this.smileMapper = smileConverter.getObjectMapper();
     }
 
     /**
      * Get all students
-     * Returns ResponseEntity with StandardResponse and 200 OK status
+     * The ETag is the collection version, If-None-Match with it is answered before any student is read
+     * Returns ResponseEntity with StandardResponse and 200 OK status, or 304 Not Modified
      */
     @GetMapping("/getAllStudents")
-    public ResponseEntity<StandardResponse> getAllStudents() {
+    public ResponseEntity<StandardResponse> getAllStudents(WebRequest request, HttpServletResponse servletResponse,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // read the version first, a change made while the list is read then gives a newer version
+        long version = studentService.getCollectionVersion();
+        if (request.checkNotModified(etag(version, accept), VersionClock.toEpochMillis(version))) {
+            return null; // 304 Not Modified
+        }
         List<StudentDto> studentList = studentService.getAllStudents();
         StandardResponse response = new StandardResponse("success", studentList, null);
         return ResponseEntity.ok(response); // 200 OK
     }
 
     /**
-     * Get a student by ID
+     * Get one page of students ordered by ID (keyset pagination)
+     * The first page is requested without "after", each next page with the nextAfter of the previous one
+     * Returns ResponseEntity with StandardResponse and 200 OK status
+     */
+    @GetMapping("/getStudents")
+    public ResponseEntity<StandardResponse> getStudents(@RequestParam(required = false) Long after,
+                                                        @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<StudentDto> students = studentService.getStudentsPage(after, pageSize);
+        Long nextAfter = students.size() < pageSize ? null : students.get(students.size() - 1).getId();
+        StandardResponse response = new StandardResponse("success", new StudentPageDto(students, nextAfter), null);
+        return ResponseEntity.ok(response); // 200 OK
+    }
+
+    /**
+     * Search students by last name prefix, first name prefix and age range
+     * Every parameter is optional, name prefixes are case-insensitive, the age range is inclusive
      * Returns ResponseEntity with StandardResponse and 200 OK status
      */
+    @GetMapping("/search")
+    public ResponseEntity<StandardResponse> searchStudents(@RequestParam(required = false) String lastNamePrefix,
+                                                           @RequestParam(required = false) String firstNamePrefix,
+                                                           @RequestParam(required = false) Double minAge,
+                                                           @RequestParam(required = false) Double maxAge,
+                                                           @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<StudentDto> students = studentService.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, pageSize);
+        StandardResponse response = new StandardResponse("success", students, null);
+        return ResponseEntity.ok(response); // 200 OK
+    }
+
+    /**
+     * Stream all students as NDJSON, one student per line
+     * Students are read page by page and written as they are read, so memory stays flat for any number of students
+     */
+    @GetMapping(value = "/streamAllStudents", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllStudentsNdjson() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> streamStudents(out, objectMapper, false)); // 200 OK
+    }
+
+    /**
+     * Stream all students as a single JSON array, written incrementally like the NDJSON variant
+     */
+    @GetMapping(value = "/streamAllStudents", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllStudentsJsonArray() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> streamStudents(out, objectMapper, true)); // 200 OK
+    }
+
+    /**
+     * Stream all students as a single CBOR array, written incrementally like the JSON variant
+     */
+    @GetMapping(value = "/streamAllStudents", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllStudentsCbor() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_CBOR)
+                .body(out -> streamStudents(out, cborMapper, true)); // 200 OK
+    }
+
+    /**
+     * Stream all students as a single Smile array, written incrementally like the JSON variant
+     */
+    @GetMapping(value = "/streamAllStudents", produces = "application/x-jackson-smile")
+    public ResponseEntity<StreamingResponseBody> streamAllStudentsSmile() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-jackson-smile"))
+                .body(out -> streamStudents(out, smileMapper, true)); // 200 OK
+    }
+
+    /**
+     * Stream every change of the students as Server-Sent Events, named "change", with the sequence as event ID
+     * Starts after the newest change, at "from", or after the Last-Event-ID sent by a reconnecting client
+     * A client that falls too far behind, or resumes after a sequence of an earlier run (sequences start over
+     * at every restart), gets a "reset" event and is disconnected, it should reload all students
+     * Returns 200 OK with the open stream, or 503 Service Unavailable if there are too many subscribers
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestParam(required = false) Long from,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long fromSequence = from != null ? from
+                : lastEventId != null ? lastEventId + 1
+                : changeStream.getLastSequence() + 1;
+        SseEmitter emitter = changeStream.subscribe(Math.max(fromSequence, 1));
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build(); // 503 Service Unavailable
+        }
+        return ResponseEntity.ok(emitter); // 200 OK
+    }
+
+    /**
+     * Get a student by ID
+     * The ETag is the student version, the student is read once so the ETag always belongs to the returned body
+     * checkNotModified sets the ETag and Last-Modified headers of both answers
+     * Returns ResponseEntity with StandardResponse and 200 OK status, or 304 Not Modified
+     */
     @GetMapping("/getStudent/{id}")
-    public ResponseEntity<StandardResponse> getStudent(@PathVariable Long id) {
+    public ResponseEntity<StandardResponse> getStudent(@PathVariable Long id, WebRequest request, HttpServletResponse servletResponse,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
         StudentDto student = studentService.getStudent(id);
+        if (request.checkNotModified(etag(student.getVersion(), accept), VersionClock.toEpochMillis(student.getVersion()))) {
+            return null; // 304 Not Modified
+        }
         StandardResponse response = new StandardResponse("success", student, null);
         return ResponseEntity.ok(response); // 200 OK
     }
@@ -53,7 +213,8 @@ public class StudentController {
      * Returns ResponseEntity with StandardResponse and 201 Created status with location header
      */
     @PostMapping("/addStudent")
-    public ResponseEntity<StandardResponse> addStudent(@Valid @RequestBody StudentDto studentDto) {
+    public ResponseEntity<StandardResponse> addStudent(@Valid @RequestBody StudentDto studentDto,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         StudentDto added = studentService.addStudent(studentDto);
 
         URI location = ServletUriComponentsBuilder
@@ -63,28 +224,206 @@ public class StudentController {
                 .toUri();
 
         StandardResponse response = new StandardResponse("success", added, null);
-        return ResponseEntity.created(location).body(response); // 201 Created
+        return versioned(ResponseEntity.created(location), added, accept).body(response); // 201 Created
     }
 
     /**
      * Update a student
      * Uses @Valid to validate a student according to Jakarta Validation constraints
+     * With If-Match the update is only applied if the student still has that ETag, otherwise 412 Precondition Failed
      * Returns ResponseEntity with StandardResponse and 200 OK status
      */
     @PutMapping("/updateStudent/{id}")
-    public ResponseEntity<StandardResponse> updateStudent(@Valid @RequestBody StudentDto studentDto, @PathVariable Long id) {
-        StudentDto updated = studentService.updateStudent(studentDto, id);
+    public ResponseEntity<StandardResponse> updateStudent(@Valid @RequestBody StudentDto studentDto, @PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        StudentDto updated = expectedVersion == null
+                ? studentService.updateStudent(studentDto, id)
+                : studentService.updateStudent(studentDto, id, expectedVersion);
         StandardResponse response = new StandardResponse("success", updated, null);
-        return ResponseEntity.ok(response); // 200 OK
+        return versioned(ResponseEntity.ok(), updated, accept).body(response); // 200 OK
     }
 
     /**
      * Delete a student
+     * With If-Match the student is only deleted if it still has that ETag, otherwise 412 Precondition Failed
      * Returns ResponseEntity with 204 No Content status without a response body
      */
     @DeleteMapping("/deleteStudent/{id}")
-    public ResponseEntity<Void> deleteStudent(@PathVariable Long id) {
-        studentService.deleteStudent(id);
+    public ResponseEntity<Void> deleteStudent(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        if (expectedVersion == null) {
+            studentService.deleteStudent(id);
+        } else {
+            studentService.deleteStudent(id, expectedVersion);
+        }
         return ResponseEntity.noContent().build(); // 204 No Content
     }
-}
\ No newline at end of file
+
+    /**
+     * Add several students in one request
+     * The whole batch is validated with one @Valid pass and applied under one lock
+     * mode=ATOMIC (default) applies all students or none, mode=BEST_EFFORT applies every valid student
+     * Returns 200 OK with one result per student. If nothing was applied it returns 404 Not Found
+     * when every failed student does not exist, else 409 Conflict
+     */
+    @PostMapping("/addStudents")
+    public ResponseEntity<StandardResponse> addStudents(@Valid @RequestBody StudentBatchRequest request,
+                                                        @RequestParam(defaultValue = "ATOMIC") BatchMode mode) {
+        return batchResponse(studentService.addStudents(request.getStudents(), mode));
+    }
+
+    /**
+     * Update several students in one request, each student is matched by its ID
+     * Same validation, modes and statuses as addStudents
+     */
+    @PutMapping("/updateStudents")
+    public ResponseEntity<StandardResponse> updateStudents(@Valid @RequestBody StudentBatchRequest request,
+                                                           @RequestParam(defaultValue = "ATOMIC") BatchMode mode) {
+        return batchResponse(studentService.updateStudents(request.getStudents(), mode));
+    }
+
+    /**
+     * Delete several students in one request
+     * Same modes and statuses as addStudents
+     */
+    @DeleteMapping("/deleteStudents")
+    public ResponseEntity<StandardResponse> deleteStudents(@Valid @RequestBody StudentIdsRequest request,
+                                                           @RequestParam(defaultValue = "ATOMIC") BatchMode mode) {
+        return batchResponse(studentService.deleteStudents(request.getIds(), mode));
+    }
+
+    /**
+     * Builds the response of a batch operation
+     * success: every item was applied, warning: some items failed, error: no item was applied
+     */
+    private ResponseEntity<StandardResponse> batchResponse(List<BatchItemResult> results) {
+        long applied = results.stream().filter(r -> "success".equals(r.getStatus())).count();
+        if (applied == 0) {
+            StandardResponse response = new StandardResponse("error", results, null);
+            // skipped items failed only because of the failed ones, so those decide the status
+            if (results.stream().filter(r -> "error".equals(r.getStatus())).allMatch(StudentController::notFound)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response); // 404 Not Found
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response); // 409 Conflict
+        }
+        String status = applied == results.size() ? "success" : "warning";
+        return ResponseEntity.ok(new StandardResponse(status, results, null)); // 200 OK
+    }
+
+    private static boolean notFound(BatchItemResult result) {
+        return result.getError() instanceof ErrorDetails error && "Resource Not Found".equals(error.getType());
+    }
+
+    /**
+     * Adds the ETag and Last-Modified headers of a student version
+     */
+    private static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder builder, StudentDto student, String accept) {
+        return builder.eTag(etag(student.getVersion(), accept))
+                .lastModified(VersionClock.toEpochMillis(student.getVersion()))
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * Strong ETag of a version in the encoding the Accept header negotiates
+     * The JSON form is "version", the binary forms are "version+cbor" and "version+smile",
+     * so a validator of one encoding never matches the bytes of another
+     */
+    private static String etag(long version, String accept) {
+        return "\"" + version + ETAG_SUFFIXES.getOrDefault(encodingOf(accept), "") + "\"";
+    }
+
+    /**
+     * The encoding the message converters pick for an Accept header: the compatible encoding
+     * with the highest quality, the first in converter order on a tie (JSON for a wildcard)
+     */
+    private static MediaType encodingOf(String accept) {
+        List<MediaType> acceptable;
+        try {
+            acceptable = accept == null ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // the request fails during content negotiation anyway
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType selected = MediaType.APPLICATION_JSON;
+        double quality = -1;
+        for (MediaType type : acceptable) {
+            for (MediaType encoding : ENCODINGS) {
+                if (type.isCompatibleWith(encoding) && type.getQualityValue() > quality) {
+                    selected = encoding;
+                    quality = type.getQualityValue();
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Reads the version an If-Match header asks for
+     * @return The version, or null if there is no header or it is "*" (any current version)
+     * @throws VersionMismatch If the header is not one strong ETag of a version, so it can never match
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> etags = ETag.parse(ifMatch);
+        if (etags.size() == 1 && etags.get(0).isWildcard()) {
+            return null;
+        }
+        // If-Match uses the strong comparison, a weak ETag never matches
+        if (etags.size() == 1 && !etags.get(0).weak()) {
+            // the ETag of any encoding names the same version
+            String tag = etags.get(0).tag();
+            for (String suffix : ETAG_SUFFIXES.values()) {
+                if (tag.endsWith(suffix)) {
+                    tag = tag.substring(0, tag.length() - suffix.length());
+                    break;
+                }
+            }
+            try {
+                return Long.parseLong(tag);
+            } catch (NumberFormatException ignored) {
+                // not one of our ETags, reported below
+            }
+        }
+        throw new VersionMismatch("If-Match " + ifMatch + " does not match the current version");
+    }
+
+    /**
+     * Writes all students to the output stream using keyset pages, flushing after each page
+     * The mapper decides the encoding: JSON, CBOR or Smile
+     */
+    private void streamStudents(OutputStream out, ObjectMapper mapper, boolean asArray) throws IOException {
+        ObjectWriter writer = mapper.writerFor(StudentDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            if (asArray) {
+                generator.writeStartArray();
+            } else {
+                // NDJSON lines are separated by the newline written below, not by Jackson's default space
+                generator.setRootValueSeparator(null);
+            }
+            Long after = null;
+            List<StudentDto> page;
+            do {
+                page = studentService.getStudentsPage(after, STREAM_CHUNK_SIZE);
+                for (StudentDto student : page) {
+                    writer.writeValue(generator, student);
+                    if (!asArray) {
+                        generator.writeRaw('\n');
+                    }
+                }
+                generator.flush();
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == STREAM_CHUNK_SIZE);
+            if (asArray) {
+                generator.writeEndArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.stage6.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of one item of a batch operation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    /**
+     * ID of the student this item refers to
+     */
+    private Long id;
+
+    /**
+     * success, error, or skipped when an all-or-nothing batch was rejected because of another item
+     */
+    private String status;
+
+    /**
+     * The student after the operation, null for deletes and failed items
+     */
+    private StudentDto data;
+
+    /**
+     * Error object in case of errors, same shape as the error of a single operation
+     */
+    private Object error;
+}
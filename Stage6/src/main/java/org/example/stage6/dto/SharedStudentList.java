@@ -0,0 +1,55 @@
+package org.example.stage6.dto;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Read-only list of students handed to several requests at once (see SingleFlightStudentService)
+ * It also keeps its JSON encoding: the first request that writes it encodes it, the others copy the bytes
+ */
+public final class SharedStudentList extends AbstractList<StudentDto> implements RandomAccess {
+
+    private final List<StudentDto> students;
+
+    private final ReentrantLock encodeLock = new ReentrantLock();
+
+    private volatile byte[] json;
+
+    public SharedStudentList(List<StudentDto> students) {
+        this.students = students;
+    }
+
+    @Override
+    public StudentDto get(int index) {
+        return students.get(index);
+    }
+
+    @Override
+    public int size() {
+        return students.size();
+    }
+
+    /**
+     * The JSON of the list, encoded once
+     * @param encoder Encodes the list, called by the first caller only
+     */
+    public byte[] json(Function<Object, byte[]> encoder) {
+        byte[] encoded = json;
+        if (encoded == null) {
+            encodeLock.lock();
+            try {
+                encoded = json;
+                if (encoded == null) {
+                    encoded = encoder.apply(students);
+                    json = encoded;
+                }
+            } finally {
+                encodeLock.unlock();
+            }
+        }
+        return encoded;
+    }
+}
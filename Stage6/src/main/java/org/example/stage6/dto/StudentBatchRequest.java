@@ -0,0 +1,23 @@
+package org.example.stage6.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body of the batch add and update operations
+ * @Valid cascades into every student, so the whole batch is validated in one pass
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentBatchRequest {
+    @NotEmpty(message = "Students are required")
+    @Size(max = 10000, message = "A batch can hold at most 10000 students")
+    private List<@Valid StudentDto> students;
+}
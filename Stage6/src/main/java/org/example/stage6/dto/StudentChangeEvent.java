@@ -0,0 +1,44 @@
+package org.example.stage6.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change of the student collection, as published on the change feed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentChangeEvent {
+    /**
+     * Position in the feed, starts at 1 and grows by one per event
+     */
+    private long sequence;
+
+    /**
+     * What happened to the student
+     */
+    private Type type;
+
+    /**
+     * ID of the changed student
+     */
+    private Long id;
+
+    /**
+     * Version of the student after the change, for a delete the version of the removed student
+     */
+    private long version;
+
+    /**
+     * The student after the change, null for deletes
+     */
+    private StudentDto student;
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.stage6.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,6 +17,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class StudentDto {
+    @NotNull(message = "ID cannot be null")
     private Long id;
     
     @NotBlank(message = "First name is required")
@@ -27,4 +30,11 @@ public class StudentDto {
     
     @Min(value = 0, message = "Age must be a positive number")
     private double age;
+
+    /**
+     * Version of the student, the same value as its ETag
+     * Set by the server, a version sent by a client is ignored (use If-Match instead)
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package org.example.stage6.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request body of the batch delete operation
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentIdsRequest {
+    @NotEmpty(message = "IDs are required")
+    @Size(max = 10000, message = "A batch can hold at most 10000 IDs")
+    private List<@NotNull(message = "ID cannot be null") Long> ids;
+}
@@ -0,0 +1,23 @@
+package org.example.stage6.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of students for keyset pagination
+ * The client passes nextAfter as the "after" parameter to get the following page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentPageDto {
+    private List<StudentDto> students;
+
+    /**
+     * ID of the last student in this page, null when there are no more pages
+     */
+    private Long nextAfter;
+}
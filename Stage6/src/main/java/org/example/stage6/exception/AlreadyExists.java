@@ -1,7 +1,11 @@
 package org.example.stage6.exception;
 
+/**
+ * A student with the same ID already exists, 409 Conflict
+ * Created without a stack trace, like NotExists
+ */
 public class AlreadyExists extends RuntimeException {
     public AlreadyExists(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
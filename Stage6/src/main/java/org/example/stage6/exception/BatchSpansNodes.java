@@ -0,0 +1,11 @@
+package org.example.stage6.exception;
+
+/**
+ * An ATOMIC batch holds students stored on different nodes of a partitioned deployment,
+ * the nodes cannot apply it as one unit, 422 Unprocessable Entity
+ */
+public class BatchSpansNodes extends RuntimeException {
+    public BatchSpansNodes(String message) {
+        super(message);
+    }
+}
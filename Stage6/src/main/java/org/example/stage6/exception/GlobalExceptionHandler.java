@@ -1,34 +1,52 @@
 package org.example.stage6.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.stage6.response.ErrorDetails;
 import org.example.stage6.response.StandardResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * GlobalExceptionHandler, this class is used to handle exceptions globally
  * instead of handling them in each controller separately.
+ * Every handled exception is counted as student.errors with the tag exception=<simple class name>
+ * 404 and 409 are frequent, so their path skips the costly parts: the exceptions have no stack trace,
+ * the responses share the empty read-only headers and the converter pre-encodes the error envelope.
+ * An error still allocates about 1 KB (exception, message, response objects, Spring's response headers)
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    // one counter per exception class, registered on its first occurrence
+    private final Map<Class<?>, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * takes care of the exception when a resource is not found, 404 Not Found
      */
     @ExceptionHandler(NotExists.class)
     public ResponseEntity<StandardResponse> handleNotExists(NotExists ex, WebRequest request) {
-        Map<String, String> details = new HashMap<>();
-        details.put("type", "Resource Not Found");
-        details.put("message", ex.getMessage());
+        countError(ex);
+        ErrorDetails details = new ErrorDetails("Resource Not Found", ex.getMessage());
         
         StandardResponse response = new StandardResponse("error", null, details);
-        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        return new ResponseEntity<>(response, HttpHeaders.EMPTY, HttpStatus.NOT_FOUND);
     }
 
     /**
@@ -37,12 +55,11 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(AlreadyExists.class)
     public ResponseEntity<StandardResponse> handleAlreadyExists(AlreadyExists ex, WebRequest request) {
-        Map<String, String> details = new HashMap<>();
-        details.put("type", "Resource Conflict");
-        details.put("message", ex.getMessage());
+        countError(ex);
+        ErrorDetails details = new ErrorDetails("Resource Conflict", ex.getMessage());
         
         StandardResponse response = new StandardResponse("error", null, details);
-        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+        return new ResponseEntity<>(response, HttpHeaders.EMPTY, HttpStatus.CONFLICT);
     }
 
     /**
@@ -50,12 +67,36 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(StudentIdAndIdMismatch.class)
     public ResponseEntity<StandardResponse> handleIdMismatch(StudentIdAndIdMismatch ex, WebRequest request) {
-        Map<String, String> details = new HashMap<>();
-        details.put("type", "ID Mismatch");
-        details.put("message", ex.getMessage());
+        countError(ex);
+        ErrorDetails details = new ErrorDetails("ID Mismatch", ex.getMessage());
         
         StandardResponse response = new StandardResponse("error", null, details);
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(response, HttpHeaders.EMPTY, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * takes care of the exception when an If-Match version is not the current one, 412 Precondition Failed
+     */
+    @ExceptionHandler(VersionMismatch.class)
+    public ResponseEntity<StandardResponse> handleVersionMismatch(VersionMismatch ex, WebRequest request) {
+        countError(ex);
+        ErrorDetails details = new ErrorDetails("Precondition Failed", ex.getMessage());
+
+        StandardResponse response = new StandardResponse("error", null, details);
+        return new ResponseEntity<>(response, HttpHeaders.EMPTY, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * takes care of an ATOMIC batch whose students are stored on several nodes, 422 Unprocessable Entity
+     * The request is well-formed, the client can send it with mode=BEST_EFFORT or as one batch per node
+     */
+    @ExceptionHandler(BatchSpansNodes.class)
+    public ResponseEntity<StandardResponse> handleBatchSpansNodes(BatchSpansNodes ex, WebRequest request) {
+        countError(ex);
+        ErrorDetails details = new ErrorDetails("Batch Spans Nodes", ex.getMessage());
+
+        StandardResponse response = new StandardResponse("error", null, details);
+        return new ResponseEntity<>(response, HttpHeaders.EMPTY, HttpStatus.UNPROCESSABLE_ENTITY);
     }
 
     /**
@@ -64,6 +105,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<StandardResponse> handleValidationExceptions(MethodArgumentNotValidException ex, WebRequest request) {
+        countError(ex);
         Map<String, String> errors = new HashMap<>();
 
         ex.getBindingResult().getFieldErrors().forEach(error ->
@@ -75,7 +117,17 @@ public class GlobalExceptionHandler {
         details.put("fields", errors);
         
         StandardResponse response = new StandardResponse("error", null, details);
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(response, HttpHeaders.EMPTY, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * takes care of a client that went away during a streamed response (event stream or NDJSON),
+     * the connection is gone so no response is written
+     */
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleClientGone(AsyncRequestNotUsableException ex) {
+        countError(ex);
+        // nothing to send, the container closes the request
     }
 
     /**
@@ -83,11 +135,21 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<StandardResponse> handleGenericException(Exception ex, WebRequest request) {
-        Map<String, String> details = new HashMap<>();
-        details.put("type", "Internal Server Error");
-        details.put("message", ex.getMessage());
+        countError(ex);
+        ErrorDetails details = new ErrorDetails("Internal Server Error", ex.getMessage());
         
         StandardResponse response = new StandardResponse("error", null, details);
-        return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(response, HttpHeaders.EMPTY, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * Helper method that counts a handled exception by its type
+     */
+    private void countError(Exception ex) {
+        errorCounters.computeIfAbsent(ex.getClass(), type -> Counter.builder("student.errors")
+                .description("Exceptions handled by GlobalExceptionHandler")
+                .tag("exception", type.getSimpleName())
+                .register(meterRegistry))
+                .increment();
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,12 @@
 package org.example.stage6.exception;
 
+/**
+ * The requested student does not exist, 404 Not Found
+ * An expected client error, so it is created without a stack trace: filling one in
+ * costs more than the rest of the error response and nothing ever prints it
+ */
 public class NotExists extends RuntimeException {
     public NotExists(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
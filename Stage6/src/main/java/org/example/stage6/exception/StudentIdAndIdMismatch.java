@@ -1,8 +1,12 @@
 package org.example.stage6.exception;
 
-public class StudentIdAndIdMismatch extends RuntimeException{
+/**
+ * The ID in the path and the ID in the body differ, 400 Bad Request
+ * Created without a stack trace, like NotExists
+ */
+public class StudentIdAndIdMismatch extends RuntimeException {
     public StudentIdAndIdMismatch(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
 
@@ -0,0 +1,11 @@
+package org.example.stage6.exception;
+
+/**
+ * The student does not have the version the request expected, 412 Precondition Failed
+ * Created without a stack trace, like NotExists
+ */
+public class VersionMismatch extends RuntimeException {
+    public VersionMismatch(String message) {
+        super(message, null, false, false);
+    }
+}
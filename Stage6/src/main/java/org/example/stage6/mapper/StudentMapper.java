@@ -1,17 +1,32 @@
 package org.example.stage6.mapper;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.example.stage6.dto.StudentDto;
 import org.example.stage6.model.Student;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Mapper class for converting between Student entity and StudentDto
+ * The field copies are generated at compile time (see StudentMapping), this class is the API the rest uses
+ * Counts its conversions, published as student.mapper.conversions with the tag direction=toEntity/toDto
  */
 @Component
-public class StudentMapper {
+public class StudentMapper implements MeterBinder {
+
+    private final StudentMapping mapping = new StudentMappingImpl();
+
+    // striped counters, concurrent conversions do not contend on one cache line
+    private final LongAdder toEntityCount = new LongAdder();
+    private final LongAdder toDtoCount = new LongAdder();
     
     /**
      * Convert from DTO to Entity
+     * The entity gets version 0, the service assigns the real version when it stores it
      * @param dto The DTO to convert
      * @return The converted entity or null if dto is null
      */
@@ -19,14 +34,8 @@ public class StudentMapper {
         if (dto == null) {
             return null;
         }
-        
-        Student student = new Student();
-        student.setId(dto.getId());
-        student.setFirstName(dto.getFirstName());
-        student.setLastName(dto.getLastName());
-        student.setAge(dto.getAge());
-        
-        return student;
+        toEntityCount.increment();
+        return mapping.toEntity(dto);
     }
     
     /**
@@ -38,28 +47,42 @@ public class StudentMapper {
         if (entity == null) {
             return null;
         }
-        
-        StudentDto dto = new StudentDto();
-        dto.setId(entity.getId());
-        dto.setFirstName(entity.getFirstName());
-        dto.setLastName(entity.getLastName());
-        dto.setAge(entity.getAge());
-        
-        return dto;
+        toDtoCount.increment();
+        return mapping.toDto(entity);
     }
-    
+
     /**
-     * Update entity from DTO
-     * @param entity The entity to update
-     * @param dto The DTO with new data
+     * Convert a list of entities to DTOs, into a list sized up front
+     * @param entities The entities to convert
+     * @return A new modifiable list of DTOs
      */
-    public void updateEntityFromDto(Student entity, StudentDto dto) {
-        if (entity == null || dto == null) {
-            return;
-        }
-        
-        entity.setFirstName(dto.getFirstName());
-        entity.setLastName(dto.getLastName());
-        entity.setAge(dto.getAge());
+    public List<StudentDto> toDtoList(List<Student> entities) {
+        toDtoCount.add(entities.size());
+        return mapping.toDtoList(entities);
+    }
+
+    /**
+     * Convert a list of DTOs to entities, into a list sized up front
+     * @param dtos The DTOs to convert
+     * @return A new modifiable list of entities, each with version 0
+     */
+    public List<Student> toEntityList(List<StudentDto> dtos) {
+        toEntityCount.add(dtos.size());
+        return mapping.toEntityList(dtos);
+    }
+
+    /**
+     * Publishes the conversion counts, they are only read when metrics are scraped
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("student.mapper.conversions", toEntityCount, LongAdder::sum)
+                .description("Student conversions done by StudentMapper")
+                .tag("direction", "toEntity")
+                .register(registry);
+        FunctionCounter.builder("student.mapper.conversions", toDtoCount, LongAdder::sum)
+                .description("Student conversions done by StudentMapper")
+                .tag("direction", "toDto")
+                .register(registry);
     }
-}
\ No newline at end of file
+}
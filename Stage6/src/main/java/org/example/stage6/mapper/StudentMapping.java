@@ -0,0 +1,34 @@
+package org.example.stage6.mapper;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.model.Student;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/**
+ * Conversions between Student and StudentDto, implemented at compile time by MapStruct as StudentMappingImpl
+ * The generated code only calls constructors, getters and setters, no reflection
+ * Used through StudentMapper, which keeps the public API
+ */
+@Mapper
+interface StudentMapping {
+
+    /**
+     * The entity gets version 0, the service assigns the real version when it stores it
+     * withVersion is Lombok's copy method, MapStruct mistakes it for a property
+     */
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "withVersion", ignore = true)
+    Student toEntity(StudentDto dto);
+
+    StudentDto toDto(Student entity);
+
+    /**
+     * Converts into an ArrayList sized up front, in a plain loop
+     */
+    List<StudentDto> toDtoList(List<Student> entities);
+
+    List<Student> toEntityList(List<StudentDto> dtos);
+}
@@ -1,28 +1,34 @@
 package org.example.stage6.model;
 
 import jakarta.validation.constraints.*;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import lombok.ToString;
+import lombok.Value;
+import lombok.With;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@ToString
+/**
+ * Immutable snapshot of a student
+ * A change never modifies a stored student, it stores a new snapshot in its place,
+ * so a reader always sees either the whole old or the whole new student
+ */
+@Value
 public class Student {
 
     @NotNull(message = "ID cannot be null")
-    private Long id;
+    Long id;
 
     @NotBlank(message = "First name is required")
     @Size(min = 2, max = 50, message = "First name must be between 2 and 50 characters")
-    private String firstName;
+    String firstName;
 
     @NotBlank(message = "Last name is required")
     @Size(min = 2, max = 50, message = "Last name must be between 2 and 50 characters")
-    private String lastName;
+    String lastName;
 
     @Min(value = 0, message = "Age must be a positive number")
-    private double age;
-}
\ No newline at end of file
+    double age;
+
+    /**
+     * Version of this record, assigned from the VersionClock on every change
+     */
+    @With
+    long version;
+}
@@ -0,0 +1,47 @@
+package org.example.stage6.model;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of student versions
+ * A version is the time of the change in microseconds since the epoch, bumped by one when needed,
+ * so versions always increase, even across restarts, and also tell when the change was made
+ */
+public class VersionClock {
+
+    private final AtomicLong last;
+
+    /**
+     * @param floor Highest version already in use (for example in recovered students)
+     */
+    public VersionClock(long floor) {
+        this.last = new AtomicLong(Math.max(floor, nowMicros()));
+    }
+
+    /**
+     * A new version, greater than every version returned before
+     */
+    public long next() {
+        return last.updateAndGet(previous -> Math.max(previous + 1, nowMicros()));
+    }
+
+    /**
+     * Move the clock past a version made elsewhere, so the next change of the same student gets a greater one
+     */
+    public void observe(long version) {
+        last.accumulateAndGet(version, Math::max);
+    }
+
+    /**
+     * Time of the change a version stands for, in epoch milliseconds
+     */
+    public static long toEpochMillis(long version) {
+        return version / 1000;
+    }
+
+    public static long nowMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+}
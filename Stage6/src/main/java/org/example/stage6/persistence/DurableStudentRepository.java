@@ -0,0 +1,330 @@
+package org.example.stage6.persistence;
+
+import org.example.stage6.model.Student;
+import org.example.stage6.repository.StudentRepository;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * StudentRepository decorator that makes another store durable
+ * Every change is applied to the wrapped store and appended to a write-ahead log,
+ * snapshots are written periodically so the log stays short.
+ * At startup the latest snapshot is loaded and the log after it is replayed.
+ * <p>
+ * Snapshots are taken without stopping writers: the log is rotated first, then the store
+ * is copied page by page. The copy may already contain some later changes, that is fine
+ * because log records hold the full state of a student, so replaying them again gives the same result.
+ */
+public class DurableStudentRepository implements StudentRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DurableStudentRepository.class);
+
+    private final StudentRepository delegate;
+    private final Path directory;
+    private final boolean awaitFsync;
+    private final WriteAheadLog writeAheadLog;
+    private final boolean recovered;
+
+    // keeps the log order equal to the order changes are applied to the store
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // log records of the running batch, appended once the store has stored the batch,
+    // only used by the thread holding writeLock
+    private List<LongSupplier> batchRecords;
+    private final ScheduledExecutorService snapshotScheduler;
+
+    public DurableStudentRepository(StudentRepository delegate, StudentRepositoryProperties.Persistence settings) {
+        this.delegate = delegate;
+        this.directory = Paths.get(settings.getDirectory());
+        this.awaitFsync = settings.isAwaitFsync();
+        try {
+            Files.createDirectories(directory);
+            long lastLsn = recover();
+            this.recovered = lastLsn > 0;
+            this.writeAheadLog = new WriteAheadLog(directory, lastLsn,
+                    settings.getGroupCommitInterval().toNanos(),
+                    settings.getGroupCommitMaxRecords(),
+                    settings.getSegmentSizeBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover students from " + directory, e);
+        }
+        long interval = settings.getSnapshotInterval().toMillis();
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "student-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether any state was found on disk at startup
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Student> findPage(Long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<Student> findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public boolean insertIfAbsent(Student student) {
+        long lsn;
+        writeLock.lock();
+        try {
+            if (!delegate.insertIfAbsent(student)) {
+                return false;
+            }
+            lsn = append(() -> writeAheadLog.appendPut(student));
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+        return true;
+    }
+
+    @Override
+    public Student replaceIfPresent(Student student) {
+        long lsn;
+        Student previous;
+        writeLock.lock();
+        try {
+            previous = delegate.replaceIfPresent(student);
+            if (previous == null) {
+                return null;
+            }
+            lsn = append(() -> writeAheadLog.appendPut(student));
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+        return previous;
+    }
+
+    @Override
+    public Student replaceIfVersion(Student student, long expectedVersion) {
+        long lsn;
+        Student found;
+        writeLock.lock();
+        try {
+            found = delegate.replaceIfVersion(student, expectedVersion);
+            if (found == null || found.getVersion() != expectedVersion) {
+                return found;
+            }
+            lsn = append(() -> writeAheadLog.appendPut(student));
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+        return found;
+    }
+
+    @Override
+    public Student removeIfVersion(Long id, long expectedVersion) {
+        long lsn;
+        Student found;
+        writeLock.lock();
+        try {
+            found = delegate.removeIfVersion(id, expectedVersion);
+            if (found == null || found.getVersion() != expectedVersion) {
+                return found;
+            }
+            lsn = append(() -> writeAheadLog.appendDelete(id));
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+        return found;
+    }
+
+    @Override
+    public Student removeById(Long id) {
+        long lsn;
+        Student removed;
+        writeLock.lock();
+        try {
+            removed = delegate.removeById(id);
+            if (removed == null) {
+                return null;
+            }
+            lsn = append(() -> writeAheadLog.appendDelete(id));
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn);
+        return removed;
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    /**
+     * The whole batch holds the write lock, its records are fsynced together once it finished
+     * Stores such as JDBC only write a batch at its end and may still reject it then,
+     * so the records are appended to the log only once the store has stored the batch
+     */
+    @Override
+    public <T> T executeAtomically(Supplier<T> work) {
+        return executeAtomically(work, result -> {
+        });
+    }
+
+    @Override
+    public <T> T executeAtomically(Supplier<T> work, Consumer<? super T> committed) {
+        T result;
+        long[] lsn = {0};
+        writeLock.lock();
+        try {
+            // a nested batch is part of the running one
+            if (batchRecords != null) {
+                return delegate.executeAtomically(work, committed);
+            }
+            batchRecords = new ArrayList<>();
+            try {
+                result = delegate.executeAtomically(work, stored -> {
+                    for (LongSupplier record : batchRecords) {
+                        lsn[0] = record.getAsLong();
+                    }
+                    committed.accept(stored);
+                });
+            } finally {
+                batchRecords = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(lsn[0]);
+        return result;
+    }
+
+    /**
+     * Write a snapshot now and discard the log and snapshots it replaces
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long started = System.nanoTime();
+            long lsn = writeAheadLog.rotate();
+            Path file = SnapshotFile.write(directory, lsn, delegate);
+            SnapshotFile.deleteOlderThan(directory, file);
+            writeAheadLog.deleteSegmentsUpTo(lsn);
+            log.info("Wrote student snapshot {} in {} ms", file.getFileName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotScheduler.shutdownNow();
+        writeAheadLog.close();
+    }
+
+    /**
+     * Helper method that appends a record now, or inside a batch once the store has stored the batch
+     * @return The LSN of the record, 0 if it waits for the end of the batch
+     */
+    private long append(LongSupplier record) {
+        if (batchRecords != null) {
+            batchRecords.add(record);
+            return 0;
+        }
+        return record.getAsLong();
+    }
+
+    private void awaitDurable(long lsn) {
+        // inside a batch the wait is done once for the whole batch
+        if (writeLock.isHeldByCurrentThread()) {
+            return;
+        }
+        // the wait happens outside the write lock, so concurrent changes share one fsync
+        if (awaitFsync && lsn > 0) {
+            writeAheadLog.awaitDurable(lsn);
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Student snapshot failed, the log is kept until the next attempt", e);
+        }
+    }
+
+    /**
+     * Load the latest snapshot and replay the log after it into the wrapped store
+     * @return The LSN of the last recovered change, 0 if nothing was on disk
+     */
+    private long recover() throws IOException {
+        long started = System.nanoTime();
+        long[] records = {0};
+        long snapshotLsn = 0;
+        Optional<Path> snapshot = SnapshotFile.latest(directory);
+        if (snapshot.isPresent()) {
+            snapshotLsn = SnapshotFile.read(snapshot.get(), student -> {
+                delegate.insertIfAbsent(student);
+                records[0]++;
+            });
+        }
+        long lastLsn = WriteAheadLog.replay(directory, snapshotLsn, new WriteAheadLog.ReplayHandler() {
+            @Override
+            public void put(long lsn, Student student) {
+                if (!delegate.insertIfAbsent(student)) {
+                    delegate.replaceIfPresent(student);
+                }
+                records[0]++;
+            }
+
+            @Override
+            public void delete(long lsn, long id) {
+                delegate.removeById(id);
+                records[0]++;
+            }
+        });
+        if (lastLsn > 0) {
+            long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Recovered {} students from {} records in {} ms ({} records/s)",
+                    delegate.count(), records[0], millis, records[0] * 1000 / millis);
+        }
+        return lastLsn;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.stage6.persistence;
+
+import org.example.stage6.model.Student;
+import org.example.stage6.repository.StudentRepository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of all students
+ * A snapshot named after LSN n holds every change up to n, recovery replays the log after n on top of it.
+ * Layout: magic, format, LSN, then one (marker, id, version, age, first name, last name) entry per student,
+ * an end marker and the CRC of everything before it.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x53545544;
+    private static final int FORMAT = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int BUFFER_SIZE = 1 << 16;
+    // students are read from the store in pages of this size while the snapshot is written
+    private static final int PAGE_SIZE = 10_000;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Write a snapshot of the store, the file only becomes visible once it is complete and fsynced
+     * @return The written snapshot file
+     */
+    static Path write(Path directory, long lsn, StudentRepository source) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, lsn, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, BUFFER_SIZE), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(lsn);
+            Long after = null;
+            List<Student> page;
+            do {
+                page = source.findPage(after, PAGE_SIZE);
+                for (Student student : page) {
+                    out.writeBoolean(true);
+                    out.writeLong(student.getId());
+                    out.writeLong(student.getVersion());
+                    out.writeDouble(student.getAge());
+                    out.writeUTF(student.getFirstName());
+                    out.writeUTF(student.getLastName());
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+            out.writeBoolean(false);
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * Read a snapshot, passing every student to the consumer
+     * @return The LSN the snapshot was taken at
+     */
+    static long read(Path file, Consumer<Student> consumer) throws IOException {
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), new CRC32C())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a student snapshot: " + file);
+            }
+            int format = in.readInt();
+            if (format != FORMAT) {
+                throw new IOException("Unsupported student snapshot format " + format + ": " + file);
+            }
+            long lsn = in.readLong();
+            while (in.readBoolean()) {
+                long id = in.readLong();
+                long version = in.readLong();
+                double age = in.readDouble();
+                String firstName = in.readUTF();
+                String lastName = in.readUTF();
+                consumer.accept(new Student(id, firstName, lastName, age, version));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Corrupt student snapshot: " + file);
+            }
+            return lsn;
+        }
+    }
+
+    /**
+     * Find the most recent snapshot in the directory
+     */
+    static Optional<Path> latest(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(SnapshotFile::isSnapshot).max(Comparator.comparingLong(SnapshotFile::lsnOf));
+        }
+    }
+
+    /**
+     * Delete all snapshots older than the given one, and leftovers of interrupted writes
+     */
+    static void deleteOlderThan(Path directory, Path keep) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                boolean older = isSnapshot(file) && lsnOf(file) < lsnOf(keep);
+                boolean leftover = name.startsWith(PREFIX) && name.endsWith(SUFFIX + ".tmp");
+                if (older || leftover) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static boolean isSnapshot(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    private static long lsnOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
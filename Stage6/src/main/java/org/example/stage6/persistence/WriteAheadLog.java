@@ -0,0 +1,428 @@
+package org.example.stage6.persistence;
+
+import org.example.stage6.model.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of student changes with group commit
+ * Callers append records to an in-memory staging buffer, a single writer thread
+ * writes whatever has been staged with one write and one fsync (group commit),
+ * so the fsync cost is shared by all changes made in the same interval.
+ * The log is split into segment files named after the sequence number (LSN) of their first record.
+ */
+class WriteAheadLog implements Closeable {
+
+    static final byte DELETE = 2;
+    static final byte PUT = 3;
+
+    // every record starts with its payload length and the CRC of the payload
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Receives the records found when the log is replayed
+     */
+    interface ReplayHandler {
+        void put(long lsn, Student student);
+
+        void delete(long lsn, long id);
+    }
+
+    private final Path directory;
+    private final long groupCommitNanos;
+    private final int groupCommitMaxRecords;
+    private final long segmentSizeBytes;
+
+    // guards the staging buffer and the LSN counters
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition staged = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    // guards the segment channel, always taken before lock
+    private final ReentrantLock ioLock = new ReentrantLock();
+
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer staging = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private int stagedRecords;
+    private long lastLsn;
+    private long durableLsn;
+    private IOException failure;
+    private boolean closed;
+
+    private FileChannel segment;
+    private final Thread writer;
+
+    WriteAheadLog(Path directory, long lastLsn, long groupCommitNanos, int groupCommitMaxRecords, long segmentSizeBytes) {
+        this.directory = directory;
+        this.lastLsn = lastLsn;
+        this.durableLsn = lastLsn;
+        this.groupCommitNanos = groupCommitNanos;
+        this.groupCommitMaxRecords = groupCommitMaxRecords;
+        this.segmentSizeBytes = segmentSizeBytes;
+        try {
+            openSegment(lastLsn + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the student log in " + directory, e);
+        }
+        this.writer = new Thread(this::writeLoop, "student-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Stage a put (insert or replace) record
+     * @return The LSN of the record
+     */
+    long appendPut(Student student) {
+        byte[] firstName = student.getFirstName().getBytes(StandardCharsets.UTF_8);
+        byte[] lastName = student.getLastName().getBytes(StandardCharsets.UTF_8);
+        int payload = 1 + Long.BYTES * 3 + Double.BYTES + Short.BYTES * 2 + firstName.length + lastName.length;
+        lock.lock();
+        try {
+            int start = beginRecord(payload);
+            staging.put(PUT).putLong(++lastLsn).putLong(student.getId())
+                    .putLong(student.getVersion()).putDouble(student.getAge());
+            staging.putShort((short) firstName.length).put(firstName);
+            staging.putShort((short) lastName.length).put(lastName);
+            return endRecord(start, payload);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stage a delete record
+     * @return The LSN of the record
+     */
+    long appendDelete(long id) {
+        int payload = 1 + Long.BYTES * 2;
+        lock.lock();
+        try {
+            int start = beginRecord(payload);
+            staging.put(DELETE).putLong(++lastLsn).putLong(id);
+            return endRecord(start, payload);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until all records up to the given LSN are fsynced
+     * @throws UncheckedIOException If the log can no longer be written
+     */
+    void awaitDurable(long lsn) {
+        lock.lock();
+        try {
+            // the writer drains everything staged before it stops, so only a failure ends the wait early
+            while (durableLsn < lsn) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Student log is no longer writable", failure);
+                }
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fsync everything staged so far and start a new segment
+     * All records up to the returned LSN are in the previous segments, all later records in the new one
+     * @return The LSN of the last record before the new segment
+     */
+    long rotate() throws IOException {
+        ioLock.lock();
+        try {
+            long boundary;
+            lock.lock();
+            try {
+                checkWritable();
+                boundary = lastLsn;
+                swapBuffers();
+            } finally {
+                lock.unlock();
+            }
+            writeAndSync(boundary);
+            openSegment(boundary + 1);
+            return boundary;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Delete the segments that only contain records up to the given LSN
+     * Only valid for an LSN returned by rotate()
+     */
+    void deleteSegmentsUpTo(long lsn) throws IOException {
+        for (Path file : listSegments(directory)) {
+            if (startLsn(file) <= lsn) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            staged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            segment.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    /**
+     * Replay all records with an LSN greater than afterLsn, in LSN order
+     * A torn record at the end of the last segment (crash during a write) is cut off,
+     * damage anywhere else is reported as an error.
+     * @return The LSN of the last record in the log, or afterLsn if there is none
+     */
+    static long replay(Path directory, long afterLsn, ReplayHandler handler) throws IOException {
+        List<Path> segments = listSegments(directory);
+        long last = afterLsn;
+        CRC32C crc = new CRC32C();
+        for (int i = 0; i < segments.size(); i++) {
+            Path file = segments.get(i);
+            boolean lastSegment = i == segments.size() - 1;
+            // segments are bounded in size, one sequential read is the fastest portable way to load them
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            int valid = 0;
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.array(), buffer.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                last = Math.max(last, readRecord(file, buffer.slice(buffer.position(), length), afterLsn, handler));
+                buffer.position(buffer.position() + length);
+                valid = buffer.position();
+            }
+            if (valid < buffer.capacity()) {
+                if (!lastSegment) {
+                    throw new IOException("Corrupt student log segment " + file + " at offset " + valid);
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        }
+        return last;
+    }
+
+    private static long readRecord(Path file, ByteBuffer payload, long afterLsn, ReplayHandler handler) throws IOException {
+        byte type = payload.get();
+        long lsn = payload.getLong();
+        long id = payload.getLong();
+        if (type != PUT && type != DELETE) {
+            throw new IOException("Unsupported student log record type " + type + " in " + file);
+        }
+        if (lsn <= afterLsn) {
+            return lsn;
+        }
+        if (type == PUT) {
+            long version = payload.getLong();
+            double age = payload.getDouble();
+            String firstName = readString(payload);
+            String lastName = readString(payload);
+            handler.put(lsn, new Student(id, firstName, lastName, age, version));
+        } else {
+            handler.delete(lsn, id);
+        }
+        return lsn;
+    }
+
+    private static String readString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getShort()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            if (!awaitBatch()) {
+                return;
+            }
+            ioLock.lock();
+            try {
+                long batchLsn;
+                lock.lock();
+                try {
+                    // rotate() may have written the batch already
+                    if (stagedRecords == 0) {
+                        continue;
+                    }
+                    batchLsn = lastLsn;
+                    swapBuffers();
+                } finally {
+                    lock.unlock();
+                }
+                writeAndSync(batchLsn);
+                if (segment.position() >= segmentSizeBytes) {
+                    openSegment(batchLsn + 1);
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wait for staged records, then give more changes a short time to join the same fsync
+     * @return false when the log is closed and nothing is left to write
+     */
+    private boolean awaitBatch() {
+        lock.lock();
+        try {
+            while (stagedRecords == 0) {
+                if (closed) {
+                    return false;
+                }
+                staged.awaitUninterruptibly();
+            }
+            long remaining = groupCommitNanos;
+            while (!closed && stagedRecords < groupCommitMaxRecords && remaining > 0) {
+                remaining = staged.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with ioLock held
+    private void writeAndSync(long upToLsn) throws IOException {
+        writing.flip();
+        while (writing.hasRemaining()) {
+            segment.write(writing);
+        }
+        writing.clear();
+        segment.force(false);
+        lock.lock();
+        try {
+            durableLsn = Math.max(durableLsn, upToLsn);
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with ioLock held
+    private void openSegment(long firstLsn) throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        // a segment with this name can only be left empty or torn by a crash, it is safe to truncate
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        segment = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // called with lock held
+    private void swapBuffers() {
+        ByteBuffer full = staging;
+        staging = writing;
+        writing = full;
+        stagedRecords = 0;
+    }
+
+    // called with lock held, reserves room for the header and the payload
+    private int beginRecord(int payload) {
+        checkWritable();
+        if (staging.remaining() < HEADER_BYTES + payload) {
+            int size = Math.max(staging.capacity() << 1, staging.position() + HEADER_BYTES + payload);
+            ByteBuffer larger = ByteBuffer.allocate(size);
+            staging.flip();
+            larger.put(staging);
+            staging = larger;
+        }
+        int start = staging.position();
+        staging.position(start + HEADER_BYTES);
+        return start;
+    }
+
+    // called with lock held, fills in the header and wakes the writer
+    private long endRecord(int start, int payload) {
+        crc.reset();
+        crc.update(staging.array(), start + HEADER_BYTES, payload);
+        staging.putInt(start, payload).putInt(start + Integer.BYTES, (int) crc.getValue());
+        if (++stagedRecords == 1 || stagedRecords >= groupCommitMaxRecords) {
+            staged.signalAll();
+        }
+        return lastLsn;
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Student log is no longer writable", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Student log is closed");
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            segments.sort((a, b) -> Long.compare(startLsn(a), startLsn(b)));
+            return segments;
+        }
+    }
+
+    private static long startLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
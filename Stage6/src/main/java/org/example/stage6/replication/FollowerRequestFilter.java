@@ -0,0 +1,105 @@
+package org.example.stage6.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.stage6.response.ErrorDetails;
+import org.example.stage6.response.PrebuiltErrorResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Decides which /student requests a follower serves itself
+ * Writes, and reads the follower cannot answer within its guarantees, are sent to the leader
+ * with 307 Temporary Redirect (method and body are kept):
+ * - a read while the copy is older than the maximum staleness
+ * - a read with Student-Min-Sequence the follower does not reach within the read-your-writes timeout
+ * Answered reads carry the applied leader sequence in Student-Sequence.
+ * Redirects are counted as student.replication.redirects with the tag reason=write|stale|read-your-writes
+ */
+public class FollowerRequestFilter extends OncePerRequestFilter {
+
+    private final ReplicationFollower follower;
+
+    private final ReplicationProperties properties;
+
+    private final PrebuiltErrorResponse invalidMinSequence;
+
+    private final Counter writeRedirects;
+    private final Counter staleRedirects;
+    private final Counter readYourWritesRedirects;
+
+    public FollowerRequestFilter(ReplicationFollower follower, ReplicationProperties properties, MeterRegistry registry,
+                                 ObjectMapper objectMapper) {
+        this.follower = follower;
+        this.properties = properties;
+        this.invalidMinSequence = new PrebuiltErrorResponse(objectMapper,
+                new ErrorDetails("Bad Request", ReplicationHeaders.MIN_SEQUENCE + " must be a number"));
+        this.writeRedirects = redirects(registry, "write");
+        this.staleRedirects = redirects(registry, "stale");
+        this.readYourWritesRedirects = redirects(registry, "read-your-writes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            redirectToLeader(request, response, writeRedirects);
+            return;
+        }
+        String token = request.getHeader(ReplicationHeaders.MIN_SEQUENCE);
+        if (token != null) {
+            long minSequence;
+            try {
+                minSequence = Long.parseLong(token.trim());
+            } catch (NumberFormatException e) {
+                invalidMinSequence.writeTo(response, HttpStatus.BAD_REQUEST.value()); // 400 Bad Request
+                return;
+            }
+            if (!awaitSequence(minSequence)) {
+                redirectToLeader(request, response, readYourWritesRedirects);
+                return;
+            }
+        }
+        if (!follower.isFresh()) {
+            redirectToLeader(request, response, staleRedirects);
+            return;
+        }
+        response.setHeader(ReplicationHeaders.SEQUENCE, Long.toString(follower.getAppliedSequence()));
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Helper method that waits for the follower to apply a sequence, false if it does not in time
+     */
+    private boolean awaitSequence(long sequence) {
+        try {
+            return follower.awaitSequence(sequence, properties.getReadYourWritesTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void redirectToLeader(HttpServletRequest request, HttpServletResponse response, Counter reason) {
+        reason.increment();
+        String query = request.getQueryString();
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value()); // 307 Temporary Redirect
+        response.setHeader(HttpHeaders.LOCATION,
+                follower.getLeaderUrl() + request.getRequestURI() + (query == null ? "" : "?" + query));
+    }
+
+    private static Counter redirects(MeterRegistry registry, String reason) {
+        return Counter.builder("student.replication.redirects")
+                .description("Requests a follower sent to the leader")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
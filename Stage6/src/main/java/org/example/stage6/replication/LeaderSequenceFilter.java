@@ -0,0 +1,87 @@
+package org.example.stage6.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.example.stage6.service.StudentChangeFeed;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Adds the leader's newest change log sequence to every /student response (the read-your-writes token)
+ * The header is set when the response starts, after the controller returned,
+ * so the sequence of a write includes the write itself
+ */
+public class LeaderSequenceFilter extends OncePerRequestFilter {
+
+    private final StudentChangeFeed changeFeed;
+
+    public LeaderSequenceFilter(StudentChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SequenceResponse sequenceResponse = new SequenceResponse(response);
+        chain.doFilter(request, sequenceResponse);
+        // responses without a body, such as 204 No Content
+        if (!response.isCommitted()) {
+            sequenceResponse.addSequence();
+        }
+    }
+
+    /**
+     * Sets the header right before the body is written
+     */
+    private final class SequenceResponse extends HttpServletResponseWrapper {
+
+        private boolean added;
+
+        SequenceResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void addSequence() {
+            if (!added) {
+                added = true;
+                setHeader(ReplicationHeaders.SEQUENCE, Long.toString(changeFeed.getLastSequence()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addSequence();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addSequence();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addSequence();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addSequence();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addSequence();
+            super.sendError(sc, msg);
+        }
+    }
+}
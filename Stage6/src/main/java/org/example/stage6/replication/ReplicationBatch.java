@@ -0,0 +1,15 @@
+package org.example.stage6.replication;
+
+import org.example.stage6.dto.StudentChangeEvent;
+
+import java.util.List;
+
+/**
+ * Consecutive changes of the leader's change log
+ * @param epoch Identifies one run of the leader, see ReplicationSnapshot
+ * @param lastSequence Newest sequence of the leader when the response was made, the follower is caught up
+ *                     once it applied the changes up to it
+ * @param events The changes in sequence order, empty if there was none within the poll wait
+ */
+public record ReplicationBatch(String epoch, long lastSequence, List<StudentChangeEvent> events) {
+}
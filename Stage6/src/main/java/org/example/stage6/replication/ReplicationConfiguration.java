@@ -0,0 +1,112 @@
+package org.example.stage6.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.stage6.cluster.ClusterSecretFilter;
+import org.example.stage6.service.StudentChangeFeed;
+import org.example.stage6.service.StudentService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Leader-follower replication, selected by "student.replication.role"
+ * A leader serves its change log under /replication (ReplicationController) and hands out the read-your-writes token,
+ * a follower copies the leader in the background and serves the reads.
+ * /replication holds the whole store, so it requires the shared secret and followers send it.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationConfiguration {
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "student.replication", name = "role", havingValue = "leader")
+    static class Leader {
+
+        @Bean
+        public FilterRegistrationBean<LeaderSequenceFilter> leaderSequenceFilter(StudentChangeFeed changeFeed) {
+            FilterRegistrationBean<LeaderSequenceFilter> registration = new FilterRegistrationBean<>(new LeaderSequenceFilter(changeFeed));
+            registration.addUrlPatterns("/student/*");
+            return registration;
+        }
+
+        @Bean
+        public FilterRegistrationBean<ClusterSecretFilter> replicationSecretFilter(ReplicationProperties properties,
+                                                                               ObjectMapper objectMapper) {
+            FilterRegistrationBean<ClusterSecretFilter> registration = new FilterRegistrationBean<>(new ClusterSecretFilter(
+                    ReplicationHeaders.SECRET, requiredSecret(properties), "the followers", "/replication", objectMapper));
+            registration.addUrlPatterns("/replication/*");
+            return registration;
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "student.replication", name = "role", havingValue = "follower")
+    static class Follower {
+
+        @Bean
+        public ReplicationFollower replicationFollower(ReplicationProperties properties, StudentService studentService,
+                                                       RestClient.Builder restClientBuilder, ObjectMapper objectMapper) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(properties.getTimeout())
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            // a request for changes waits up to the poll wait at the leader before it is answered
+            requestFactory.setReadTimeout(properties.getTimeout().plus(properties.getPollWait()));
+            RestClient restClient = restClientBuilder
+                    .requestFactory(requestFactory)
+                    .defaultHeader(ReplicationHeaders.SECRET, requiredSecret(properties))
+                    .build();
+            return new ReplicationFollower(properties, studentService, restClient, objectMapper);
+        }
+
+        @Bean
+        public FilterRegistrationBean<FollowerRequestFilter> followerRequestFilter(ReplicationFollower follower,
+                                                                                  ReplicationProperties properties,
+                                                                                  MeterRegistry registry,
+                                                                                  ObjectMapper objectMapper) {
+            FilterRegistrationBean<FollowerRequestFilter> registration =
+                    new FilterRegistrationBean<>(new FollowerRequestFilter(follower, properties, registry, objectMapper));
+            registration.addUrlPatterns("/student/*");
+            return registration;
+        }
+
+        /**
+         * Publishes student.replication.lag (changes not applied yet)
+         * and student.replication.staleness (seconds, NaN before the first snapshot)
+         */
+        @Bean
+        public MeterBinder replicationMetrics(ReplicationFollower follower) {
+            return registry -> {
+                Gauge.builder("student.replication.lag", follower, ReplicationFollower::getLag)
+                        .description("Changes of the leader not applied on this follower yet")
+                        .register(registry);
+                Gauge.builder("student.replication.staleness", follower, f -> {
+                            Duration staleness = f.getStaleness();
+                            return staleness == null ? Double.NaN : staleness.toNanos() / 1e9;
+                        })
+                        .description("Age of the oldest change that may be missing on this follower")
+                        .baseUnit("seconds")
+                        .register(registry);
+            };
+        }
+    }
+
+    private static String requiredSecret(ReplicationProperties properties) {
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            throw new IllegalStateException("student.replication.secret must be set when student.replication.role is "
+                    + properties.getRole().name().toLowerCase());
+        }
+        return properties.getSecret();
+    }
+}
@@ -0,0 +1,303 @@
+package org.example.stage6.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.stage6.cluster.StudentCopy;
+import org.example.stage6.dto.StudentChangeEvent;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.exception.VersionMismatch;
+import org.example.stage6.service.StudentService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the local students a copy of the leader's, in a background thread
+ * It loads a snapshot of the leader first, then asks the leader for the changes after the last applied one
+ * and applies them in sequence order. Changes are applied by version, so a change the snapshot already
+ * contained is skipped. When the leader no longer keeps the needed changes, or restarted, the follower
+ * loads a new snapshot.
+ * <p>
+ * The follower knows how fresh its copy is: everything the leader had when the follower last found itself
+ * caught up is applied, isFresh tells whether that was within the maximum staleness.
+ */
+public class ReplicationFollower {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private final ReplicationProperties properties;
+
+    private final StudentService local;
+
+    private final RestClient restClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+
+    // leader sequence of the last applied change, guarded by lock, volatile for the lock-free readers
+    private volatile long appliedSequence;
+
+    // the leader's newest sequence, as of its last answer
+    private volatile long leaderSequence;
+
+    // false until the first snapshot is loaded, and while a new one is loaded
+    private volatile boolean synced;
+
+    // System.nanoTime() of the request after which the follower had every change of the leader
+    private volatile long caughtUpAt;
+
+    private volatile boolean running;
+
+    private String epoch;
+
+    private Thread puller;
+
+    public ReplicationFollower(ReplicationProperties properties, StudentService local, RestClient restClient,
+                               ObjectMapper objectMapper) {
+        if (properties.getLeaderUrl() == null || properties.getLeaderUrl().isBlank()) {
+            throw new IllegalStateException("student.replication.leader-url must be set when student.replication.role is follower");
+        }
+        this.properties = properties;
+        this.local = local;
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+    }
+
+    public String getLeaderUrl() {
+        return properties.getLeaderUrl();
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Number of the leader's changes not applied here yet, as of the leader's last answer
+     */
+    public long getLag() {
+        return Math.max(0, leaderSequence - appliedSequence);
+    }
+
+    /**
+     * How old the copy may be: every change older than this is applied, null before the first snapshot
+     */
+    public Duration getStaleness() {
+        return synced ? Duration.ofNanos(System.nanoTime() - caughtUpAt) : null;
+    }
+
+    /**
+     * Whether reads may be served here, the copy is at most the maximum staleness behind the leader
+     */
+    public boolean isFresh() {
+        return synced && System.nanoTime() - caughtUpAt <= properties.getMaxStaleness().toNanos();
+    }
+
+    /**
+     * Wait until the changes up to a leader sequence are applied here
+     * @return true if they are, false if the timeout elapsed first
+     */
+    public boolean awaitSequence(long sequence, Duration timeout) throws InterruptedException {
+        if (synced && appliedSequence >= sequence) {
+            return true;
+        }
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (!synced || appliedSequence < sequence) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = advanced.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts copying once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        puller = new Thread(this::run, "student-replication");
+        puller.setDaemon(true);
+        puller.start();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() throws InterruptedException {
+        running = false;
+        if (puller != null) {
+            puller.interrupt();
+            puller.join(properties.getTimeout().toMillis());
+        }
+    }
+
+    private void run() {
+        boolean needsSnapshot = true;
+        while (running) {
+            try {
+                if (needsSnapshot) {
+                    loadSnapshot();
+                }
+                needsSnapshot = !pullChanges();
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cannot replicate from leader {}: {}", properties.getLeaderUrl(), e.getMessage());
+                try {
+                    Thread.sleep(properties.getRetryInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Make the local students exactly the leader's snapshot
+     * Students the leader does not have, or has in another version, are removed first,
+     * then the leader's students are imported. Reads go to the leader meanwhile.
+     */
+    private void loadSnapshot() {
+        long requestedAt = System.nanoTime();
+        ReplicationSnapshot snapshot = objectMapper.convertValue(get(uri("/replication/snapshot").build().toUri()),
+                ReplicationSnapshot.class);
+        synced = false;
+        Map<Long, Long> leaderVersions = new HashMap<>();
+        for (StudentCopy student : snapshot.students()) {
+            leaderVersions.put(student.id(), student.version());
+        }
+        for (StudentDto student : local.getAllStudents()) {
+            Long version = leaderVersions.get(student.getId());
+            if (version == null || version != student.getVersion()) {
+                delete(student.getId(), student.getVersion());
+            }
+        }
+        local.importStudents(snapshot.students().stream().map(StudentCopy::toDto).toList());
+        epoch = snapshot.epoch();
+        leaderSequence = snapshot.sequence();
+        caughtUpAt = requestedAt;
+        advanceTo(snapshot.sequence(), true);
+        log.info("Loaded {} students from leader {} at sequence {}", snapshot.students().size(),
+                properties.getLeaderUrl(), snapshot.sequence());
+    }
+
+    /**
+     * Fetch and apply the next changes, waits at the leader when there are none
+     * @return false if a new snapshot is needed
+     */
+    private boolean pullChanges() {
+        long requestedAt = System.nanoTime();
+        ReplicationBatch batch;
+        try {
+            batch = objectMapper.convertValue(get(uri("/replication/log")
+                    .queryParam("from", appliedSequence + 1)
+                    .build().toUri()), ReplicationBatch.class);
+        } catch (HttpClientErrorException.Gone e) {
+            log.info("Leader {} no longer keeps the changes after {}, loading a snapshot", properties.getLeaderUrl(), appliedSequence);
+            return false;
+        }
+        if (!batch.epoch().equals(epoch)) {
+            log.info("Leader {} restarted, loading a snapshot", properties.getLeaderUrl());
+            return false;
+        }
+        apply(batch.events());
+        leaderSequence = batch.lastSequence();
+        if (appliedSequence >= batch.lastSequence()) {
+            caughtUpAt = requestedAt;
+        }
+        return true;
+    }
+
+    /**
+     * Helper method that applies changes in sequence order
+     * Consecutive adds and updates are imported together, only a newer version replaces a student
+     */
+    private void apply(List<StudentChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<StudentDto> copies = new ArrayList<>();
+        for (StudentChangeEvent event : events) {
+            if (event.getType() == StudentChangeEvent.Type.DELETED) {
+                importAll(copies);
+                delete(event.getId(), event.getVersion());
+            } else {
+                // the version is not read from a StudentDto in JSON, the event carries it
+                StudentDto student = event.getStudent();
+                student.setVersion(event.getVersion());
+                copies.add(student);
+            }
+        }
+        importAll(copies);
+        advanceTo(events.get(events.size() - 1).getSequence(), false);
+    }
+
+    private void importAll(List<StudentDto> copies) {
+        if (!copies.isEmpty()) {
+            local.importStudents(copies);
+            copies.clear();
+        }
+    }
+
+    /**
+     * Helper method that removes a student only in the given version
+     */
+    private void delete(Long id, long version) {
+        try {
+            local.deleteStudent(id, version);
+        } catch (NotExists | VersionMismatch e) {
+            // already gone or newer here, the snapshot contained a later state
+        }
+    }
+
+    private void advanceTo(long sequence, boolean snapshot) {
+        lock.lock();
+        try {
+            appliedSequence = sequence;
+            if (snapshot) {
+                synced = true;
+            }
+            advanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UriComponentsBuilder uri(String path) {
+        return UriComponentsBuilder.fromUriString(properties.getLeaderUrl()).path(path);
+    }
+
+    /**
+     * Helper method that returns the data of the leader's StandardResponse
+     */
+    private JsonNode get(URI uri) {
+        JsonNode response = restClient.get().uri(uri).accept(MediaType.APPLICATION_JSON).retrieve().body(JsonNode.class);
+        if (response == null) {
+            throw new IllegalStateException("Leader " + properties.getLeaderUrl() + " sent an empty response");
+        }
+        return response.path("data");
+    }
+}
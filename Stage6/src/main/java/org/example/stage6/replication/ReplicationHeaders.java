@@ -0,0 +1,28 @@
+package org.example.stage6.replication;
+
+/**
+ * HTTP headers of the read-your-writes token, and of the secret that guards /replication
+ * The leader returns the newest sequence of its change log with every /student response, after a write it covers that write.
+ * A client that must see its own writes sends the token back to a follower,
+ * which answers only once it has applied the changes up to that sequence.
+ */
+public final class ReplicationHeaders {
+
+    /**
+     * Response header: the leader's newest sequence, or the sequence a follower has applied
+     */
+    public static final String SEQUENCE = "Student-Sequence";
+
+    /**
+     * Request header to a follower: the sequence its answer has to include
+     */
+    public static final String MIN_SEQUENCE = "Student-Min-Sequence";
+
+    /**
+     * Request header of a follower's calls to the leader's /replication: the shared secret of student.replication.secret
+     */
+    public static final String SECRET = "Replication-Secret";
+
+    private ReplicationHeaders() {
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.stage6.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of leader-follower replication, bound from "student.replication.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.replication")
+public class ReplicationProperties {
+
+    /**
+     * leader serves its change log to followers, follower keeps a copy of the leader and serves reads from it
+     */
+    private Role role = Role.NONE;
+
+    /**
+     * Base URL of the leader, used by followers
+     */
+    private String leaderUrl;
+
+    /**
+     * Shared secret of the leader and its followers, sent in the Replication-Secret header
+     * of every call to /replication, required for both roles
+     */
+    private String secret;
+
+    /**
+     * Timeout of a follower's calls to the leader, a request for new changes gets the poll wait on top
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * How long a follower's request for new changes waits at the leader when there are none
+     */
+    private Duration pollWait = Duration.ofSeconds(1);
+
+    /**
+     * Maximum number of changes the leader sends in one response
+     */
+    private int batchSize = 1024;
+
+    /**
+     * A follower sends reads to the leader while its copy may be older than this
+     */
+    private Duration maxStaleness = Duration.ofSeconds(5);
+
+    /**
+     * How long a read with Student-Min-Sequence waits for the follower to get there before it goes to the leader
+     */
+    private Duration readYourWritesTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Pause of a follower before it calls the leader again after a failed call
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+
+    public enum Role {
+        NONE,
+        LEADER,
+        FOLLOWER
+    }
+}
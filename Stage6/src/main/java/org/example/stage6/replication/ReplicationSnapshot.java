@@ -0,0 +1,14 @@
+package org.example.stage6.replication;
+
+import org.example.stage6.cluster.StudentCopy;
+
+import java.util.List;
+
+/**
+ * All students of the leader, a follower starts from it
+ * @param epoch Identifies one run of the leader, its sequences start over when it restarts
+ * @param sequence Last change log sequence read before the students, the follower continues after it
+ * @param students The students with their versions, they may already contain changes after the sequence
+ */
+public record ReplicationSnapshot(String epoch, long sequence, List<StudentCopy> students) {
+}
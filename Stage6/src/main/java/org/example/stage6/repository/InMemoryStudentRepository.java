@@ -0,0 +1,153 @@
+package org.example.stage6.repository;
+
+import org.example.stage6.model.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe in-memory implementation of StudentRepository
+ * Students are indexed by ID, so get/put/remove are O(1) instead of a list scan
+ * A sorted set of the IDs is kept next to the map for keyset pagination
+ * Single changes share the batch lock, a batch takes it exclusively, readers never take it
+ */
+public class InMemoryStudentRepository implements StudentRepository {
+
+    private final ConcurrentMap<Long, Student> students = new ConcurrentHashMap<>();
+
+    // sorted IDs, only changed inside the map's per-key compute so both stay consistent
+    private final ConcurrentSkipListSet<Long> sortedIds = new ConcurrentSkipListSet<>();
+
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    @Override
+    public List<Student> findAll() {
+        return new ArrayList<>(students.values());
+    }
+
+    @Override
+    public List<Student> findPage(Long afterId, int limit) {
+        NavigableSet<Long> ids = afterId == null ? sortedIds : sortedIds.tailSet(afterId, false);
+        List<Student> page = new ArrayList<>(Math.min(limit, students.size()));
+        for (Long id : ids) {
+            if (page.size() == limit) {
+                break;
+            }
+            Student student = students.get(id);
+            // skip a student removed between reading the ID and the record
+            if (student != null) {
+                page.add(student);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public Optional<Student> findById(Long id) {
+        return Optional.ofNullable(students.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return students.containsKey(id);
+    }
+
+    @Override
+    public boolean insertIfAbsent(Student student) {
+        batchLock.readLock().lock();
+        try {
+            boolean[] inserted = {false};
+            students.computeIfAbsent(student.getId(), id -> {
+                sortedIds.add(id);
+                inserted[0] = true;
+                return student;
+            });
+            return inserted[0];
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Student replaceIfPresent(Student student) {
+        batchLock.readLock().lock();
+        try {
+            // replace() is atomic, the stored object is swapped and never mutated in place
+            return students.replace(student.getId(), student);
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Student replaceIfVersion(Student student, long expectedVersion) {
+        batchLock.readLock().lock();
+        try {
+            Student[] found = {null};
+            students.computeIfPresent(student.getId(), (id, current) -> {
+                found[0] = current;
+                return current.getVersion() == expectedVersion ? student : current;
+            });
+            return found[0];
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Student removeIfVersion(Long id, long expectedVersion) {
+        batchLock.readLock().lock();
+        try {
+            Student[] found = {null};
+            students.computeIfPresent(id, (key, current) -> {
+                found[0] = current;
+                if (current.getVersion() != expectedVersion) {
+                    return current;
+                }
+                sortedIds.remove(key);
+                return null;
+            });
+            return found[0];
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Student removeById(Long id) {
+        batchLock.readLock().lock();
+        try {
+            Student[] removed = {null};
+            students.computeIfPresent(id, (key, current) -> {
+                sortedIds.remove(key);
+                removed[0] = current;
+                return null;
+            });
+            return removed[0];
+        } finally {
+            batchLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        return students.size();
+    }
+
+    @Override
+    public <T> T executeAtomically(Supplier<T> work) {
+        batchLock.writeLock().lock();
+        try {
+            return work.get();
+        } finally {
+            batchLock.writeLock().unlock();
+        }
+    }
+}
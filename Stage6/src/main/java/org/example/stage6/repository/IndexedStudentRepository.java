@@ -0,0 +1,342 @@
+package org.example.stage6.repository;
+
+import org.example.stage6.model.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * StudentRepository decorator that maintains secondary indexes for search()
+ * Sorted indexes on the normalized last name and first name answer prefix searches,
+ * a sorted index on age answers range searches. Each entry also holds the student ID,
+ * so students with equal values get separate entries.
+ * <p>
+ * The indexes are updated together with every change, under a lock striped by student ID,
+ * so two changes of the same student always update the indexes in order.
+ * Searches never lock: every hit is re-read from the store and checked again,
+ * so a search never returns a student that does not match.
+ * A batch remembers its index changes and undoes them when the store fails to apply it.
+ * <p>
+ * Closing it closes the store underneath, this decorator is the bean Spring shuts down.
+ */
+public class IndexedStudentRepository implements StudentRepository, Closeable {
+
+    private static final int STRIPES = 64;
+
+    private final StudentRepository delegate;
+
+    private final NavigableSet<NameKey> lastNameIndex = new ConcurrentSkipListSet<>();
+    private final NavigableSet<NameKey> firstNameIndex = new ConcurrentSkipListSet<>();
+    private final NavigableSet<AgeKey> ageIndex = new ConcurrentSkipListSet<>();
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // index changes of the running batch, only used by the thread holding every stripe
+    private List<IndexChange> batchChanges;
+
+    public IndexedStudentRepository(StudentRepository delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        // index whatever the store already holds (recovered students)
+        for (Student student : delegate.findAll()) {
+            addToIndexes(student);
+        }
+    }
+
+    @Override
+    public List<Student> search(StudentSearchCriteria criteria, int limit) {
+        Iterator<Long> candidates = candidates(criteria);
+        List<Student> result = new ArrayList<>(Math.min(limit, 64));
+        while (result.size() < limit && candidates.hasNext()) {
+            delegate.findById(candidates.next())
+                    .filter(criteria::matches)
+                    .ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Student> findPage(Long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<Student> findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public boolean insertIfAbsent(Student student) {
+        ReentrantLock stripe = stripeOf(student.getId());
+        stripe.lock();
+        try {
+            if (!delegate.insertIfAbsent(student)) {
+                return false;
+            }
+            reindex(null, student);
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Student replaceIfPresent(Student student) {
+        ReentrantLock stripe = stripeOf(student.getId());
+        stripe.lock();
+        try {
+            Student previous = delegate.replaceIfPresent(student);
+            if (previous != null) {
+                reindex(previous, student);
+            }
+            return previous;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Student replaceIfVersion(Student student, long expectedVersion) {
+        ReentrantLock stripe = stripeOf(student.getId());
+        stripe.lock();
+        try {
+            Student found = delegate.replaceIfVersion(student, expectedVersion);
+            if (found != null && found.getVersion() == expectedVersion) {
+                reindex(found, student);
+            }
+            return found;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Student removeIfVersion(Long id, long expectedVersion) {
+        ReentrantLock stripe = stripeOf(id);
+        stripe.lock();
+        try {
+            Student found = delegate.removeIfVersion(id, expectedVersion);
+            if (found != null && found.getVersion() == expectedVersion) {
+                reindex(found, null);
+            }
+            return found;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Student removeById(Long id) {
+        ReentrantLock stripe = stripeOf(id);
+        stripe.lock();
+        try {
+            Student removed = delegate.removeById(id);
+            if (removed != null) {
+                reindex(removed, null);
+            }
+            return removed;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    /**
+     * A batch takes every stripe (always in the same order) before the store's batch lock,
+     * the same lock order single changes use
+     */
+    @Override
+    public <T> T executeAtomically(Supplier<T> work) {
+        return executeAtomically(work, result -> {
+        });
+    }
+
+    /**
+     * Same locks as executeAtomically, if the store fails the batch its index changes are undone, newest first
+     */
+    @Override
+    public <T> T executeAtomically(Supplier<T> work, Consumer<? super T> committed) {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            // a nested batch is part of the running one
+            if (batchChanges != null) {
+                return delegate.executeAtomically(work, committed);
+            }
+            batchChanges = new ArrayList<>();
+            boolean[] stored = {false};
+            try {
+                return delegate.executeAtomically(work, result -> {
+                    stored[0] = true;
+                    committed.accept(result);
+                });
+            } catch (Throwable e) {
+                List<IndexChange> changes = batchChanges;
+                batchChanges = null;
+                if (!stored[0]) {
+                    for (int i = changes.size() - 1; i >= 0; i--) {
+                        reindex(changes.get(i).added(), changes.get(i).removed());
+                    }
+                }
+                throw e;
+            } finally {
+                batchChanges = null;
+            }
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Holds the stripe of the student, the changes made by the work take it again (the lock is reentrant)
+     */
+    @Override
+    public <T> T executeAtomicallyFor(Long id, Supplier<T> work) {
+        ReentrantLock stripe = stripeOf(id);
+        stripe.lock();
+        try {
+            return work.get();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Pick the index that drives the search, the other criteria are checked on each hit
+     */
+    private Iterator<Long> candidates(StudentSearchCriteria criteria) {
+        if (criteria.getLastNamePrefix() != null) {
+            return ids(prefixRange(lastNameIndex, criteria.getLastNamePrefix()).iterator());
+        }
+        if (criteria.getFirstNamePrefix() != null) {
+            return ids(prefixRange(firstNameIndex, criteria.getFirstNamePrefix()).iterator());
+        }
+        double min = criteria.getMinAge() != null ? criteria.getMinAge() : Double.NEGATIVE_INFINITY;
+        double max = criteria.getMaxAge() != null ? criteria.getMaxAge() : Double.POSITIVE_INFINITY;
+        if (min > max) {
+            return List.<Long>of().iterator();
+        }
+        return ids(ageIndex
+                .subSet(new AgeKey(min, Long.MIN_VALUE), true, new AgeKey(max, Long.MAX_VALUE), true)
+                .iterator());
+    }
+
+    private static NavigableSet<NameKey> prefixRange(NavigableSet<NameKey> index, String prefix) {
+        String from = StudentSearchCriteria.normalize(prefix);
+        // every name starting with the prefix sorts before prefix + the highest char
+        String to = from + Character.MAX_VALUE;
+        return index.subSet(new NameKey(from, Long.MIN_VALUE), true, new NameKey(to, Long.MIN_VALUE), false);
+    }
+
+    private static Iterator<Long> ids(Iterator<? extends IndexKey> keys) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                return keys.next().id();
+            }
+        };
+    }
+
+    /**
+     * Helper method that moves a student in the indexes from its old state to its new one, either may be null
+     */
+    private void reindex(Student removed, Student added) {
+        if (removed != null) {
+            removeFromIndexes(removed);
+        }
+        if (added != null) {
+            addToIndexes(added);
+        }
+        if (batchChanges != null) {
+            batchChanges.add(new IndexChange(removed, added));
+        }
+    }
+
+    private void addToIndexes(Student student) {
+        lastNameIndex.add(new NameKey(StudentSearchCriteria.normalize(student.getLastName()), student.getId()));
+        firstNameIndex.add(new NameKey(StudentSearchCriteria.normalize(student.getFirstName()), student.getId()));
+        ageIndex.add(new AgeKey(student.getAge(), student.getId()));
+    }
+
+    private void removeFromIndexes(Student student) {
+        lastNameIndex.remove(new NameKey(StudentSearchCriteria.normalize(student.getLastName()), student.getId()));
+        firstNameIndex.remove(new NameKey(StudentSearchCriteria.normalize(student.getFirstName()), student.getId()));
+        ageIndex.remove(new AgeKey(student.getAge(), student.getId()));
+    }
+
+    private ReentrantLock stripeOf(Long id) {
+        return stripes[Long.hashCode(id) & (STRIPES - 1)];
+    }
+
+    /**
+     * One index change of a batch
+     */
+    private record IndexChange(Student removed, Student added) {
+    }
+
+    private interface IndexKey {
+        long id();
+    }
+
+    /**
+     * Entry of a name index, ordered by name then ID
+     */
+    private record NameKey(String name, long id) implements IndexKey, Comparable<NameKey> {
+        @Override
+        public int compareTo(NameKey other) {
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Entry of the age index, ordered by age then ID
+     */
+    private record AgeKey(double age, long id) implements IndexKey, Comparable<AgeKey> {
+        @Override
+        public int compareTo(AgeKey other) {
+            int byAge = Double.compare(age, other.age);
+            return byAge != 0 ? byAge : Long.compare(id, other.id);
+        }
+    }
+}
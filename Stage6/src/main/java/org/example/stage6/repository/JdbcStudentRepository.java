@@ -0,0 +1,477 @@
+package org.example.stage6.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.stage6.model.Student;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * StudentRepository backed by a relational database through plain JDBC, an embedded H2 database by default
+ * - connections come from a HikariCP pool, the table is created at startup if it is missing
+ * - lookups by ID use the primary key index, keyset pages are ranges of the same index
+ * - a Caffeine cache in front of findById answers repeated reads without a query
+ * - a single change runs in its own transaction and locks the row with SELECT ... FOR UPDATE
+ * - a batch (executeAtomically) runs in one transaction that is committed when the batch ends,
+ *   its changes are collected in memory and written as JDBC statement batches, at the end
+ *   or before a read that needs them, so it is applied completely or not at all
+ * Single changes share the batch lock, a batch takes it exclusively, readers never take it
+ */
+public class JdbcStudentRepository implements StudentRepository, Closeable {
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS student (
+                id BIGINT PRIMARY KEY,
+                first_name VARCHAR(50) NOT NULL,
+                last_name VARCHAR(50) NOT NULL,
+                age DOUBLE PRECISION NOT NULL,
+                version BIGINT NOT NULL
+            )""";
+
+    private static final String SELECT = "SELECT id, first_name, last_name, age, version FROM student";
+    private static final String FIND_BY_ID = SELECT + " WHERE id = ?";
+    private static final String LOCK_BY_ID = FIND_BY_ID + " FOR UPDATE";
+    private static final String FIND_ALL = SELECT + " ORDER BY id";
+    private static final String FIRST_PAGE = SELECT + " ORDER BY id LIMIT ?";
+    private static final String NEXT_PAGE = SELECT + " WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String EXISTS = "SELECT 1 FROM student WHERE id = ?";
+    private static final String COUNT = "SELECT COUNT(*) FROM student";
+    // insert and update take their parameters in the same order, see bind()
+    private static final String INSERT = "INSERT INTO student (first_name, last_name, age, version, id) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE student SET first_name = ?, last_name = ?, age = ?, version = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM student WHERE id = ?";
+
+    private final HikariDataSource dataSource;
+
+    private final int batchSize;
+
+    // read-through cache of findById, an entry is dropped after every committed change of its student
+    private final Cache<Long, Student> cache;
+
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    // changes of the running batch by student ID and the connection of its transaction,
+    // only used by the thread holding the write lock
+    private Map<Long, PendingChange> pending;
+
+    private Connection batchConnection;
+
+    // committed steps of nested batches, they run once the outer batch is committed
+    private List<Runnable> afterCommit;
+
+    public JdbcStudentRepository(StudentRepositoryProperties.Jdbc settings) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("students");
+        config.setJdbcUrl(settings.getUrl());
+        config.setUsername(settings.getUsername());
+        config.setPassword(settings.getPassword());
+        config.setMaximumPoolSize(settings.getMaximumPoolSize());
+        this.dataSource = new HikariDataSource(config);
+        this.batchSize = settings.getBatchSize();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.getCacheMaximumSize())
+                .build();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+        } catch (SQLException e) {
+            dataSource.close();
+            throw new IllegalStateException("Cannot create the student table in " + settings.getUrl(), e);
+        }
+    }
+
+    @Override
+    public List<Student> findAll() {
+        if (inBatch()) {
+            return query(flushed(), FIND_ALL);
+        }
+        return query(FIND_ALL);
+    }
+
+    @Override
+    public List<Student> findPage(Long afterId, int limit) {
+        if (inBatch()) {
+            Connection connection = flushed();
+            return afterId == null ? query(connection, FIRST_PAGE, limit) : query(connection, NEXT_PAGE, afterId, limit);
+        }
+        return afterId == null ? query(FIRST_PAGE, limit) : query(NEXT_PAGE, afterId, limit);
+    }
+
+    @Override
+    public Optional<Student> findById(Long id) {
+        if (inBatch()) {
+            return Optional.ofNullable(pendingChange(id).student);
+        }
+        return Optional.ofNullable(cache.get(id, this::select));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        if (inBatch()) {
+            return pendingChange(id).student != null;
+        }
+        if (cache.getIfPresent(id) != null) {
+            return true;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = prepare(connection, EXISTS, id);
+             ResultSet rows = statement.executeQuery()) {
+            return rows.next();
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Student student) {
+        try {
+            return change(student.getId(), current -> current == null ? student : current) == null;
+        } catch (DuplicateId e) {
+            // another thread inserted the same ID between our check and our insert
+            return false;
+        }
+    }
+
+    @Override
+    public Student replaceIfPresent(Student student) {
+        return change(student.getId(), current -> current == null ? null : student);
+    }
+
+    @Override
+    public Student replaceIfVersion(Student student, long expectedVersion) {
+        return change(student.getId(), current ->
+                current != null && current.getVersion() == expectedVersion ? student : current);
+    }
+
+    @Override
+    public Student removeIfVersion(Long id, long expectedVersion) {
+        return change(id, current ->
+                current != null && current.getVersion() == expectedVersion ? null : current);
+    }
+
+    @Override
+    public Student removeById(Long id) {
+        return change(id, current -> null);
+    }
+
+    @Override
+    public long count() {
+        if (inBatch()) {
+            return count(flushed());
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            return count(connection);
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public <T> T executeAtomically(Supplier<T> work) {
+        return executeAtomically(work, result -> {
+        });
+    }
+
+    /**
+     * The transaction of the batch is committed before committed runs, a failed batch is rolled back
+     */
+    @Override
+    public <T> T executeAtomically(Supplier<T> work, Consumer<? super T> committed) {
+        batchLock.writeLock().lock();
+        try {
+            // a nested call is part of the batch that is already running
+            if (pending != null) {
+                T result = work.get();
+                afterCommit.add(() -> committed.accept(result));
+                return result;
+            }
+            T result;
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                batchConnection = connection;
+                pending = new LinkedHashMap<>();
+                afterCommit = new ArrayList<>();
+                try {
+                    result = work.get();
+                    flush();
+                    connection.commit();
+                } catch (Throwable e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    // whether the batch was written or thrown away, no cached entry of it may survive
+                    cache.invalidateAll(pending.keySet());
+                    pending = null;
+                    batchConnection = null;
+                }
+            } catch (SQLException e) {
+                throw failed(e);
+            }
+            List<Runnable> nested = afterCommit;
+            afterCommit = null;
+            nested.forEach(Runnable::run);
+            committed.accept(result);
+            return result;
+        } finally {
+            afterCommit = null;
+            batchLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Close the connection pool, an in-memory database without DB_CLOSE_DELAY=-1 is dropped with it
+     */
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    /**
+     * Helper method that applies one change of a student
+     * Inside a batch the change only updates the pending state of the batch,
+     * otherwise it runs in its own transaction with the row locked and the cached student is dropped afterwards
+     * @param id The student ID
+     * @param change Gets the stored student (null if none) and returns the new one, null to remove it,
+     *               or the stored one to leave it unchanged
+     * @return The student stored before the change, or null
+     */
+    private Student change(Long id, UnaryOperator<Student> change) {
+        if (inBatch()) {
+            PendingChange pendingChange = pendingChange(id);
+            Student current = pendingChange.student;
+            pendingChange.student = change.apply(current);
+            return current;
+        }
+        batchLock.readLock().lock();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Student current = first(connection, LOCK_BY_ID, id);
+                Student next = change.apply(current);
+                if (next != current) {
+                    write(connection, current, next, id);
+                }
+                connection.commit();
+                return current;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            throw new DuplicateId();
+        } catch (SQLException e) {
+            throw failed(e);
+        } finally {
+            batchLock.readLock().unlock();
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Helper method that writes the difference between two states of one student
+     */
+    private static void write(Connection connection, Student current, Student next, Long id) throws SQLException {
+        String sql = current == null ? INSERT : next == null ? DELETE : UPDATE;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (next == null) {
+                statement.setLong(1, id);
+            } else {
+                bind(statement, next);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Helper method that writes the pending changes of the running batch into its transaction without committing it,
+     * each kind of statement as JDBC batches of at most batchSize rows
+     */
+    private void flush() {
+        List<Student> inserts = new ArrayList<>();
+        List<Student> updates = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        pending.forEach((id, change) -> {
+            if (change.student == change.original) {
+                return;
+            }
+            if (change.original == null) {
+                inserts.add(change.student);
+            } else if (change.student == null) {
+                deletes.add(id);
+            } else {
+                updates.add(change.student);
+            }
+        });
+        if (inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+        try {
+            // every ID appears in only one of the lists, so the order of the statements does not matter
+            try (PreparedStatement statement = batchConnection.prepareStatement(DELETE)) {
+                for (int i = 0; i < deletes.size(); i++) {
+                    statement.setLong(1, deletes.get(i));
+                    addToBatch(statement, i, deletes.size());
+                }
+            }
+            writeBatch(batchConnection, UPDATE, updates);
+            writeBatch(batchConnection, INSERT, inserts);
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+        // after a flush in the middle of the batch its transaction holds these changes, the next flush writes only newer ones
+        pending.values().forEach(change -> change.original = change.student);
+    }
+
+    private void writeBatch(Connection connection, String sql, List<Student> students) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < students.size(); i++) {
+                bind(statement, students.get(i));
+                addToBatch(statement, i, students.size());
+            }
+        }
+    }
+
+    /**
+     * Helper method that adds the bound parameters to the statement batch,
+     * and sends the batch when it is full or the last row was added
+     */
+    private void addToBatch(PreparedStatement statement, int row, int rows) throws SQLException {
+        statement.addBatch();
+        if ((row + 1) % batchSize == 0 || row + 1 == rows) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Helper method for a read in the middle of a batch that cannot use the pending changes by ID,
+     * the changes so far are written into the transaction of the batch, which the read then uses to see them
+     */
+    private Connection flushed() {
+        flush();
+        return batchConnection;
+    }
+
+    private boolean inBatch() {
+        return batchLock.isWriteLockedByCurrentThread() && pending != null;
+    }
+
+    private PendingChange pendingChange(Long id) {
+        return pending.computeIfAbsent(id, key -> new PendingChange(select(key)));
+    }
+
+    private Student select(Long id) {
+        if (inBatch()) {
+            try {
+                return first(batchConnection, FIND_BY_ID, id);
+            } catch (SQLException e) {
+                throw failed(e);
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            return first(connection, FIND_BY_ID, id);
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+    }
+
+    private static Student first(Connection connection, String sql, Long id) throws SQLException {
+        try (PreparedStatement statement = prepare(connection, sql, id);
+             ResultSet rows = statement.executeQuery()) {
+            return rows.next() ? student(rows) : null;
+        }
+    }
+
+    private List<Student> query(String sql, Object... parameters) {
+        try (Connection connection = dataSource.getConnection()) {
+            return query(connection, sql, parameters);
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+    }
+
+    private static List<Student> query(Connection connection, String sql, Object... parameters) {
+        try (PreparedStatement statement = prepare(connection, sql, parameters);
+             ResultSet rows = statement.executeQuery()) {
+            List<Student> students = new ArrayList<>();
+            while (rows.next()) {
+                students.add(student(rows));
+            }
+            return students;
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+    }
+
+    private static long count(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement(COUNT);
+             ResultSet rows = statement.executeQuery()) {
+            rows.next();
+            return rows.getLong(1);
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object... parameters) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+        return statement;
+    }
+
+    private static void bind(PreparedStatement statement, Student student) throws SQLException {
+        statement.setString(1, student.getFirstName());
+        statement.setString(2, student.getLastName());
+        statement.setDouble(3, student.getAge());
+        statement.setLong(4, student.getVersion());
+        statement.setLong(5, student.getId());
+    }
+
+    private static Student student(ResultSet rows) throws SQLException {
+        return new Student(rows.getLong(1), rows.getString(2), rows.getString(3), rows.getDouble(4), rows.getLong(5));
+    }
+
+    private static IllegalStateException failed(SQLException e) {
+        return new IllegalStateException("Student database failed: " + e.getMessage(), e);
+    }
+
+    /**
+     * State of one student inside a batch: as stored before the batch and as changed by it
+     */
+    private static final class PendingChange {
+        Student original;
+        Student student;
+
+        PendingChange(Student original) {
+            this.original = original;
+            this.student = original;
+        }
+    }
+
+    /**
+     * The insert lost the race for its ID against another transaction
+     */
+    private static final class DuplicateId extends RuntimeException {
+        DuplicateId() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.stage6.repository;
+
+import java.util.Arrays;
+
+/**
+ * Primitive open-addressing hash map from long keys to int values
+ * Used as the id to slot index of the off-heap store, so lookups never box a Long
+ * Not thread-safe, the owning repository guards it with its lock
+ */
+class LongIntHashIndex {
+
+    static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntHashIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the value stored for a key
+     * The probe is bounded by the table length, so a racing optimistic reader always terminates,
+     * its result is only trusted after the caller validated the lock stamp
+     * @return The value, or MISSING if the key is not present
+     */
+    int get(long key) {
+        long[] k = keys;
+        int[] v = values;
+        int mask = k.length - 1;
+        int i = mix(key) & mask;
+        for (int probes = 0; probes < k.length; probes++) {
+            int value = v[i];
+            if (value == MISSING) {
+                return MISSING;
+            }
+            if (k[i] == key) {
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Store a value for a key, replacing any previous value
+     */
+    void put(long key, int value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (values[i] != MISSING) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Remove a key, using backward-shift deletion so no tombstones are left behind
+     * @return The removed value, or MISSING if the key was not present
+     */
+    int remove(long key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (values[i] != MISSING) {
+            if (keys[i] == key) {
+                int removed = values[i];
+                shiftBack(i, mask);
+                size--;
+                return removed;
+            }
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    private void shiftBack(int gap, int mask) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == MISSING) {
+                break;
+            }
+            int home = mix(keys[i]) & mask;
+            // move the entry into the gap if its home slot is not between the gap and its position
+            boolean movable = gap <= i ? (home <= gap || home > i) : (home <= gap && home > i);
+            if (movable) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = MISSING;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        long[] newKeys = new long[capacity];
+        int[] newValues = new int[capacity];
+        Arrays.fill(newValues, MISSING);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != MISSING) {
+                int i = mix(oldKeys[j]) & mask;
+                while (newValues[i] != MISSING) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = oldKeys[j];
+                newValues[i] = oldValues[j];
+            }
+        }
+        values = newValues;
+        keys = newKeys;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,338 @@
+package org.example.stage6.repository;
+
+import org.example.stage6.model.Student;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Off-heap, column-oriented implementation of StudentRepository
+ * Each field is stored in its own direct buffer (column), one slot per student:
+ * id, age and version as packed primitives, first and last name as dictionary codes.
+ * The heap only holds a primitive id to slot index, a primitive sorted id index and the name dictionaries,
+ * so millions of students add almost nothing to GC work.
+ * Student objects are only created when a record is read.
+ */
+public class OffHeapStudentRepository implements StudentRepository {
+
+    private static final int LONG_BYTES = Long.BYTES;
+    private static final int INT_BYTES = Integer.BYTES;
+
+    // marks a slot that holds no student
+    private static final int FREE = -1;
+
+    // a direct buffer is indexed by int, so the widest column (8 bytes per slot) bounds the number of slots
+    static final int MAX_CAPACITY = Integer.MAX_VALUE / LONG_BYTES;
+
+    private final StampedLock lock = new StampedLock();
+
+    // StampedLock is not reentrant, so changes and batches are serialized by this lock instead
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final LongIntHashIndex index;
+    private final SortedLongIndex sortedIds = new SortedLongIndex();
+    private final StringDictionary firstNames = new StringDictionary();
+    private final StringDictionary lastNames = new StringDictionary();
+
+    private ByteBuffer ids;
+    private ByteBuffer ages;
+    private ByteBuffer versions;
+    private ByteBuffer firstNameCodes;
+    private ByteBuffer lastNameCodes;
+
+    private int capacity;
+    // slots below this mark have been used at least once
+    private int highWater;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    /**
+     * @param initialCapacity Number of slots allocated up front, at most MAX_CAPACITY
+     * @throws IllegalArgumentException If initialCapacity is above MAX_CAPACITY
+     */
+    public OffHeapStudentRepository(int initialCapacity) {
+        if (initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Off-heap store capacity " + initialCapacity
+                    + " exceeds the maximum of " + MAX_CAPACITY + " students");
+        }
+        this.capacity = Math.max(16, initialCapacity);
+        this.index = new LongIntHashIndex(capacity);
+        this.ids = allocate(capacity * LONG_BYTES);
+        this.ages = allocate(capacity * LONG_BYTES);
+        this.versions = allocate(capacity * LONG_BYTES);
+        this.firstNameCodes = allocate(capacity * INT_BYTES);
+        this.lastNameCodes = allocate(capacity * INT_BYTES);
+    }
+
+    @Override
+    public List<Student> findAll() {
+        long stamp = lock.readLock();
+        try {
+            List<Student> result = new ArrayList<>(index.size());
+            for (int slot = 0; slot < highWater; slot++) {
+                if (firstNameCodes.getInt(slot * INT_BYTES) != FREE) {
+                    result.add(materialize(slot));
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * A page is a range seek in the sorted id index, then one slot lookup per student
+     */
+    @Override
+    public List<Student> findPage(Long afterId, int limit) {
+        long stamp = lock.readLock();
+        try {
+            long[] pageIds = new long[Math.min(limit, index.size())];
+            int count = sortedIds.copyAfter(afterId, pageIds);
+            List<Student> page = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                page.add(materialize(index.get(pageIds[i])));
+            }
+            return page;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Optional<Student> findById(Long id) {
+        // optimistic read first, readers only take the lock if a writer interfered
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Student student = read(id);
+                if (lock.validate(stamp)) {
+                    return Optional.ofNullable(student);
+                }
+            } catch (RuntimeException ignored) {
+                // torn read during a concurrent resize, retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return Optional.ofNullable(read(id));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                boolean exists = index.get(id) != LongIntHashIndex.MISSING;
+                if (lock.validate(stamp)) {
+                    return exists;
+                }
+            } catch (RuntimeException ignored) {
+                // torn read during a concurrent resize, retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return index.get(id) != LongIntHashIndex.MISSING;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(Student student) {
+        writeLock.lock();
+        long stamp = lock.writeLock();
+        try {
+            if (index.get(student.getId()) != LongIntHashIndex.MISSING) {
+                return false;
+            }
+            int slot = allocateSlot();
+            write(slot, student);
+            index.put(student.getId(), slot);
+            sortedIds.add(student.getId());
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Student replaceIfPresent(Student student) {
+        writeLock.lock();
+        long stamp = lock.writeLock();
+        try {
+            int slot = index.get(student.getId());
+            if (slot == LongIntHashIndex.MISSING) {
+                return null;
+            }
+            Student previous = materialize(slot);
+            write(slot, student);
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Student replaceIfVersion(Student student, long expectedVersion) {
+        writeLock.lock();
+        long stamp = lock.writeLock();
+        try {
+            int slot = index.get(student.getId());
+            if (slot == LongIntHashIndex.MISSING) {
+                return null;
+            }
+            Student found = materialize(slot);
+            if (found.getVersion() == expectedVersion) {
+                write(slot, student);
+            }
+            return found;
+        } finally {
+            lock.unlockWrite(stamp);
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Student removeIfVersion(Long id, long expectedVersion) {
+        writeLock.lock();
+        long stamp = lock.writeLock();
+        try {
+            int slot = index.get(id);
+            if (slot == LongIntHashIndex.MISSING) {
+                return null;
+            }
+            Student found = materialize(slot);
+            if (found.getVersion() == expectedVersion) {
+                index.remove(id);
+                sortedIds.remove(id);
+                firstNameCodes.putInt(slot * INT_BYTES, FREE);
+                releaseSlot(slot);
+            }
+            return found;
+        } finally {
+            lock.unlockWrite(stamp);
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Student removeById(Long id) {
+        writeLock.lock();
+        long stamp = lock.writeLock();
+        try {
+            int slot = index.remove(id);
+            if (slot == LongIntHashIndex.MISSING) {
+                return null;
+            }
+            Student removed = materialize(slot);
+            sortedIds.remove(id);
+            firstNameCodes.putInt(slot * INT_BYTES, FREE);
+            releaseSlot(slot);
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        long stamp = lock.readLock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public <T> T executeAtomically(Supplier<T> work) {
+        writeLock.lock();
+        try {
+            return work.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Student read(long id) {
+        int slot = index.get(id);
+        return slot == LongIntHashIndex.MISSING ? null : materialize(slot);
+    }
+
+    private Student materialize(int slot) {
+        return new Student(
+                ids.getLong(slot * LONG_BYTES),
+                firstNames.decode(firstNameCodes.getInt(slot * INT_BYTES)),
+                lastNames.decode(lastNameCodes.getInt(slot * INT_BYTES)),
+                ages.getDouble(slot * LONG_BYTES),
+                versions.getLong(slot * LONG_BYTES));
+    }
+
+    private void write(int slot, Student student) {
+        ids.putLong(slot * LONG_BYTES, student.getId());
+        ages.putDouble(slot * LONG_BYTES, student.getAge());
+        versions.putLong(slot * LONG_BYTES, student.getVersion());
+        firstNameCodes.putInt(slot * INT_BYTES, firstNames.encode(student.getFirstName()));
+        lastNameCodes.putInt(slot * INT_BYTES, lastNames.encode(student.getLastName()));
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater == capacity) {
+            grow();
+        }
+        return highWater++;
+    }
+
+    private void releaseSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Doubles the columns, the last step stops at MAX_CAPACITY
+     * @throws IllegalStateException If the store already holds MAX_CAPACITY students
+     */
+    private void grow() {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap store is full: it holds the maximum of " + MAX_CAPACITY + " students");
+        }
+        int newCapacity = (int) Math.min((long) capacity << 1, MAX_CAPACITY);
+        ids = copy(ids, newCapacity * LONG_BYTES);
+        ages = copy(ages, newCapacity * LONG_BYTES);
+        versions = copy(versions, newCapacity * LONG_BYTES);
+        firstNameCodes = copy(firstNameCodes, newCapacity * INT_BYTES);
+        lastNameCodes = copy(lastNameCodes, newCapacity * INT_BYTES);
+        capacity = newCapacity;
+    }
+
+    private static ByteBuffer copy(ByteBuffer source, int newSize) {
+        ByteBuffer target = allocate(newSize);
+        target.put(source.duplicate().clear());
+        target.clear();
+        return target;
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.stage6.repository;
+
+import java.util.Arrays;
+
+/**
+ * Primitive sorted set of long keys, kept as an ordered list of bounded sorted blocks
+ * Used as the sorted id index of the off-heap store: a page is one binary search for its start
+ * followed by a sequential copy, and an insert or remove only shifts the entries of one block
+ * Not thread-safe, the owning repository guards it with its lock
+ */
+class SortedLongIndex {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private long[][] blocks = new long[16][];
+    private int[] sizes = new int[16];
+    private int blockCount;
+
+    /**
+     * Add a key, does nothing if it is already present
+     */
+    void add(long key) {
+        if (blockCount == 0) {
+            insertBlock(0, new long[BLOCK_SIZE]);
+        }
+        int block = blockOf(key);
+        int position = Arrays.binarySearch(blocks[block], 0, sizes[block], key);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (sizes[block] == BLOCK_SIZE) {
+            // split the full block in two halves and insert into the one the key belongs to
+            int half = BLOCK_SIZE / 2;
+            long[] upper = new long[BLOCK_SIZE];
+            System.arraycopy(blocks[block], half, upper, 0, BLOCK_SIZE - half);
+            insertBlock(block + 1, upper);
+            sizes[block + 1] = BLOCK_SIZE - half;
+            sizes[block] = half;
+            if (position > half) {
+                block++;
+                position -= half;
+            }
+        }
+        long[] keys = blocks[block];
+        System.arraycopy(keys, position, keys, position + 1, sizes[block] - position);
+        keys[position] = key;
+        sizes[block]++;
+    }
+
+    /**
+     * Remove a key
+     * @return true if the key was present
+     */
+    boolean remove(long key) {
+        if (blockCount == 0) {
+            return false;
+        }
+        int block = blockOf(key);
+        int position = Arrays.binarySearch(blocks[block], 0, sizes[block], key);
+        if (position < 0) {
+            return false;
+        }
+        long[] keys = blocks[block];
+        System.arraycopy(keys, position + 1, keys, position, sizes[block] - position - 1);
+        if (--sizes[block] == 0) {
+            removeBlock(block);
+        }
+        return true;
+    }
+
+    /**
+     * Copy the smallest keys greater than afterKey into target, in ascending order
+     * @param afterKey Exclusive lower bound, or null to start at the smallest key
+     * @param target Receives at most target.length keys
+     * @return The number of keys copied
+     */
+    int copyAfter(Long afterKey, long[] target) {
+        if (blockCount == 0) {
+            return 0;
+        }
+        int block = 0;
+        int position = 0;
+        if (afterKey != null) {
+            block = blockOf(afterKey);
+            position = Arrays.binarySearch(blocks[block], 0, sizes[block], afterKey);
+            position = position >= 0 ? position + 1 : -position - 1;
+        }
+        int copied = 0;
+        while (copied < target.length && block < blockCount) {
+            int length = Math.min(target.length - copied, sizes[block] - position);
+            System.arraycopy(blocks[block], position, target, copied, length);
+            copied += length;
+            block++;
+            position = 0;
+        }
+        return copied;
+    }
+
+    /**
+     * Index of the last block whose first key is not greater than the key, 0 if there is none
+     */
+    private int blockOf(long key) {
+        int low = 1;
+        int high = blockCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (blocks[middle][0] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private void insertBlock(int block, long[] keys) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount << 1);
+            sizes = Arrays.copyOf(sizes, blockCount << 1);
+        }
+        System.arraycopy(blocks, block, blocks, block + 1, blockCount - block);
+        System.arraycopy(sizes, block, sizes, block + 1, blockCount - block);
+        blocks[block] = keys;
+        sizes[block] = 0;
+        blockCount++;
+    }
+
+    private void removeBlock(int block) {
+        System.arraycopy(blocks, block + 1, blocks, block, blockCount - block - 1);
+        System.arraycopy(sizes, block + 1, sizes, block, blockCount - block - 1);
+        blocks[--blockCount] = null;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.stage6.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for a string column
+ * Each distinct string is stored once and the column only keeps its int code
+ * Codes are never reused, names are low-cardinality so the dictionary stays small
+ * Not thread-safe, the owning repository guards it with its lock
+ */
+class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[64];
+    private int size;
+
+    /**
+     * Get the code of a string, adding it to the dictionary if needed
+     */
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Get the string of a code
+     */
+    String decode(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.stage6.repository;
+
+import org.example.stage6.model.Student;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Repository interface for student storage
+ * Keeps the service layer independent of how students are actually stored
+ */
+public interface StudentRepository {
+    /**
+     * Get all stored students
+     * @return Snapshot list of all students
+     */
+    List<Student> findAll();
+
+    /**
+     * Get one page of students ordered by ID (keyset pagination)
+     * @param afterId Only students with an ID greater than this are returned, null to start from the beginning
+     * @param limit Maximum number of students to return
+     * @return Students ordered by ascending ID
+     */
+    List<Student> findPage(Long afterId, int limit);
+
+    /**
+     * Find students matching the criteria
+     * The default implementation scans all students, stores with indexes override it
+     * @param criteria The search criteria
+     * @param limit Maximum number of students to return
+     * @return The matching students
+     */
+    default List<Student> search(StudentSearchCriteria criteria, int limit) {
+        return findAll().stream()
+                .filter(criteria::matches)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find a student by ID
+     * @param id The student ID
+     * @return The student, or empty if no student has this ID
+     */
+    Optional<Student> findById(Long id);
+
+    /**
+     * Check if a student with the given ID is stored
+     * @param id The student ID
+     * @return true if the student exists
+     */
+    boolean existsById(Long id);
+
+    /**
+     * Atomically store a student only if no student with the same ID exists
+     * @param student The student to store
+     * @return true if the student was stored, false if the ID is already taken
+     */
+    boolean insertIfAbsent(Student student);
+
+    /**
+     * Atomically replace a student only if a student with the same ID exists
+     * @param student The new student data
+     * @return The previous student, or null if no student with this ID exists
+     */
+    Student replaceIfPresent(Student student);
+
+    /**
+     * Atomically replace a student only if the stored student has the expected version
+     * @param student The new student data
+     * @param expectedVersion The version the stored student must have
+     * @return The stored student found by the call (replaced only if its version matched),
+     *         or null if no student with this ID exists
+     */
+    Student replaceIfVersion(Student student, long expectedVersion);
+
+    /**
+     * Atomically remove a student only if it has the expected version
+     * @param id The student ID
+     * @param expectedVersion The version the stored student must have
+     * @return The stored student found by the call (removed only if its version matched),
+     *         or null if no student with this ID exists
+     */
+    Student removeIfVersion(Long id, long expectedVersion);
+
+    /**
+     * Remove a student by ID
+     * @param id The student ID
+     * @return The removed student, or null if no student with this ID exists
+     */
+    Student removeById(Long id);
+
+    /**
+     * Number of stored students
+     * @return The student count
+     */
+    long count();
+
+    /**
+     * Run several operations as one batch
+     * While the work runs, no change from another thread can interleave with it,
+     * so checks made at the start of the batch still hold when its changes are applied
+     * @param work The batch, it may call any method of this repository
+     * @return The result of the work
+     */
+    <T> T executeAtomically(Supplier<T> work);
+
+    /**
+     * Run a batch, then a step that must see the batch stored before any other change can follow it,
+     * such as publishing the changes of the batch
+     * The step does not run if the batch fails, stores that write a batch at its end override this method
+     * @param work The batch, it may call any method of this repository
+     * @param committed Gets the result of the work once every change of the batch is stored
+     * @return The result of the work
+     */
+    default <T> T executeAtomically(Supplier<T> work, Consumer<? super T> committed) {
+        // the changes of the work are stored as it makes them
+        return executeAtomically(() -> {
+            T result = work.get();
+            committed.accept(result);
+            return result;
+        });
+    }
+
+    /**
+     * Run several operations on one student so that no other change of the same student interleaves with them
+     * The default implementation uses executeAtomically, stores with per-student locks override it
+     * @param id The student ID the work is about
+     * @param work The operations, they may call any method of this repository
+     * @return The result of the work
+     */
+    default <T> T executeAtomicallyFor(Long id, Supplier<T> work) {
+        return executeAtomically(work);
+    }
+}
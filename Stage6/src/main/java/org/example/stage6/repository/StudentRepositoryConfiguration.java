@@ -0,0 +1,51 @@
+package org.example.stage6.repository;
+
+import org.example.stage6.model.Student;
+import org.example.stage6.model.VersionClock;
+import org.example.stage6.persistence.DurableStudentRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the StudentRepository selected by "student.repository.type" (in-memory, off-heap or jdbc),
+ * wrapped with write-ahead log persistence when "student.repository.persistence.enabled" is set,
+ * and always wrapped with the secondary indexes used by search
+ */
+@Configuration
+@EnableConfigurationProperties(StudentRepositoryProperties.class)
+public class StudentRepositoryConfiguration {
+
+    @Bean
+    public StudentRepository studentRepository(StudentRepositoryProperties properties) {
+        StudentRepository repository = switch (properties.getType()) {
+            case IN_MEMORY -> new InMemoryStudentRepository();
+            case OFF_HEAP -> new OffHeapStudentRepository(properties.getOffHeap().getInitialCapacity());
+            case JDBC -> new JdbcStudentRepository(properties.getJdbc());
+        };
+        // a database can already hold students from an earlier run
+        boolean recovered = repository.count() > 0;
+        if (properties.getPersistence().isEnabled()) {
+            DurableStudentRepository durable = new DurableStudentRepository(repository, properties.getPersistence());
+            recovered |= durable.isRecovered();
+            repository = durable;
+        }
+        StudentRepository indexed = new IndexedStudentRepository(repository);
+        // only a brand-new store gets the initial data, recovered students are kept as they are
+        if (!recovered && properties.isInitialData()) {
+            seedInitialData(indexed);
+        }
+        return indexed;
+    }
+
+    /**
+     * Initial data, same as the list used before the repository was introduced
+     */
+    private static void seedInitialData(StudentRepository repository) {
+        long version = VersionClock.nowMicros();
+        repository.insertIfAbsent(new Student(1L, "Alice", "Moskovitz", 21.3, version));
+        repository.insertIfAbsent(new Student(2L, "Bob", "Smith", 22.3, version));
+        repository.insertIfAbsent(new Student(3L, "Charlie", "Brown", 23.3, version));
+        repository.insertIfAbsent(new Student(4L, "David", "Miller", 24.3, version));
+    }
+}
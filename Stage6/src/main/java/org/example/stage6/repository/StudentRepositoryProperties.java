@@ -0,0 +1,120 @@
+package org.example.stage6.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the student store, bound from "student.repository.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.repository")
+public class StudentRepositoryProperties {
+
+    /**
+     * Which store backs the StudentService
+     */
+    private Type type = Type.IN_MEMORY;
+
+    /**
+     * Insert the four initial students into a brand-new store, turned off on nodes that join a cluster
+     */
+    private boolean initialData = true;
+
+    /**
+     * Settings of the off-heap store
+     */
+    private final OffHeap offHeap = new OffHeap();
+
+    /**
+     * Settings of the write-ahead log and snapshot persistence
+     */
+    private final Persistence persistence = new Persistence();
+
+    /**
+     * Settings of the relational database store
+     */
+    private final Jdbc jdbc = new Jdbc();
+
+    public enum Type {
+        IN_MEMORY,
+        OFF_HEAP,
+        JDBC
+    }
+
+    @Data
+    public static class OffHeap {
+        /**
+         * Number of record slots allocated up front, the columns double when they are full
+         * At most 268,435,455 (Integer.MAX_VALUE / 8), the limit of the store
+         */
+        private int initialCapacity = 1024;
+    }
+
+    @Data
+    public static class Jdbc {
+        /**
+         * JDBC URL of the database, jdbc:h2:file:./data/students keeps the students on disk
+         */
+        private String url = "jdbc:h2:mem:students;DB_CLOSE_DELAY=-1";
+
+        private String username = "sa";
+
+        private String password = "";
+
+        /**
+         * Maximum number of pooled connections
+         */
+        private int maximumPoolSize = 10;
+
+        /**
+         * Maximum number of rows sent to the database in one JDBC statement batch
+         */
+        private int batchSize = 500;
+
+        /**
+         * Maximum number of students kept in the findById cache, 0 turns the cache off
+         */
+        private long cacheMaximumSize = 10_000;
+    }
+
+    @Data
+    public static class Persistence {
+        /**
+         * Log every change and recover the store from disk at startup
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the log segments and snapshots
+         */
+        private String directory = "data";
+
+        /**
+         * How long the log writer waits to gather more changes into one fsync
+         */
+        private Duration groupCommitInterval = Duration.ofMillis(2);
+
+        /**
+         * Maximum number of changes written with one fsync
+         */
+        private int groupCommitMaxRecords = 4096;
+
+        /**
+         * Whether a change waits until its log record is fsynced before returning,
+         * false trades a small window of possible loss for latency
+         */
+        private boolean awaitFsync = true;
+
+        /**
+         * A new log segment is started once the current one grows past this size, must stay below 2 GB
+         */
+        private long segmentSizeBytes = 64L * 1024 * 1024;
+
+        /**
+         * How often a snapshot is written and the log before it is discarded
+         */
+        private Duration snapshotInterval = Duration.ofMinutes(10);
+    }
+}
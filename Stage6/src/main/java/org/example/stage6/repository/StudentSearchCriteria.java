@@ -0,0 +1,39 @@
+package org.example.stage6.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.stage6.model.Student;
+
+import java.util.Locale;
+
+/**
+ * Criteria of a student search, every criterion is optional (null)
+ * Name prefixes are compared after normalization, see normalize()
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentSearchCriteria {
+    private String lastNamePrefix;
+    private String firstNamePrefix;
+    private Double minAge;
+    private Double maxAge;
+
+    /**
+     * Normalized form of a name as stored in the name indexes: trimmed and lower case
+     */
+    public static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Check a student against all criteria
+     */
+    public boolean matches(Student student) {
+        return (lastNamePrefix == null || normalize(student.getLastName()).startsWith(normalize(lastNamePrefix)))
+                && (firstNamePrefix == null || normalize(student.getFirstName()).startsWith(normalize(firstNamePrefix)))
+                && (minAge == null || student.getAge() >= minAge)
+                && (maxAge == null || student.getAge() <= maxAge);
+    }
+}
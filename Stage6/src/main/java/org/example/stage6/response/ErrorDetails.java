@@ -0,0 +1,22 @@
+package org.example.stage6.response;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Value;
+
+/**
+ * Error object of a StandardResponse: what kind of error and a message
+ * The JSON converter writes everything before the message from bytes encoded once per type
+ */
+@Value
+@JsonPropertyOrder({"type", "message"})
+public class ErrorDetails {
+    /**
+     * Kind of error, one of a few constants such as "Resource Not Found"
+     */
+    String type;
+
+    /**
+     * Human-readable description of this occurrence
+     */
+    String message;
+}
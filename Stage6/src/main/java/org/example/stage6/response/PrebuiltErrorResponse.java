@@ -0,0 +1,70 @@
+package org.example.stage6.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * An error StandardResponse encoded once, for responses written outside Spring MVC (servlet filters)
+ * Everything but the timestamp is fixed bytes, the timestamp is encoded once per ResponseClock tick,
+ * so writing it costs no more than copying the bytes
+ */
+public class PrebuiltErrorResponse {
+
+    private static final byte[] END = "}".getBytes(StandardCharsets.UTF_8);
+
+    private record EncodedTimestamp(LocalDateTime time, byte[] json) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    // {"status":"error","data":null,"error":{...},"timestamp":
+    private final byte[] prefix;
+
+    private volatile EncodedTimestamp lastTimestamp = new EncodedTimestamp(null, null);
+
+    public PrebuiltErrorResponse(ObjectMapper objectMapper, ErrorDetails details) {
+        this.objectMapper = objectMapper;
+        String envelope = "{\"status\":\"error\",\"data\":null,\"error\":" + new String(encode(details), StandardCharsets.UTF_8)
+                + ",\"timestamp\":";
+        this.prefix = envelope.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the response with the given HTTP status
+     */
+    public void writeTo(HttpServletResponse response, int status) throws IOException {
+        byte[] timestamp = timestamp();
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(prefix.length + timestamp.length + END.length);
+        OutputStream body = response.getOutputStream();
+        body.write(prefix);
+        body.write(timestamp);
+        body.write(END);
+    }
+
+    private byte[] timestamp() {
+        LocalDateTime now = ResponseClock.now();
+        EncodedTimestamp last = lastTimestamp;
+        if (last.time() != now) {
+            last = new EncodedTimestamp(now, encode(now));
+            lastTimestamp = last;
+        }
+        return last.json();
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.stage6.response;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Clock of the response timestamps, ticking once per millisecond
+ * All responses created during the same tick share one LocalDateTime instance,
+ * so the JSON converter renders the timestamp once per tick instead of once per response.
+ * Timestamps are therefore truncated to the millisecond (LocalDateTime.now() has microseconds on most systems),
+ * which is the "2023-08-06T15:22:45.123" format the API examples show
+ */
+final class ResponseClock {
+
+    private record Tick(long millis, LocalDateTime time) {
+    }
+
+    private static volatile Tick current = new Tick(Long.MIN_VALUE, null);
+
+    private ResponseClock() {
+    }
+
+    static LocalDateTime now() {
+        long millis = System.currentTimeMillis();
+        Tick tick = current;
+        if (tick.millis() != millis) {
+            // racing threads may each create a tick for the same millisecond, any of them is correct
+            tick = new Tick(millis, LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+            current = tick;
+        }
+        return tick.time();
+    }
+}
@@ -30,7 +30,7 @@ public class StandardResponse {
     private Object error;
     
     /**
-     * Timestamp of the response
+     * Timestamp of the response, truncated to the millisecond, see ResponseClock
      */
     private LocalDateTime timestamp;
     
@@ -38,6 +38,6 @@ public class StandardResponse {
         this.status = status;
         this.data = data;
         this.error = error;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = ResponseClock.now();
     }
 }
\ No newline at end of file
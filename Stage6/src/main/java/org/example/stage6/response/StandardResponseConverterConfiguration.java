@@ -0,0 +1,32 @@
+package org.example.stage6.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.stage6.service.StudentCacheProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers StandardResponseHttpMessageConverter ahead of the Jackson converter,
+ * so every JSON StandardResponse goes through the pre-encoded path
+ */
+@Configuration
+public class StandardResponseConverterConfiguration implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    private final StudentCacheProperties cacheProperties;
+
+    public StandardResponseConverterConfiguration(ObjectMapper objectMapper, StudentCacheProperties cacheProperties) {
+        this.objectMapper = objectMapper;
+        this.cacheProperties = cacheProperties;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // the encoded students follow the getStudent cache, so both hold at most the same number of students
+        converters.add(0, new StandardResponseHttpMessageConverter(objectMapper, cacheProperties.getMaximumSize()));
+    }
+}
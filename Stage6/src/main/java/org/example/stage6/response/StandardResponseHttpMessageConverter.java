@@ -0,0 +1,229 @@
+package org.example.stage6.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.stage6.dto.SharedStudentList;
+import org.example.stage6.dto.StudentDto;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes StandardResponse as JSON from pre-encoded parts, same output as the Jackson converter
+ * - the envelope between the fields is constant bytes, the status prefix is encoded once per status
+ * - a StudentDto is encoded once per instance: the getStudent cache hands out the same instance until the
+ *   student changes, so the cached bytes are keyed by identity and dropped together with the instance.
+ *   StudentDto is mutable, so the bytes are kept with a copy of the values they were encoded from
+ *   and only reused while the instance still holds the same values
+ * - a SharedStudentList is encoded once, by the first of the requests it was handed to
+ * - the timestamp is encoded once per ResponseClock tick
+ * - an ErrorDetails error is written as a prefix encoded once per error type followed by its message,
+ *   so an error response only encodes its message
+ * The parts are written straight to the response body, with the Content-Length computed up front
+ */
+public class StandardResponseHttpMessageConverter extends AbstractHttpMessageConverter<StandardResponse> {
+
+    private static final byte[] DATA_FIELD = bytes(",\"data\":");
+    private static final byte[] ERROR_FIELD = bytes(",\"error\":");
+    private static final byte[] TIMESTAMP_FIELD = bytes(",\"timestamp\":");
+    private static final byte[] END = bytes("}");
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] EMPTY = new byte[0];
+
+    // statuses and error types are a handful of constants, anything beyond this is encoded per response
+    private static final int MAX_CACHED_STATUSES = 16;
+    private static final int MAX_CACHED_ERROR_TYPES = 16;
+
+    private record EncodedTimestamp(LocalDateTime time, byte[] json) {
+    }
+
+    private record EncodedStudent(StudentDto values, byte[] json) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    // weak keys compare by identity, so a replaced DTO never matches old bytes
+    private final Cache<StudentDto, EncodedStudent> studentJson;
+
+    private final Map<String, byte[]> statusPrefixes = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> errorPrefixes = new ConcurrentHashMap<>();
+
+    private volatile EncodedTimestamp lastTimestamp = new EncodedTimestamp(null, NULL);
+
+    public StandardResponseHttpMessageConverter(ObjectMapper objectMapper, long maximumCachedStudents) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.studentJson = Caffeine.newBuilder()
+                .weakKeys()
+                .maximumSize(maximumCachedStudents)
+                .build();
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return StandardResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, MediaType mediaType) {
+        // responses only, request bodies are never a StandardResponse
+        return false;
+    }
+
+    @Override
+    @NonNull
+    protected StandardResponse readInternal(@NonNull Class<? extends StandardResponse> clazz, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("StandardResponse is not readable", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(StandardResponse response, HttpOutputMessage outputMessage) throws IOException {
+        byte[] status = statusPrefix(response.getStatus());
+        byte[] data = encodeData(response.getData());
+        // the error is written in up to three parts, {"type":"...","message": + message + }
+        byte[] error;
+        byte[] errorMessage = EMPTY;
+        byte[] errorEnd = EMPTY;
+        if (response.getError() instanceof ErrorDetails details && details.getType() != null) {
+            error = errorPrefix(details.getType());
+            errorMessage = encodeString(details.getMessage());
+            errorEnd = END;
+        } else {
+            error = response.getError() == null ? NULL : encode(response.getError());
+        }
+        byte[] timestamp = encodeTimestamp(response.getTimestamp());
+
+        outputMessage.getHeaders().setContentLength(status.length + DATA_FIELD.length + data.length
+                + ERROR_FIELD.length + error.length + errorMessage.length + errorEnd.length
+                + TIMESTAMP_FIELD.length + timestamp.length + END.length);
+        OutputStream body = outputMessage.getBody();
+        body.write(status);
+        body.write(DATA_FIELD);
+        body.write(data);
+        body.write(ERROR_FIELD);
+        body.write(error);
+        body.write(errorMessage);
+        body.write(errorEnd);
+        body.write(TIMESTAMP_FIELD);
+        body.write(timestamp);
+        body.write(END);
+    }
+
+    /**
+     * {"status":"..." for the given status
+     */
+    private byte[] statusPrefix(String status) {
+        byte[] prefix = status == null ? null : statusPrefixes.get(status);
+        if (prefix == null) {
+            prefix = concat(bytes("{\"status\":"), encode(status));
+            if (status != null && statusPrefixes.size() < MAX_CACHED_STATUSES) {
+                statusPrefixes.putIfAbsent(status, prefix);
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * {"type":"...","message": for the given error type
+     */
+    private byte[] errorPrefix(String type) {
+        byte[] prefix = errorPrefixes.get(type);
+        if (prefix == null) {
+            prefix = concat(concat(bytes("{\"type\":"), encode(type)), bytes(",\"message\":"));
+            if (errorPrefixes.size() < MAX_CACHED_ERROR_TYPES) {
+                errorPrefixes.putIfAbsent(type, prefix);
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * A JSON string, messages of printable ASCII without quotes or backslashes are copied without Jackson
+     */
+    private byte[] encodeString(String text) {
+        if (text == null) {
+            return NULL;
+        }
+        byte[] json = new byte[text.length() + 2];
+        json[0] = '"';
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return encode(text);
+            }
+            json[i + 1] = (byte) c;
+        }
+        json[json.length - 1] = '"';
+        return json;
+    }
+
+    private byte[] encodeData(Object data) {
+        if (data == null) {
+            return NULL;
+        }
+        if (data instanceof StudentDto student) {
+            EncodedStudent encoded = studentJson.getIfPresent(student);
+            // a DTO modified since it was encoded gets new bytes
+            if (encoded == null || !encoded.values().equals(student)) {
+                encoded = encodeStudent(student);
+                studentJson.put(student, encoded);
+            }
+            return encoded.json();
+        }
+        if (data instanceof SharedStudentList shared) {
+            return shared.json(this::encode);
+        }
+        return encode(data);
+    }
+
+    /**
+     * Helper method that encodes a copy of the DTO, so the bytes match the kept values even if the DTO changes meanwhile
+     */
+    private EncodedStudent encodeStudent(StudentDto student) {
+        StudentDto values = new StudentDto(student.getId(), student.getFirstName(), student.getLastName(),
+                student.getAge(), student.getVersion());
+        return new EncodedStudent(values, encode(values));
+    }
+
+    private byte[] encodeTimestamp(LocalDateTime time) {
+        EncodedTimestamp last = lastTimestamp;
+        if (last.time() != time) {
+            last = new EncodedTimestamp(time, encode(time));
+            lastTimestamp = last;
+        }
+        return last.json();
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.stage6.service;
+
+/**
+ * How a batch operation treats failing items
+ */
+public enum BatchMode {
+    /**
+     * All-or-nothing: if any item fails, no item is applied
+     */
+    ATOMIC,
+
+    /**
+     * Every valid item is applied, failing items are reported and skipped
+     */
+    BEST_EFFORT
+}
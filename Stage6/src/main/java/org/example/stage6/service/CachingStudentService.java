@@ -0,0 +1,157 @@
+package org.example.stage6.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentDto;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read-through cache of getStudent in front of another StudentService
+ * Caffeine bounds the cache by size and age, and admits new entries with W-TinyLFU,
+ * so a burst of one-off reads does not push out the frequently read students
+ * Cached DTOs are shared between requests and must not be modified
+ */
+public class CachingStudentService implements StudentService {
+
+    private final StudentService delegate;
+
+    private final Cache<Long, StudentDto> cache;
+
+    public CachingStudentService(StudentService delegate, long maximumSize, Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The underlying cache, used to publish its hit/miss/eviction statistics
+     */
+    public Cache<Long, StudentDto> getCache() {
+        return cache;
+    }
+
+    @Override
+    public long getCollectionVersion() {
+        return delegate.getCollectionVersion();
+    }
+
+    /**
+     * Always read from the delegate: a write invalidates only after the delegate returns,
+     * so a cached version can be older than a write that already completed, and a 304 must not rest on it
+     */
+    @Override
+    public long getStudentVersion(Long id) {
+        return delegate.getStudentVersion(id);
+    }
+
+    @Override
+    public StudentDto getStudent(Long id) {
+        // a missing student throws NotExists from the loader, so nothing is cached for it
+        return cache.get(id, delegate::getStudent);
+    }
+
+    /*
+     * Writes go to the store first and invalidate afterward. Caffeine makes an invalidation wait for a
+     * load of the same ID that is in flight, so a load that read the old student can never be left
+     * in the cache after the write, whatever store is behind the delegate
+     */
+
+    @Override
+    public StudentDto addStudent(StudentDto studentDto) {
+        // nothing to invalidate: a student that does not exist is never cached
+        return delegate.addStudent(studentDto);
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id) {
+        try {
+            return delegate.updateStudent(studentDto, id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion) {
+        try {
+            return delegate.updateStudent(studentDto, id, expectedVersion);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public void deleteStudent(Long id) {
+        try {
+            delegate.deleteStudent(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public void deleteStudent(Long id, long expectedVersion) {
+        try {
+            delegate.deleteStudent(id, expectedVersion);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return delegate.addStudents(studentDtos, mode);
+    }
+
+    @Override
+    public List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return invalidateApplied(delegate.updateStudents(studentDtos, mode));
+    }
+
+    @Override
+    public List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode) {
+        return invalidateApplied(delegate.deleteStudents(ids, mode));
+    }
+
+    @Override
+    public int importStudents(List<StudentDto> studentDtos) {
+        try {
+            return delegate.importStudents(studentDtos);
+        } finally {
+            studentDtos.forEach(studentDto -> cache.invalidate(studentDto.getId()));
+        }
+    }
+
+    @Override
+    public List<StudentDto> getAllStudents() {
+        return delegate.getAllStudents();
+    }
+
+    @Override
+    public List<StudentDto> getStudentsPage(Long afterId, int limit) {
+        return delegate.getStudentsPage(afterId, limit);
+    }
+
+    @Override
+    public List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        return delegate.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit);
+    }
+
+    /**
+     * Invalidates the students a batch changed, failed and skipped items did not change anything
+     */
+    private List<BatchItemResult> invalidateApplied(List<BatchItemResult> results) {
+        for (BatchItemResult result : results) {
+            if ("success".equals(result.getStatus())) {
+                cache.invalidate(result.getId());
+            }
+        }
+        return results;
+    }
+}
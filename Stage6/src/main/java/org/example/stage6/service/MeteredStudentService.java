@@ -0,0 +1,141 @@
+package org.example.stage6.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentDto;
+
+import java.util.List;
+
+/**
+ * Times every operation of another StudentService, published as student.service with the tag operation=...
+ * The timers are looked up once here, so a call only pays for two clock reads and a lock-free record
+ * Failed calls are timed too, they are counted by type in GlobalExceptionHandler
+ */
+public class MeteredStudentService implements StudentService {
+
+    private final StudentService delegate;
+
+    private final Timer getStudentTimer;
+    private final Timer getAllStudentsTimer;
+    private final Timer getStudentsPageTimer;
+    private final Timer searchStudentsTimer;
+    private final Timer addStudentTimer;
+    private final Timer updateStudentTimer;
+    private final Timer deleteStudentTimer;
+    private final Timer addStudentsTimer;
+    private final Timer updateStudentsTimer;
+    private final Timer deleteStudentsTimer;
+    private final Timer importStudentsTimer;
+
+    public MeteredStudentService(StudentService delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.getStudentTimer = timer(registry, "getStudent");
+        this.getAllStudentsTimer = timer(registry, "getAllStudents");
+        this.getStudentsPageTimer = timer(registry, "getStudentsPage");
+        this.searchStudentsTimer = timer(registry, "searchStudents");
+        this.addStudentTimer = timer(registry, "addStudent");
+        this.updateStudentTimer = timer(registry, "updateStudent");
+        this.deleteStudentTimer = timer(registry, "deleteStudent");
+        this.addStudentsTimer = timer(registry, "addStudents");
+        this.updateStudentsTimer = timer(registry, "updateStudents");
+        this.deleteStudentsTimer = timer(registry, "deleteStudents");
+        this.importStudentsTimer = timer(registry, "importStudents");
+    }
+
+    /**
+     * The timed service
+     */
+    public StudentService getDelegate() {
+        return delegate;
+    }
+
+    /*
+     * The version lookups only back conditional requests and are not timed
+     */
+
+    @Override
+    public long getCollectionVersion() {
+        return delegate.getCollectionVersion();
+    }
+
+    @Override
+    public long getStudentVersion(Long id) {
+        return delegate.getStudentVersion(id);
+    }
+
+    @Override
+    public StudentDto getStudent(Long id) {
+        return getStudentTimer.record(() -> delegate.getStudent(id));
+    }
+
+    @Override
+    public List<StudentDto> getAllStudents() {
+        return getAllStudentsTimer.record(delegate::getAllStudents);
+    }
+
+    @Override
+    public List<StudentDto> getStudentsPage(Long afterId, int limit) {
+        return getStudentsPageTimer.record(() -> delegate.getStudentsPage(afterId, limit));
+    }
+
+    @Override
+    public List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        return searchStudentsTimer.record(() -> delegate.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit));
+    }
+
+    @Override
+    public StudentDto addStudent(StudentDto studentDto) {
+        return addStudentTimer.record(() -> delegate.addStudent(studentDto));
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id) {
+        return updateStudentTimer.record(() -> delegate.updateStudent(studentDto, id));
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion) {
+        return updateStudentTimer.record(() -> delegate.updateStudent(studentDto, id, expectedVersion));
+    }
+
+    @Override
+    public void deleteStudent(Long id) {
+        deleteStudentTimer.record(() -> delegate.deleteStudent(id));
+    }
+
+    @Override
+    public void deleteStudent(Long id, long expectedVersion) {
+        deleteStudentTimer.record(() -> delegate.deleteStudent(id, expectedVersion));
+    }
+
+    @Override
+    public List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return addStudentsTimer.record(() -> delegate.addStudents(studentDtos, mode));
+    }
+
+    @Override
+    public List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return updateStudentsTimer.record(() -> delegate.updateStudents(studentDtos, mode));
+    }
+
+    @Override
+    public List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode) {
+        return deleteStudentsTimer.record(() -> delegate.deleteStudents(ids, mode));
+    }
+
+    @Override
+    public int importStudents(List<StudentDto> studentDtos) {
+        return importStudentsTimer.record(() -> delegate.importStudents(studentDtos));
+    }
+
+    /**
+     * Helper method that registers the timer of one operation
+     */
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("student.service")
+                .description("Time spent in StudentService operations")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
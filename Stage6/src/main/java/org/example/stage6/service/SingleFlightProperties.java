@@ -0,0 +1,17 @@
+package org.example.stage6.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the read coalescing, bound from "student.single-flight.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.single-flight")
+public class SingleFlightProperties {
+
+    /**
+     * Let concurrent identical reads share one call of the StudentService
+     */
+    private boolean enabled = true;
+}
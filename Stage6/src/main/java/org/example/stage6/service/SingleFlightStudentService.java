@@ -0,0 +1,231 @@
+package org.example.stage6.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.SharedStudentList;
+import org.example.stage6.dto.StudentDto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads in front of another StudentService (single flight)
+ * The first caller of a read runs it, callers of the same read that arrive while it runs wait for it
+ * and get the same result, or the same exception (NotExists included).
+ * List results are SharedStudentList, so the requests that share a list also share its JSON encoding.
+ * <p>
+ * Every write detaches the reads it may affect: a read that started before the write stays with its callers,
+ * but a caller that comes after the write starts a new one, so a client always reads its own writes.
+ * Shared calls are counted as student.single-flight.shared when there is a MeterRegistry.
+ */
+public class SingleFlightStudentService implements StudentService {
+
+    private final StudentService delegate;
+
+    // getStudent by ID, and the list reads keyed by their parameters
+    private final Map<Long, CompletableFuture<StudentDto>> studentFlights = new ConcurrentHashMap<>();
+    private final Map<Object, CompletableFuture<List<StudentDto>>> listFlights = new ConcurrentHashMap<>();
+
+    private final LongAdder shared = new LongAdder();
+
+    private record AllKey() {
+    }
+
+    private record PageKey(Long afterId, int limit) {
+    }
+
+    private record SearchKey(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+    }
+
+    private static final AllKey ALL = new AllKey();
+
+    public SingleFlightStudentService(StudentService delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        if (registry != null) {
+            FunctionCounter.builder("student.single-flight.shared", shared, LongAdder::sum)
+                    .description("Reads answered by a call another request had started")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Number of calls that got the result of a read started by another caller
+     */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    @Override
+    public List<StudentDto> getAllStudents() {
+        return singleFlight(listFlights, ALL, () -> new SharedStudentList(delegate.getAllStudents()));
+    }
+
+    @Override
+    public List<StudentDto> getStudentsPage(Long afterId, int limit) {
+        return singleFlight(listFlights, new PageKey(afterId, limit),
+                () -> new SharedStudentList(delegate.getStudentsPage(afterId, limit)));
+    }
+
+    @Override
+    public List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        return singleFlight(listFlights, new SearchKey(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit),
+                () -> new SharedStudentList(delegate.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit)));
+    }
+
+    @Override
+    public StudentDto getStudent(Long id) {
+        return singleFlight(studentFlights, id, () -> delegate.getStudent(id));
+    }
+
+    @Override
+    public long getCollectionVersion() {
+        return delegate.getCollectionVersion();
+    }
+
+    @Override
+    public long getStudentVersion(Long id) {
+        return delegate.getStudentVersion(id);
+    }
+
+    @Override
+    public StudentDto addStudent(StudentDto studentDto) {
+        try {
+            return delegate.addStudent(studentDto);
+        } finally {
+            detach(studentDto.getId());
+        }
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id) {
+        try {
+            return delegate.updateStudent(studentDto, id);
+        } finally {
+            detach(id);
+        }
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion) {
+        try {
+            return delegate.updateStudent(studentDto, id, expectedVersion);
+        } finally {
+            detach(id);
+        }
+    }
+
+    @Override
+    public void deleteStudent(Long id) {
+        try {
+            delegate.deleteStudent(id);
+        } finally {
+            detach(id);
+        }
+    }
+
+    @Override
+    public void deleteStudent(Long id, long expectedVersion) {
+        try {
+            delegate.deleteStudent(id, expectedVersion);
+        } finally {
+            detach(id);
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        try {
+            return delegate.addStudents(studentDtos, mode);
+        } finally {
+            detachAll();
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        try {
+            return delegate.updateStudents(studentDtos, mode);
+        } finally {
+            detachAll();
+        }
+    }
+
+    @Override
+    public List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode) {
+        try {
+            return delegate.deleteStudents(ids, mode);
+        } finally {
+            detachAll();
+        }
+    }
+
+    @Override
+    public int importStudents(List<StudentDto> studentDtos) {
+        try {
+            return delegate.importStudents(studentDtos);
+        } finally {
+            detachAll();
+        }
+    }
+
+    /**
+     * Helper method that runs a read, or waits for the same read another caller already runs
+     * The entry is removed once the read is done, later callers run it again
+     */
+    private <K, V> V singleFlight(Map<K, CompletableFuture<V>> flights, K key, Supplier<V> read) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            shared.increment();
+            return await(running);
+        }
+        try {
+            V value = read.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Helper method that waits for a read and throws its exception as it was thrown to the caller that ran it
+     */
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Helper method that keeps callers after a write from joining the reads that started before it
+     */
+    private void detach(Long id) {
+        if (id != null) {
+            studentFlights.remove(id);
+        }
+        listFlights.clear();
+    }
+
+    private void detachAll() {
+        studentFlights.clear();
+        listFlights.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.stage6.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the getStudent cache, bound from "student.cache.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.cache")
+public class StudentCacheProperties {
+
+    /**
+     * Put the read-through cache in front of the StudentService
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of cached students, the least valuable ones are evicted past it
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * How long a cached student is kept after it was loaded
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
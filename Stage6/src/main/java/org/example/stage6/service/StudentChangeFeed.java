@@ -0,0 +1,113 @@
+package org.example.stage6.service;
+
+import org.example.stage6.dto.StudentChangeEvent;
+import org.example.stage6.dto.StudentDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered feed of student changes, kept in a bounded ring buffer
+ * The service publishes every applied change while it still holds the student's lock,
+ * so the sequence order of two events of the same student is the order the changes were applied.
+ * Publishing never waits for readers: once the ring is full the oldest events are overwritten,
+ * and a reader that still needed them has to start over from a full read of the students.
+ * Sequences start at 1 again when the application restarts, so a reader asking for a sequence
+ * past the next one resumes from an earlier run and has to start over too.
+ */
+public class StudentChangeFeed {
+
+    private final StudentChangeEvent[] ring;
+    private final int mask;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+
+    // sequence of the newest event, 0 before the first one
+    private long lastSequence;
+
+    /**
+     * @param capacity Number of events kept, rounded up to a power of two
+     */
+    public StudentChangeFeed(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new StudentChangeEvent[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Append an event and wake up waiting readers
+     * @return The published event with its sequence
+     */
+    public StudentChangeEvent publish(StudentChangeEvent.Type type, Long id, long version, StudentDto student) {
+        lock.lock();
+        try {
+            StudentChangeEvent event = new StudentChangeEvent(++lastSequence, type, id, version, student);
+            ring[(int) (event.getSequence() & mask)] = event;
+            published.signalAll();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sequence of the newest event, 0 if nothing was published yet
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read the events starting at a sequence
+     * @param fromSequence Sequence of the first wanted event
+     * @param max Maximum number of events to return
+     * @return The events in sequence order, empty if there is none yet,
+     *         or null if events from fromSequence on were already overwritten or fromSequence was never reached
+     */
+    public List<StudentChangeEvent> read(long fromSequence, int max) {
+        lock.lock();
+        try {
+            long oldest = Math.max(1, lastSequence - ring.length + 1);
+            if (fromSequence < oldest || fromSequence > lastSequence + 1) {
+                return null;
+            }
+            int count = (int) Math.min(max, lastSequence - fromSequence + 1);
+            List<StudentChangeEvent> events = new ArrayList<>(Math.max(count, 0));
+            for (long sequence = fromSequence; sequence < fromSequence + count; sequence++) {
+                events.add(ring[(int) (sequence & mask)]);
+            }
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until an event after the given sequence is published
+     * @return true if there is such an event, false if the timeout elapsed first
+     */
+    public boolean awaitAfter(long sequence, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (lastSequence <= sequence) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = published.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
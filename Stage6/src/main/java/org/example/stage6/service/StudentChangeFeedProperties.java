@@ -0,0 +1,29 @@
+package org.example.stage6.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties of the change feed and its event stream, bound from "student.changes.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.changes")
+public class StudentChangeFeedProperties {
+
+    /**
+     * Number of recent changes kept, a consumer that falls further behind is disconnected
+     */
+    private int bufferSize = 4096;
+
+    /**
+     * Maximum number of open event streams
+     */
+    private int maxSubscribers = 100;
+
+    /**
+     * How often an idle event stream gets a keep-alive comment, also how fast a closed client is noticed
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+}
@@ -1,9 +1,11 @@
 package org.example.stage6.service;
 
+import org.example.stage6.dto.BatchItemResult;
 import org.example.stage6.dto.StudentDto;
 import org.example.stage6.exception.AlreadyExists;
 import org.example.stage6.exception.NotExists;
 import org.example.stage6.exception.StudentIdAndIdMismatch;
+import org.example.stage6.exception.VersionMismatch;
 
 import java.util.List;
 
@@ -18,6 +20,40 @@ public interface StudentService {
      */
     List<StudentDto> getAllStudents();
     
+    /**
+     * Get one page of students ordered by ID
+     * @param afterId Only students with a greater ID are returned, null to start from the beginning
+     * @param limit Maximum page size
+     * @return The students of the page as DTOs
+     */
+    List<StudentDto> getStudentsPage(Long afterId, int limit);
+
+    /**
+     * Search students by name prefix and age range, every criterion is optional
+     * @param lastNamePrefix Prefix of the last name, case-insensitive
+     * @param firstNamePrefix Prefix of the first name, case-insensitive
+     * @param minAge Minimum age, inclusive
+     * @param maxAge Maximum age, inclusive
+     * @param limit Maximum number of students to return
+     * @return The matching students as DTOs
+     */
+    List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit);
+
+    /**
+     * Version of the whole collection, changes after every applied add, update or delete
+     * Read it before reading students: a change applied after that always gives a new version
+     * @return The current collection version
+     */
+    long getCollectionVersion();
+
+    /**
+     * Version of one student, without converting it to a DTO
+     * @param id The student ID
+     * @return The current version of the student
+     * @throws NotExists If a student doesn't exist
+     */
+    long getStudentVersion(Long id);
+
     /**
      * Get student by ID as DTO
      * @param id The student ID to retrieve
@@ -43,6 +79,18 @@ public interface StudentService {
      * @throws StudentIdAndIdMismatch If ID in a path doesn't match student ID
      */
     StudentDto updateStudent(StudentDto studentDto, Long id);
+
+    /**
+     * Update an existing student only if it still has the expected version (optimistic concurrency)
+     * @param studentDto Updated student data (as DTO)
+     * @param id The ID from the path parameter
+     * @param expectedVersion The version the client based the update on
+     * @return The updated student as DTO
+     * @throws NotExists If a student doesn't exist
+     * @throws StudentIdAndIdMismatch If ID in a path doesn't match student ID
+     * @throws VersionMismatch If the student has another version
+     */
+    StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion);
     
     /**
      * Delete a student by ID
@@ -50,4 +98,45 @@ public interface StudentService {
      * @throws NotExists If a student doesn't exist
      */
     void deleteStudent(Long id);
-}
\ No newline at end of file
+
+    /**
+     * Delete a student only if it still has the expected version
+     * @param id Student ID to delete
+     * @param expectedVersion The version the client based the delete on
+     * @throws NotExists If a student doesn't exist
+     * @throws VersionMismatch If the student has another version
+     */
+    void deleteStudent(Long id, long expectedVersion);
+
+    /**
+     * Add several students in one batch
+     * @param studentDtos Students to add (as DTOs)
+     * @param mode All-or-nothing or best-effort
+     * @return One result per student, in request order
+     */
+    List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode);
+
+    /**
+     * Update several existing students in one batch
+     * @param studentDtos Updated student data (as DTOs), matched by their ID
+     * @param mode All-or-nothing or best-effort
+     * @return One result per student, in request order
+     */
+    List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode);
+
+    /**
+     * Delete several students in one batch
+     * @param ids Student IDs to delete
+     * @param mode All-or-nothing or best-effort
+     * @return One result per ID, in request order
+     */
+    List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode);
+
+    /**
+     * Store students copied from another node as they are, versions included
+     * A copy is inserted, or replaces the stored student if the copy is newer, an older copy is ignored
+     * @param studentDtos The copied students, each with its version
+     * @return Number of students inserted or replaced
+     */
+    int importStudents(List<StudentDto> studentDtos);
+}
@@ -0,0 +1,110 @@
+package org.example.stage6.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.example.stage6.cluster.ShardedStudentService;
+import org.example.stage6.cluster.StudentCluster;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.repository.StudentRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the StudentService, with its single writes applied on one writer thread when "student.write-pipeline.enabled" is set,
+ * wrapped with the read coalescing when "student.single-flight.enabled" is set,
+ * with the getStudent cache when "student.cache.enabled" is set,
+ * with the routing to the owning node in a partitioned deployment ("student.cluster.enabled")
+ * and with the operation timers when there is a MeterRegistry, and the change feed it publishes to
+ */
+@Configuration
+@EnableConfigurationProperties({StudentCacheProperties.class, StudentChangeFeedProperties.class, SingleFlightProperties.class,
+        WritePipelineProperties.class})
+public class StudentServiceConfiguration {
+
+    // created inside studentService, Spring only manages the outermost service, so it is closed here
+    private WritePipelineStudentService writePipeline;
+
+    @Bean
+    public StudentChangeFeed studentChangeFeed(StudentChangeFeedProperties properties) {
+        return new StudentChangeFeed(properties.getBufferSize());
+    }
+
+    @Bean
+    public StudentService studentService(StudentRepository studentRepository, StudentMapper studentMapper,
+                                         StudentChangeFeed changeFeed, StudentCacheProperties cacheProperties,
+                                         SingleFlightProperties singleFlightProperties,
+                                         WritePipelineProperties writePipelineProperties,
+                                         ObjectProvider<MeterRegistry> meterRegistry,
+                                         ObjectProvider<StudentCluster> studentCluster) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        StudentService service = new StudentServiceImpl(studentRepository, studentMapper, changeFeed);
+        if (writePipelineProperties.isEnabled()) {
+            // right on the store, so every layer above sees a write only once it is applied
+            writePipeline = new WritePipelineStudentService(service, writePipelineProperties.getQueueCapacity(),
+                    writePipelineProperties.getMaxBatchSize(), registry);
+            service = writePipeline;
+        }
+        if (singleFlightProperties.isEnabled()) {
+            // under the cache, so cache hits skip it and only the reads that reach the store are coalesced
+            service = new SingleFlightStudentService(service, registry);
+        }
+        if (cacheProperties.isEnabled()) {
+            service = new CachingStudentService(service, cacheProperties.getMaximumSize(), cacheProperties.getExpireAfterWrite());
+        }
+        StudentCluster cluster = studentCluster.getIfAvailable();
+        if (cluster != null) {
+            // the service so far holds the students of this node, the other nodes call it through the cluster API
+            cluster.setLocal(service);
+            service = new ShardedStudentService(cluster);
+        }
+        // outermost, so getStudent is timed with cache hits included
+        if (registry != null) {
+            service = new MeteredStudentService(service, registry);
+        }
+        return service;
+    }
+
+    /**
+     * Stops the write pipeline after its queued writes are applied
+     * The beans created by this configuration depend on it, so they are all destroyed before this runs
+     */
+    @PreDestroy
+    public void closeWritePipeline() throws InterruptedException {
+        if (writePipeline != null) {
+            writePipeline.close();
+        }
+    }
+
+    /**
+     * Publishes the cache statistics as cache.gets (hit/miss), cache.evictions, cache.size, ...
+     * with the tag cache=students, see /actuator/metrics
+     */
+    @Bean
+    public MeterBinder studentCacheMetrics(StudentService studentService) {
+        return registry -> {
+            StudentService service = studentService instanceof MeteredStudentService metered
+                    ? metered.getDelegate() : studentService;
+            if (service instanceof ShardedStudentService sharded) {
+                service = sharded.getLocal();
+            }
+            if (service instanceof CachingStudentService caching) {
+                CaffeineCacheMetrics.monitor(registry, caching.getCache(), "students");
+            }
+        };
+    }
+
+    /**
+     * Publishes the number of stored students as student.store.size, read only when metrics are scraped
+     */
+    @Bean
+    public MeterBinder studentStoreMetrics(StudentRepository studentRepository) {
+        return registry -> Gauge.builder("student.store.size", studentRepository, StudentRepository::count)
+                .description("Number of stored students")
+                .register(registry);
+    }
+}
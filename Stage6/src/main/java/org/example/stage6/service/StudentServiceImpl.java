@@ -1,46 +1,81 @@
 package org.example.stage6.service;
 
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentChangeEvent;
 import org.example.stage6.dto.StudentDto;
 import org.example.stage6.exception.AlreadyExists;
 import org.example.stage6.exception.NotExists;
 import org.example.stage6.exception.StudentIdAndIdMismatch;
+import org.example.stage6.exception.VersionMismatch;
 import org.example.stage6.mapper.StudentMapper;
 import org.example.stage6.model.Student;
-import org.springframework.stereotype.Service;
+import org.example.stage6.model.VersionClock;
+import org.example.stage6.repository.StudentRepository;
+import org.example.stage6.repository.StudentSearchCriteria;
+import org.example.stage6.response.ErrorDetails;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Implementation of the StudentService interface
  * Handles both data conversion and business logic
+ * Every applied change is published on the change feed while the student's lock is held
+ * Created by StudentServiceConfiguration
  */
-@Service
 public class StudentServiceImpl implements StudentService {
 
-    // In a real application, this would be replaced with a repository
-    private final List<Student> students = new ArrayList<>(Arrays.asList(
-        new Student(1L, "Alice", "Moskovitz", 21.3),
-        new Student(2L, "Bob", "Smith", 22.3),
-        new Student(3L, "Charlie", "Brown", 23.3),
-        new Student(4L, "David", "Miller", 24.3)
-    ));
-    
+    private final StudentRepository studentRepository;
+
     private final StudentMapper studentMapper;
+
+    // every change gets the next version, starting above the versions of the stored students
+    private final VersionClock versionClock;
+
+    // set to a fresh version after every applied change, see getCollectionVersion
+    private final AtomicLong collectionVersion;
+
+    private final StudentChangeFeed changeFeed;
     
-    // Inject the mapper through constructor
-    public StudentServiceImpl(StudentMapper studentMapper) {
+    // Inject the repository, the mapper and the change feed through constructor
+    public StudentServiceImpl(StudentRepository studentRepository, StudentMapper studentMapper, StudentChangeFeed changeFeed) {
+        this.studentRepository = studentRepository;
         this.studentMapper = studentMapper;
+        this.changeFeed = changeFeed;
+        long highestVersion = studentRepository.findAll().stream().mapToLong(Student::getVersion).max().orElse(0);
+        this.versionClock = new VersionClock(highestVersion);
+        this.collectionVersion = new AtomicLong(versionClock.next());
+    }
+
+    @Override
+    public long getCollectionVersion() {
+        return collectionVersion.get();
+    }
+
+    @Override
+    public long getStudentVersion(Long id) {
+        return findStudentById(id).getVersion();
     }
 
     @Override
     public List<StudentDto> getAllStudents() {
-        // Convert all entities to DTOs
-        return students.stream()
-                .map(studentMapper::toDto)
-                .collect(Collectors.toList());
+        // Converted once up front: the list may be shared by several requests and read more than once
+        return studentMapper.toDtoList(studentRepository.findAll());
+    }
+
+    @Override
+    public List<StudentDto> getStudentsPage(Long afterId, int limit) {
+        return studentMapper.toDtoList(studentRepository.findPage(afterId, limit));
+    }
+
+    @Override
+    public List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        StudentSearchCriteria criteria = new StudentSearchCriteria(lastNamePrefix, firstNamePrefix, minAge, maxAge);
+        return studentMapper.toDtoList(studentRepository.search(criteria, limit));
     }
 
     @Override
@@ -53,57 +88,282 @@ public class StudentServiceImpl implements StudentService {
     @Override
     public StudentDto addStudent(StudentDto studentDto) {
         // Convert DTO to entity
-        Student student = studentMapper.toEntity(studentDto);
+        Student student = studentMapper.toEntity(studentDto).withVersion(versionClock.next());
         
-        // Check if student exists
-        if (students.stream().anyMatch(s -> s.getId().equals(student.getId()))) {
-            throw new AlreadyExists("Student with id " + student.getId() + " already exists");
-        }
-        
-        // Add student and convert back to DTO
-        students.add(student);
-        return studentMapper.toDto(student);
+        StudentDto added = studentRepository.executeAtomicallyFor(student.getId(), () -> {
+            // Add student only if the ID is free, check and insert are a single atomic step
+            if (!studentRepository.insertIfAbsent(student)) {
+                throw new AlreadyExists("Student with id " + student.getId() + " already exists");
+            }
+            // Convert back to DTO
+            return published(StudentChangeEvent.Type.ADDED, student);
+        });
+        collectionChanged();
+        return added;
     }
 
     @Override
     public StudentDto updateStudent(StudentDto studentDto, Long id) {
+        Student update = checkedUpdate(studentDto, id);
+
+        // Swap in the new snapshot with a compare-and-set on the current version, and retry if another
+        // change won the race, so the versions of a student always grow in the order changes are applied
+        while (true) {
+            // the student may have been deleted since the check
+            long currentVersion = findStudentById(id).getVersion();
+            Student student = update.withVersion(versionClock.next());
+            StudentDto updated = studentRepository.executeAtomicallyFor(id, () -> {
+                Student found = studentRepository.replaceIfVersion(student, currentVersion);
+                if (found == null) {
+                    throw new NotExists("Student with id " + id + " does not exist");
+                }
+                // Convert back to DTO, or null if another change came first
+                return found.getVersion() == currentVersion ? published(StudentChangeEvent.Type.UPDATED, student) : null;
+            });
+            if (updated != null) {
+                collectionChanged();
+                return updated;
+            }
+        }
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion) {
+        Student student = checkedUpdate(studentDto, id).withVersion(versionClock.next());
+
+        StudentDto updated = studentRepository.executeAtomicallyFor(id, () -> {
+            // Version check and update are a single atomic step
+            Student found = studentRepository.replaceIfVersion(student, expectedVersion);
+            if (found == null) {
+                throw new NotExists("Student with id " + id + " does not exist");
+            }
+            if (found.getVersion() != expectedVersion) {
+                throw versionMismatch(found, expectedVersion);
+            }
+            // Convert back to DTO
+            return published(StudentChangeEvent.Type.UPDATED, student);
+        });
+        collectionChanged();
+        return updated;
+    }
+
+    @Override
+    public void deleteStudent(Long id) {
+        studentRepository.executeAtomicallyFor(id, () -> {
+            // Delete student, a null result means it did not exist
+            Student removed = studentRepository.removeById(id);
+            if (removed == null) {
+                throw new NotExists("Student with id " + id + " does not exist");
+            }
+            return publishedDelete(removed);
+        });
+        collectionChanged();
+    }
+
+    @Override
+    public void deleteStudent(Long id, long expectedVersion) {
+        studentRepository.executeAtomicallyFor(id, () -> {
+            Student found = studentRepository.removeIfVersion(id, expectedVersion);
+            if (found == null) {
+                throw new NotExists("Student with id " + id + " does not exist");
+            }
+            if (found.getVersion() != expectedVersion) {
+                throw versionMismatch(found, expectedVersion);
+            }
+            return publishedDelete(found);
+        });
+        collectionChanged();
+    }
+    
+    @Override
+    public List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        List<Student> students = studentMapper.toEntityList(studentDtos);
+        List<Runnable> publications = new ArrayList<>();
+        return collectionChangedIfApplied(studentRepository.executeAtomically(() -> applyBatch(students, mode, Student::getId, false, true,
+                student -> {
+                    Student versioned = student.withVersion(versionClock.next());
+                    studentRepository.insertIfAbsent(versioned);
+                    return publishedLater(publications, StudentChangeEvent.Type.ADDED, versioned);
+                }), results -> publications.forEach(Runnable::run)));
+    }
+
+    @Override
+    public List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        List<Student> students = studentMapper.toEntityList(studentDtos);
+        List<Runnable> publications = new ArrayList<>();
+        return collectionChangedIfApplied(studentRepository.executeAtomically(() -> applyBatch(students, mode, Student::getId, true, true,
+                student -> {
+                    Student versioned = student.withVersion(versionClock.next());
+                    studentRepository.replaceIfPresent(versioned);
+                    return publishedLater(publications, StudentChangeEvent.Type.UPDATED, versioned);
+                }), results -> publications.forEach(Runnable::run)));
+    }
+
+    @Override
+    public List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode) {
+        List<Runnable> publications = new ArrayList<>();
+        return collectionChangedIfApplied(studentRepository.executeAtomically(() -> applyBatch(ids, mode, Function.identity(), true, false,
+                id -> {
+                    Student removed = studentRepository.removeById(id);
+                    publications.add(() -> publishedDelete(removed));
+                    return null;
+                }), results -> publications.forEach(Runnable::run)));
+    }
+
+    @Override
+    public int importStudents(List<StudentDto> studentDtos) {
+        int imported = 0;
+        for (StudentDto studentDto : studentDtos) {
+            // the mapper leaves the version out, a copy keeps the one it was made with
+            Student copy = studentMapper.toEntity(studentDto).withVersion(studentDto.getVersion());
+            versionClock.observe(copy.getVersion());
+            boolean stored = studentRepository.executeAtomicallyFor(copy.getId(), () -> {
+                while (true) {
+                    Student found = studentRepository.findById(copy.getId()).orElse(null);
+                    if (found == null) {
+                        if (studentRepository.insertIfAbsent(copy)) {
+                            published(StudentChangeEvent.Type.ADDED, copy);
+                            return true;
+                        }
+                    } else if (found.getVersion() >= copy.getVersion()) {
+                        return false;
+                    } else {
+                        Student replaced = studentRepository.replaceIfVersion(copy, found.getVersion());
+                        if (replaced != null && replaced.getVersion() == found.getVersion()) {
+                            published(StudentChangeEvent.Type.UPDATED, copy);
+                            return true;
+                        }
+                    }
+                    // another change came first, look again
+                }
+            });
+            imported += stored ? 1 : 0;
+        }
+        if (imported > 0) {
+            collectionChanged();
+        }
+        return imported;
+    }
+
+    /**
+     * Helper method that checks and applies a batch, must run inside executeAtomically
+     * Every item is checked first against the store plus the effect of the items before it,
+     * so duplicates inside the batch are caught too. Then the valid items are applied,
+     * or none of them if the batch is all-or-nothing and an item failed.
+     * @param mustExist true if the student must exist before the item (update, delete), false if it must not (add)
+     * @param existsAfter Whether the student exists after the item is applied
+     * @param apply Applies one checked item and returns the resulting DTO
+     */
+    private <T> List<BatchItemResult> applyBatch(List<T> items, BatchMode mode, Function<T, Long> idOf,
+                                                 boolean mustExist, boolean existsAfter, Function<T, StudentDto> apply) {
+        Map<Long, Boolean> existsInBatch = new HashMap<>();
+        List<ErrorDetails> errors = new ArrayList<>(items.size());
+        boolean failed = false;
+        for (T item : items) {
+            Long id = idOf.apply(item);
+            Boolean known = existsInBatch.get(id);
+            boolean exists = known != null ? known : studentRepository.existsById(id);
+            ErrorDetails error = null;
+            if (mustExist && !exists) {
+                error = new ErrorDetails("Resource Not Found", "Student with id " + id + " does not exist");
+            } else if (!mustExist && exists) {
+                error = new ErrorDetails("Resource Conflict", "Student with id " + id + " already exists");
+            } else {
+                existsInBatch.put(id, existsAfter);
+            }
+            errors.add(error);
+            failed |= error != null;
+        }
+
+        boolean applyValidItems = !(failed && mode == BatchMode.ATOMIC);
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Long id = idOf.apply(items.get(i));
+            ErrorDetails error = errors.get(i);
+            if (error != null) {
+                results.add(new BatchItemResult(id, "error", null, error));
+            } else if (applyValidItems) {
+                results.add(new BatchItemResult(id, "success", apply.apply(items.get(i)), null));
+            } else {
+                results.add(new BatchItemResult(id, "skipped", null, null));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Helper method that runs the checks shared by both updates
+     * @return The new student data, the caller gives it its version
+     * @throws NotExists If a student doesn't exist
+     * @throws StudentIdAndIdMismatch If ID in a path doesn't match student ID
+     */
+    private Student checkedUpdate(StudentDto studentDto, Long id) {
         // Convert DTO to entity
         Student student = studentMapper.toEntity(studentDto);
-        
+
         // Check if a student exists
-        if (students.stream().noneMatch(s -> s.getId().equals(id))) {
+        if (!studentRepository.existsById(id)) {
             throw new NotExists("Student with id " + id + " does not exist");
         }
-        
+
         // Check ID match
-        if (!student.getId().equals(id)) {
+        if (!id.equals(student.getId())) {
             throw new StudentIdAndIdMismatch("Student with id " + id + " mismatch with body id " + student.getId());
         }
-        
-        // Update student
-        students.stream()
-            .filter(s -> s.getId().equals(student.getId()))
-            .forEach(s -> {
-                s.setFirstName(student.getFirstName());
-                s.setLastName(student.getLastName());
-                s.setAge(student.getAge());
-            });
-            
-        // Convert back to DTO
-        return studentMapper.toDto(student);
+        return student;
     }
 
-    @Override
-    public void deleteStudent(Long id) {
-        // Check if student exists
-        if (students.stream().noneMatch(s -> s.getId().equals(id))) {
-            throw new NotExists("Student with id " + id + " does not exist");
+    /**
+     * Helper method that converts a stored student to its DTO and publishes the change,
+     * must be called while the student's lock is held
+     */
+    private StudentDto published(StudentChangeEvent.Type type, Student student) {
+        StudentDto dto = studentMapper.toDto(student);
+        changeFeed.publish(type, student.getId(), student.getVersion(), dto);
+        return dto;
+    }
+
+    /**
+     * Helper method for an item of a batch, its change is published once the store has applied the whole batch
+     * (a failed batch publishes nothing), still under the locks of the batch
+     */
+    private StudentDto publishedLater(List<Runnable> publications, StudentChangeEvent.Type type, Student student) {
+        StudentDto dto = studentMapper.toDto(student);
+        publications.add(() -> changeFeed.publish(type, student.getId(), student.getVersion(), dto));
+        return dto;
+    }
+
+    /**
+     * Helper method that publishes a delete, must be called while the student's lock is held
+     */
+    private Void publishedDelete(Student removed) {
+        changeFeed.publish(StudentChangeEvent.Type.DELETED, removed.getId(), removed.getVersion(), null);
+        return null;
+    }
+
+    /**
+     * Helper method to build the exception of a failed version check
+     */
+    private static VersionMismatch versionMismatch(Student found, long expectedVersion) {
+        return new VersionMismatch("Student with id " + found.getId() + " has version " + found.getVersion()
+                + ", not " + expectedVersion);
+    }
+
+    /**
+     * Helper method that moves the collection version after a change was applied
+     * The new version is unique, so every version read before the change stops matching
+     */
+    private void collectionChanged() {
+        collectionVersion.accumulateAndGet(versionClock.next(), Math::max);
+    }
+
+    private List<BatchItemResult> collectionChangedIfApplied(List<BatchItemResult> results) {
+        if (results.stream().anyMatch(r -> "success".equals(r.getStatus()))) {
+            collectionChanged();
         }
-        
-        // Delete student
-        students.removeIf(s -> s.getId().equals(id));
+        return results;
     }
-    
+
     /**
      * Helper method to find a student by ID
      * @param id Student ID
@@ -111,9 +371,7 @@ public class StudentServiceImpl implements StudentService {
      * @throws NotExists If a student doesn't exist
      */
     private Student findStudentById(Long id) {
-        return students.stream()
-                .filter(s -> s.getId().equals(id))
-                .findFirst()
+        return studentRepository.findById(id)
                 .orElseThrow(() -> new NotExists("Student with id " + id + " does not exist"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package org.example.stage6.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the asynchronous write pipeline, bound from "student.write-pipeline.*"
+ */
+@Data
+@ConfigurationProperties(prefix = "student.write-pipeline")
+public class WritePipelineProperties {
+
+    /**
+     * Apply addStudent, updateStudent and deleteStudent on one writer thread instead of the request threads
+     */
+    private boolean enabled = false;
+
+    /**
+     * Writes waiting for the writer, callers wait for a free place once it is full
+     */
+    private int queueCapacity = 8192;
+
+    /**
+     * Maximum number of writes the writer takes from the queue at once
+     */
+    private int maxBatchSize = 512;
+}
@@ -0,0 +1,369 @@
+package org.example.stage6.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.AlreadyExists;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.response.ErrorDetails;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Single-writer pipeline in front of another StudentService
+ * addStudent, updateStudent and deleteStudent put a command into a bounded queue and wait for its
+ * CompletableFuture, one writer thread takes every queued command at once and applies them in queue order:
+ * - consecutive commands of the same kind go to the delegate as one BEST_EFFORT batch,
+ *   so the store takes its locks once per batch instead of once per write
+ * - consecutive updates of the same student are coalesced, only the last one is applied and every one of them
+ *   completes with the stored result
+ * - a conditional write (If-Match), and an update whose body ID does not match, is applied on its own
+ * Failed items complete with the exception the direct call throws: AlreadyExists, NotExists,
+ * StudentIdAndIdMismatch, VersionMismatch. Reads and the batch operations go straight to the delegate.
+ */
+public class WritePipelineStudentService implements StudentService, AutoCloseable {
+
+    private final StudentService delegate;
+
+    private final BlockingQueue<Command> queue;
+
+    private final int maxBatchSize;
+
+    private final Thread writer;
+
+    private final DistributionSummary batchSizes;
+
+    private final Counter coalesced;
+
+    private volatile boolean running = true;
+
+    private enum Kind {
+        ADD,
+        UPDATE,
+        DELETE,
+        SINGLE
+    }
+
+    /**
+     * One queued write, a SINGLE command carries the call to make on the delegate
+     */
+    private record Command(Kind kind, Long id, StudentDto student, Function<StudentService, StudentDto> single,
+                           CompletableFuture<StudentDto> result) {
+    }
+
+    public WritePipelineStudentService(StudentService delegate, int queueCapacity, int maxBatchSize, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        if (registry != null) {
+            Gauge.builder("student.write-pipeline.queue", queue, BlockingQueue::size)
+                    .description("Writes waiting for the writer thread")
+                    .register(registry);
+            this.batchSizes = DistributionSummary.builder("student.write-pipeline.batch-size")
+                    .description("Writes the writer thread took from the queue at once")
+                    .register(registry);
+            this.coalesced = Counter.builder("student.write-pipeline.coalesced")
+                    .description("Updates merged into a later update of the same student")
+                    .register(registry);
+        } else {
+            this.batchSizes = null;
+            this.coalesced = null;
+        }
+        this.writer = new Thread(this::run, "student-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue an add, the future completes with the added student or fails with AlreadyExists
+     */
+    public CompletableFuture<StudentDto> submitAdd(StudentDto studentDto) {
+        return submit(new Command(Kind.ADD, studentDto.getId(), studentDto, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queue an update, the future completes with the stored student or fails with NotExists or StudentIdAndIdMismatch
+     */
+    public CompletableFuture<StudentDto> submitUpdate(StudentDto studentDto, Long id) {
+        if (!id.equals(studentDto.getId())) {
+            // the delegate reports NotExists or StudentIdAndIdMismatch, in that order
+            return submitSingle(service -> service.updateStudent(studentDto, id));
+        }
+        return submit(new Command(Kind.UPDATE, id, studentDto, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queue a delete, the future completes with null or fails with NotExists
+     */
+    public CompletableFuture<StudentDto> submitDelete(Long id) {
+        return submit(new Command(Kind.DELETE, id, null, null, new CompletableFuture<>()));
+    }
+
+    @Override
+    public StudentDto addStudent(StudentDto studentDto) {
+        return await(submitAdd(studentDto));
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id) {
+        return await(submitUpdate(studentDto, id));
+    }
+
+    @Override
+    public StudentDto updateStudent(StudentDto studentDto, Long id, long expectedVersion) {
+        return await(submitSingle(service -> service.updateStudent(studentDto, id, expectedVersion)));
+    }
+
+    @Override
+    public void deleteStudent(Long id) {
+        await(submitDelete(id));
+    }
+
+    @Override
+    public void deleteStudent(Long id, long expectedVersion) {
+        await(submitSingle(service -> {
+            service.deleteStudent(id, expectedVersion);
+            return null;
+        }));
+    }
+
+    @Override
+    public List<StudentDto> getAllStudents() {
+        return delegate.getAllStudents();
+    }
+
+    @Override
+    public List<StudentDto> getStudentsPage(Long afterId, int limit) {
+        return delegate.getStudentsPage(afterId, limit);
+    }
+
+    @Override
+    public List<StudentDto> searchStudents(String lastNamePrefix, String firstNamePrefix, Double minAge, Double maxAge, int limit) {
+        return delegate.searchStudents(lastNamePrefix, firstNamePrefix, minAge, maxAge, limit);
+    }
+
+    @Override
+    public long getCollectionVersion() {
+        return delegate.getCollectionVersion();
+    }
+
+    @Override
+    public long getStudentVersion(Long id) {
+        return delegate.getStudentVersion(id);
+    }
+
+    @Override
+    public StudentDto getStudent(Long id) {
+        return delegate.getStudent(id);
+    }
+
+    @Override
+    public List<BatchItemResult> addStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return delegate.addStudents(studentDtos, mode);
+    }
+
+    @Override
+    public List<BatchItemResult> updateStudents(List<StudentDto> studentDtos, BatchMode mode) {
+        return delegate.updateStudents(studentDtos, mode);
+    }
+
+    @Override
+    public List<BatchItemResult> deleteStudents(List<Long> ids, BatchMode mode) {
+        return delegate.deleteStudents(ids, mode);
+    }
+
+    @Override
+    public int importStudents(List<StudentDto> studentDtos) {
+        return delegate.importStudents(studentDtos);
+    }
+
+    /**
+     * Stops the writer once the queued writes are applied
+     * A write queued while the writer was already stopping fails with IllegalStateException instead
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join();
+        List<Command> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(WritePipelineStudentService::reject);
+    }
+
+    private CompletableFuture<StudentDto> submitSingle(Function<StudentService, StudentDto> call) {
+        return submit(new Command(Kind.SINGLE, null, null, call, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<StudentDto> submit(Command command) {
+        if (!running) {
+            throw new IllegalStateException("The write pipeline is closed");
+        }
+        try {
+            queue.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write queue", e);
+        }
+        // closed while putting: the writer may have stopped already, a command still queued is never applied
+        if (!running && queue.remove(command)) {
+            reject(command);
+        }
+        return command.result();
+    }
+
+    private static void reject(Command command) {
+        command.result().completeExceptionally(new IllegalStateException("The write pipeline is closed"));
+    }
+
+    private void run() {
+        List<Command> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // closing, the loop applies what is left in the queue
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            if (batchSizes != null) {
+                batchSizes.record(batch.size());
+            }
+            apply(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Helper method that applies the commands in queue order, one run of same-kind commands at a time
+     */
+    private void apply(List<Command> batch) {
+        int start = 0;
+        while (start < batch.size()) {
+            Kind kind = batch.get(start).kind();
+            int end = start + 1;
+            while (kind != Kind.SINGLE && end < batch.size() && batch.get(end).kind() == kind) {
+                end++;
+            }
+            List<Command> run = batch.subList(start, end);
+            try {
+                switch (kind) {
+                    case ADD -> applyAdds(run);
+                    case UPDATE -> applyUpdates(run);
+                    case DELETE -> applyDeletes(run);
+                    case SINGLE -> run.get(0).result().complete(run.get(0).single().apply(delegate));
+                }
+            } catch (Throwable e) {
+                // commands already completed keep their result
+                run.forEach(command -> command.result().completeExceptionally(e));
+            }
+            start = end;
+        }
+    }
+
+    private void applyAdds(List<Command> run) {
+        if (run.size() == 1) {
+            run.get(0).result().complete(delegate.addStudent(run.get(0).student()));
+            return;
+        }
+        List<BatchItemResult> results = delegate.addStudents(run.stream().map(Command::student).toList(), BatchMode.BEST_EFFORT);
+        for (int i = 0; i < run.size(); i++) {
+            complete(run.get(i), results.get(i));
+        }
+    }
+
+    /**
+     * The last update of every student is applied, the earlier ones complete with its result
+     */
+    private void applyUpdates(List<Command> run) {
+        if (run.size() == 1) {
+            Command command = run.get(0);
+            command.result().complete(delegate.updateStudent(command.student(), command.id()));
+            return;
+        }
+        Map<Long, List<Command>> byId = new LinkedHashMap<>();
+        for (Command command : run) {
+            byId.computeIfAbsent(command.id(), id -> new ArrayList<>(1)).add(command);
+        }
+        List<StudentDto> students = new ArrayList<>(byId.size());
+        for (List<Command> commands : byId.values()) {
+            students.add(commands.get(commands.size() - 1).student());
+        }
+        if (coalesced != null) {
+            coalesced.increment(run.size() - byId.size());
+        }
+        List<BatchItemResult> results = delegate.updateStudents(students, BatchMode.BEST_EFFORT);
+        int i = 0;
+        for (List<Command> commands : byId.values()) {
+            BatchItemResult result = results.get(i++);
+            commands.forEach(command -> complete(command, result));
+        }
+    }
+
+    private void applyDeletes(List<Command> run) {
+        if (run.size() == 1) {
+            delegate.deleteStudent(run.get(0).id());
+            run.get(0).result().complete(null);
+            return;
+        }
+        List<BatchItemResult> results = delegate.deleteStudents(run.stream().map(Command::id).toList(), BatchMode.BEST_EFFORT);
+        for (int i = 0; i < run.size(); i++) {
+            complete(run.get(i), results.get(i));
+        }
+    }
+
+    /**
+     * Helper method that completes a command with its batch item, a failed item with the exception of the direct call
+     */
+    private static void complete(Command command, BatchItemResult result) {
+        if ("success".equals(result.getStatus())) {
+            command.result().complete(result.getData());
+            return;
+        }
+        command.result().completeExceptionally(exceptionOf(result));
+    }
+
+    /**
+     * Helper method that maps the error of a failed batch item back to its exception
+     */
+    private static RuntimeException exceptionOf(BatchItemResult result) {
+        if (result.getError() instanceof ErrorDetails error) {
+            if ("Resource Conflict".equals(error.getType())) {
+                return new AlreadyExists(error.getMessage());
+            }
+            if ("Resource Not Found".equals(error.getType())) {
+                return new NotExists(error.getMessage());
+            }
+        }
+        return new IllegalStateException("Unexpected " + result.getStatus() + " batch item for student "
+                + result.getId() + ": " + result.getError());
+    }
+
+    /**
+     * Helper method that waits for a command and throws its exception as the direct call would
+     */
+    private static StudentDto await(CompletableFuture<StudentDto> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.stage6.admission;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AdmissionControlFilter without a server: the filter chain stands in for the controller
+ */
+class AdmissionControlFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void clientOverItsRateGetsPrebuilt429() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getEndpoints().put("getAllStudents", limit(1, 2, 0, true));
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, objectMapper, registry);
+
+        assertEquals(200, send(filter, "/student/getAllStudents", "10.0.0.1").getStatus());
+        assertEquals(200, send(filter, "/student/getAllStudents", "10.0.0.1").getStatus());
+        MockHttpServletResponse refused = send(filter, "/student/getAllStudents", "10.0.0.1");
+        assertEquals(429, refused.getStatus());
+        assertNotNull(refused.getHeader("Retry-After"));
+        JsonNode body = objectMapper.readTree(refused.getContentAsByteArray());
+        assertEquals("error", body.path("status").asText());
+        assertEquals("Too Many Requests", body.path("error").path("type").asText());
+        assertTrue(body.has("timestamp"));
+
+        // other clients and other endpoints have their own buckets
+        assertEquals(200, send(filter, "/student/getAllStudents", "10.0.0.2").getStatus());
+        assertEquals(200, send(filter, "/student/getStudent/1", "10.0.0.1").getStatus());
+        assertEquals(1.0, registry.get("student.admission.rejected")
+                .tag("endpoint", "getAllStudents").tag("reason", "rate").counter().count());
+    }
+
+    @Test
+    void expensiveCallsCannotTakeTheWholeAdaptiveLimit() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getEndpoints().put("getAllStudents", limit(0, 1, 0, false));
+        properties.getAdaptive().setInitialLimit(4);
+        properties.getAdaptive().setNonCriticalShare(0.5);
+        AdmissionControlFilter filter = new AdmissionControlFilter(properties, objectMapper, registry);
+
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch finish = new CountDownLatch(1);
+        FilterChain blocking = (request, response) -> {
+            entered.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                clients.execute(() -> send(filter, "/student/getAllStudents", "10.0.0.1", blocking));
+            }
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            // two expensive calls use the non-critical half, a third is shed while cheap calls still get through
+            assertEquals(429, send(filter, "/student/getAllStudents", "10.0.0.1").getStatus());
+            assertEquals(200, send(filter, "/student/getStudent/1", "10.0.0.1").getStatus());
+        } finally {
+            finish.countDown();
+            clients.shutdown();
+        }
+    }
+
+    private static AdmissionProperties.Limit limit(double rate, int burst, int maxConcurrent, boolean critical) {
+        AdmissionProperties.Limit limit = new AdmissionProperties.Limit();
+        limit.setRate(rate);
+        limit.setBurst(burst);
+        limit.setMaxConcurrent(maxConcurrent);
+        limit.setLatencyTarget(Duration.ofSeconds(1));
+        limit.setCritical(critical);
+        return limit;
+    }
+
+    private static MockHttpServletResponse send(AdmissionControlFilter filter, String path, String client) {
+        return send(filter, path, client, new MockFilterChain());
+    }
+
+    private static MockHttpServletResponse send(AdmissionControlFilter filter, String path, String client, FilterChain chain) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.stage6.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Spread of the students over the nodes and how many of them move when a node joins or leaves
+ */
+class ConsistentHashRingTest {
+
+    private static final int STUDENTS = 100_000;
+
+    private static final List<String> NODES = List.of("http://localhost:8081", "http://localhost:8082",
+            "http://localhost:8083", "http://localhost:8084");
+
+    @Test
+    void studentsAreSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        Map<String, Integer> owned = new HashMap<>();
+        for (long id = 1; id <= STUDENTS; id++) {
+            owned.merge(ring.ownerOf(id), 1, Integer::sum);
+        }
+        assertEquals(NODES.size(), owned.size());
+        for (int count : owned.values()) {
+            // a fair share is 25%
+            assertTrue(count > STUDENTS * 0.18 && count < STUDENTS * 0.32, "uneven spread: " + owned);
+        }
+    }
+
+    @Test
+    void onlyTheStudentsOfTheNewNodeMove() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing after = before.with("http://localhost:8085");
+        int moved = 0;
+        for (long id = 1; id <= STUDENTS; id++) {
+            String owner = after.ownerOf(id);
+            if (!owner.equals(before.ownerOf(id))) {
+                assertEquals("http://localhost:8085", owner);
+                moved++;
+            }
+        }
+        // about 1/5 of the students belong to the fifth node
+        assertTrue(moved > STUDENTS * 0.12 && moved < STUDENTS * 0.28, "moved " + moved);
+    }
+
+    @Test
+    void onlyTheStudentsOfTheLeavingNodeMove() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing after = before.without("http://localhost:8082");
+        for (long id = 1; id <= STUDENTS; id++) {
+            String owner = before.ownerOf(id);
+            if (!owner.equals("http://localhost:8082")) {
+                assertEquals(owner, after.ownerOf(id));
+            }
+        }
+    }
+
+    @Test
+    void ownerDoesNotDependOnTheOrderOfTheNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        List<String> reversedNodes = new ArrayList<>(NODES);
+        Collections.reverse(reversedNodes);
+        ConsistentHashRing reversed = new ConsistentHashRing(reversedNodes, 128);
+        for (long id = 1; id <= 1_000; id++) {
+            assertEquals(ring.ownerOf(id), reversed.ownerOf(id));
+        }
+    }
+}
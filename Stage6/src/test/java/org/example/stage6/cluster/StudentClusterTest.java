@@ -0,0 +1,180 @@
+package org.example.stage6.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.stage6.Stage6Application;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Several Stage6 nodes on localhost in one partitioned deployment
+ * Checks routing, the merged reads, and that no student is lost when nodes join and leave
+ */
+class StudentClusterTest {
+
+    private static final String SECRET = "test-secret";
+
+    private final RestClient client = RestClient.builder()
+            .defaultHeader(ClusterSecretFilter.HEADER, SECRET)
+            .build();
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void studentsStayReachableWhileNodesJoinAndLeave() throws IOException {
+        String first = start(true, null);
+        String second = start(false, first);
+
+        // written through one node, each student lands on its owner only
+        for (long id = 100; id < 160; id++) {
+            client.post().uri(second + "/student/addStudent")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(student(id))
+                    .retrieve().toBodilessEntity();
+        }
+        awaitBalanced(List.of(first, second), 64);
+        assertEquals("First120", data(first + "/student/getStudent/120").path("firstName").asText());
+
+        // an all-or-nothing batch over two nodes is refused as a whole, BEST_EFFORT applies it per node
+        List<Map<String, Object>> spanning = List.of(student(200), student(idOnOtherNodeThan200(first, second, 201)));
+        assertEquals(HttpStatusCode.valueOf(422), client.post().uri(first + "/student/addStudents")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("students", spanning))
+                .exchange((request, response) -> response.getStatusCode()));
+        assertEquals(64, data(first + "/student/getAllStudents").size());
+        client.post().uri(first + "/student/addStudents?mode=BEST_EFFORT")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("students", spanning))
+                .retrieve().toBodilessEntity();
+        assertEquals(66, data(first + "/student/getAllStudents").size());
+        client.method(HttpMethod.DELETE).uri(first + "/student/deleteStudents?mode=BEST_EFFORT")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("ids", spanning.stream().map(student -> student.get("id")).toList()))
+                .retrieve().toBodilessEntity();
+
+        String third = start(false, first);
+        awaitBalanced(List.of(first, second, third), 64);
+        assertEquals(64, data(third + "/student/getAllStudents").size());
+        assertEquals(3, data(second + "/cluster/nodes").size());
+        // only the nodes can call /cluster
+        assertEquals(HttpStatusCode.valueOf(401), RestClient.create().post().uri(first + "/cluster/nodes/leave?url=" + second)
+                .exchange((request, response) -> response.getStatusCode()));
+        // a copy from the future would win against every later change of the student
+        Map<String, Object> copy = Map.of("id", 300, "firstName", "First300", "lastName", "Last300", "age", 20,
+                "version", Long.MAX_VALUE);
+        assertEquals(HttpStatusCode.valueOf(400), client.post().uri(first + "/cluster/students/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("students", List.of(copy)))
+                .exchange((request, response) -> response.getStatusCode()));
+
+        // the second node hands over its students when it stops
+        ConfigurableApplicationContext secondNode = nodes.remove(1);
+        secondNode.close();
+        awaitBalanced(List.of(first, third), 64);
+        assertEquals(2, data(first + "/cluster/nodes").size());
+        assertEquals(HttpStatusCode.valueOf(404), client.get().uri(third + "/student/getStudent/999")
+                .exchange((request, response) -> response.getStatusCode()));
+    }
+
+    private static Map<String, Object> student(long id) {
+        return Map.of("id", id, "firstName", "First" + id, "lastName", "Last" + id, "age", 20);
+    }
+
+    /**
+     * The first ID from the given one on that is not owned by the node that owns ID 200
+     */
+    private static long idOnOtherNodeThan200(String first, String second, long from) {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(first, second), 128);
+        long id = from;
+        while (ring.ownerOf(id).equals(ring.ownerOf(200L))) {
+            id++;
+        }
+        return id;
+    }
+
+    /**
+     * Starts a node on a free port
+     * @param seed A node to join, null for the first node
+     */
+    private String start(boolean initialData, String seed) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String url = "http://localhost:" + port;
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + port,
+                "--spring.application.name=node-" + port,
+                "--student.cluster.enabled=true",
+                "--student.cluster.self-url=" + url,
+                "--student.cluster.secret=" + SECRET,
+                "--student.repository.initial-data=" + initialData));
+        if (seed != null) {
+            args.add("--student.cluster.seeds=" + seed);
+        }
+        nodes.add(new SpringApplicationBuilder(Stage6Application.class).run(args.toArray(String[]::new)));
+        return url;
+    }
+
+    /**
+     * Waits until every student is stored exactly once, on the node that owns it
+     */
+    private void awaitBalanced(List<String> urls, int students) {
+        ConsistentHashRing ring = new ConsistentHashRing(urls, 128);
+        await(() -> {
+            Set<Long> seen = new HashSet<>();
+            for (String url : urls) {
+                for (JsonNode student : data(url + "/cluster/students")) {
+                    long id = student.path("id").asLong();
+                    if (!seen.add(id) || !ring.ownerOf(id).equals(url)) {
+                        return false;
+                    }
+                }
+            }
+            return seen.size() == students;
+        });
+    }
+
+    private JsonNode data(String uri) {
+        JsonNode response = client.get().uri(uri).accept(MediaType.APPLICATION_JSON).retrieve().body(JsonNode.class);
+        return response.path("data");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 30 s");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            }
+        }
+    }
+}
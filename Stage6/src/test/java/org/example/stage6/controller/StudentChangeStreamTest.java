@@ -0,0 +1,109 @@
+package org.example.stage6.controller;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.service.StudentChangeFeed;
+import org.example.stage6.service.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GET /student/changes over HTTP with a change feed of four events: resuming, falling behind, resuming after a restart
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "student.changes.buffer-size=4")
+class StudentChangeStreamTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentChangeFeed changeFeed;
+
+    @Test
+    void clientResumesAfterLastEventId() {
+        change(3);
+        long last = changeFeed.getLastSequence();
+
+        List<String> lines = read("Last-Event-ID", Long.toString(last - 2), line -> line.equals("id:" + last));
+
+        assertEquals(List.of("id:" + (last - 1), "id:" + last), lines.stream().filter(line -> line.startsWith("id:")).toList());
+        assertFalse(lines.contains("event:reset"));
+    }
+
+    @Test
+    void clientTooFarBehindGetsReset() {
+        change(6);
+        long last = changeFeed.getLastSequence();
+
+        List<String> lines = read("Last-Event-ID", Long.toString(last - 5), line -> false);
+
+        assertTrue(lines.contains("event:reset"));
+        assertTrue(lines.stream().noneMatch(line -> line.startsWith("id:")));
+    }
+
+    @Test
+    void clientFromBeforeARestartGetsReset() {
+        change(1);
+        // the client saw sequence last + 100 before the server restarted and its sequences started over
+        long last = changeFeed.getLastSequence();
+
+        List<String> lines = read("Last-Event-ID", Long.toString(last + 100), line -> false);
+
+        assertTrue(lines.contains("event:reset"));
+    }
+
+    private void change(int times) {
+        for (int i = 0; i < times; i++) {
+            studentService.updateStudent(new StudentDto(1L, "Alice" + i, "Moskovitz", 20.5, 0), 1L);
+        }
+    }
+
+    /**
+     * Helper method that reads the event stream until the last wanted line or until the server ends it
+     */
+    private List<String> read(String header, String value, Predicate<String> lastWanted) {
+        return assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/student/changes"))
+                    .header("Accept", "text/event-stream")
+                    .header(header, value)
+                    .build();
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            assertEquals(200, response.statusCode());
+            List<String> lines = new ArrayList<>();
+            try (Stream<String> body = response.body()) {
+                Iterator<String> iterator = body.iterator();
+                while (iterator.hasNext()) {
+                    String line = iterator.next();
+                    lines.add(line);
+                    if (lastWanted.test(line)) {
+                        break;
+                    }
+                }
+            }
+            return lines;
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.stage6.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Status of a batch of StudentController that applied nothing: 404 when the students are missing, 409 on a conflict
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StudentControllerBatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void batchOfMissingStudentsIsNotFound() throws Exception {
+        mockMvc.perform(delete("/student/deleteStudents")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"ids\": [990, 991]}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.data[0].error.type").value("Resource Not Found"));
+    }
+
+    @Test
+    void atomicBatchRejectedByAConflictIsAConflict() throws Exception {
+        mockMvc.perform(post("/student/addStudents")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"students\": ["
+                                + "{\"id\": 992, \"firstName\": \"Gil\", \"lastName\": \"Levi\", \"age\": 20},"
+                                + "{\"id\": 992, \"firstName\": \"Gil\", \"lastName\": \"Levi\", \"age\": 20}]}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.data[0].status").value("skipped"))
+                .andExpect(jsonPath("$.data[1].error.type").value("Resource Conflict"));
+    }
+}
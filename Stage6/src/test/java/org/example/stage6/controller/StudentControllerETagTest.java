@@ -0,0 +1,150 @@
+package org.example.stage6.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional requests of StudentController: If-None-Match on reads, If-Match on updates and deletes
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StudentControllerETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void getStudentWithTheCurrentETagIsNotModified() throws Exception {
+        String etag = add(500, "Alice");
+
+        mockMvc.perform(get("/student/getStudent/500").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        String updated = update(500, "Alicia", null);
+        mockMvc.perform(get("/student/getStudent/500").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, updated))
+                .andExpect(jsonPath("$.data.firstName").value("Alicia"));
+    }
+
+    @Test
+    void getAllStudentsWithTheCurrentETagIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/student/getAllStudents"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/student/getAllStudents").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        add(501, "Bob");
+        mockMvc.perform(get("/student/getAllStudents").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateWithAStaleIfMatchFailsTheCondition() throws Exception {
+        String etag = add(502, "Carol");
+        String current = update(502, "Caroline", etag);
+        assertNotEquals(etag, current);
+
+        mockMvc.perform(put("/student/updateStudent/502").header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(json(502, "Carrie")))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.error.type").value("Precondition Failed"));
+
+        mockMvc.perform(get("/student/getStudent/502"))
+                .andExpect(header().string(HttpHeaders.ETAG, current))
+                .andExpect(jsonPath("$.data.firstName").value("Caroline"));
+    }
+
+    @Test
+    void deleteOnlyMatchesOneStrongETagOrAnyVersion() throws Exception {
+        String etag = add(503, "Dana");
+
+        for (String ifMatch : new String[]{"W/" + etag, "\"not-a-version\"", etag + ", \"1\""}) {
+            mockMvc.perform(delete("/student/deleteStudent/503").header(HttpHeaders.IF_MATCH, ifMatch))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.error.type").value("Precondition Failed"));
+        }
+        mockMvc.perform(delete("/student/deleteStudent/503").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isNoContent());
+
+        add(504, "Eli");
+        mockMvc.perform(delete("/student/deleteStudent/504").header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void eachEncodingHasItsOwnETagAndTheResponseVariesByAccept() throws Exception {
+        String json = add(505, "Fay");
+        String cbor = mockMvc.perform(get("/student/getStudent/505").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertEquals(json.replace("\"", "") + "+cbor", cbor.replace("\"", ""));
+        // a validator of the JSON body never answers a CBOR request with 304
+        mockMvc.perform(get("/student/getStudent/505").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/student/getStudent/505").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(get("/student/getAllStudents").accept("application/x-jackson-smile"))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("+smile\"")))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+        // both ETags name the same version for If-Match
+        update(505, "Faye", cbor);
+    }
+
+    /**
+     * Helper method that adds a student and returns its ETag
+     */
+    private String add(long id, String firstName) throws Exception {
+        return mockMvc.perform(post("/student/addStudent")
+                        .contentType(MediaType.APPLICATION_JSON).content(json(id, firstName)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    /**
+     * Helper method that updates a student, with If-Match when an ETag is given, and returns its new ETag
+     */
+    private String update(long id, String firstName, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = put("/student/updateStudent/" + id)
+                .contentType(MediaType.APPLICATION_JSON).content(json(id, firstName));
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static String json(long id, String firstName) {
+        return "{\"id\":" + id + ",\"firstName\":\"" + firstName + "\",\"lastName\":\"Moskovitz\",\"age\":20.5}";
+    }
+}
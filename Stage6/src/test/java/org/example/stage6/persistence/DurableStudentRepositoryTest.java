@@ -0,0 +1,134 @@
+package org.example.stage6.persistence;
+
+import org.example.stage6.model.Student;
+import org.example.stage6.repository.InMemoryStudentRepository;
+import org.example.stage6.repository.JdbcStudentRepository;
+import org.example.stage6.repository.StudentRepository;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DurableStudentRepository recovery after a restart, from a snapshot, the log, or both
+ */
+class DurableStudentRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversFromSnapshotPlusTheLogAfterIt() throws IOException {
+        try (DurableStudentRepository repository = open()) {
+            assertFalse(repository.isRecovered());
+            repository.insertIfAbsent(student(1, "Alice", 1));
+            repository.insertIfAbsent(student(2, "Bob", 1));
+            repository.snapshot();
+            // changes after the snapshot are only in the log
+            repository.replaceIfVersion(student(1, "Alicia", 2), 1);
+            repository.removeById(2L);
+            repository.insertIfAbsent(student(3, "Carol", 1));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+
+        try (DurableStudentRepository repository = open()) {
+            assertTrue(repository.isRecovered());
+            assertEquals(List.of(student(1, "Alicia", 2), student(3, "Carol", 1)), repository.findAll().stream()
+                    .sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList());
+        }
+    }
+
+    @Test
+    void recoversUpToATornTailAndKeepsWriting() throws IOException {
+        try (DurableStudentRepository repository = open()) {
+            repository.insertIfAbsent(student(1, "Alice", 1));
+            repository.insertIfAbsent(student(2, "Bob", 1));
+        }
+        Path segment = lastSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 5);
+        }
+
+        try (DurableStudentRepository repository = open()) {
+            assertEquals(List.of(student(1, "Alice", 1)), repository.findAll());
+            repository.insertIfAbsent(student(3, "Carol", 1));
+        }
+        try (DurableStudentRepository repository = open()) {
+            assertEquals(2, repository.count());
+            assertTrue(repository.existsById(3L));
+        }
+    }
+
+    @Test
+    void recoversUpToARecordWithAChecksumMismatch() throws IOException {
+        try (DurableStudentRepository repository = open()) {
+            repository.insertIfAbsent(student(1, "Alice", 1));
+            repository.replaceIfVersion(student(1, "Alicia", 2), 1);
+        }
+        WriteAheadLogTest.flipLastByte(lastSegment());
+
+        try (DurableStudentRepository repository = open()) {
+            assertEquals(List.of(student(1, "Alice", 1)), repository.findAll());
+        }
+    }
+
+    @Test
+    void batchTheDatabaseRejectsLeavesNothingInTheLog() throws IOException {
+        StudentRepositoryProperties.Jdbc jdbc = new StudentRepositoryProperties.Jdbc();
+        jdbc.setUrl("jdbc:h2:mem:" + UUID.randomUUID());
+        try (DurableStudentRepository repository = open(new JdbcStudentRepository(jdbc))) {
+            repository.insertIfAbsent(student(1, "Alice", 1));
+            // first_name is VARCHAR(50), the database fails the batch when it is written at its end
+            assertThrows(RuntimeException.class, () -> repository.executeAtomically(() -> {
+                repository.replaceIfPresent(student(1, "Alicia", 2));
+                return repository.insertIfAbsent(student(2, "B".repeat(60), 1));
+            }));
+            repository.executeAtomically(() -> repository.insertIfAbsent(student(3, "Carol", 1)));
+        }
+
+        try (DurableStudentRepository repository = open()) {
+            assertEquals(List.of(student(1, "Alice", 1), student(3, "Carol", 1)), repository.findAll().stream()
+                    .sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList());
+        }
+    }
+
+    private DurableStudentRepository open() {
+        return open(new InMemoryStudentRepository());
+    }
+
+    private DurableStudentRepository open(StudentRepository store) {
+        StudentRepositoryProperties.Persistence settings = new StudentRepositoryProperties.Persistence();
+        settings.setEnabled(true);
+        settings.setDirectory(directory.toString());
+        settings.setGroupCommitInterval(Duration.ZERO);
+        // snapshots are only taken when a test asks for one
+        settings.setSnapshotInterval(Duration.ofHours(1));
+        return new DurableStudentRepository(store, settings);
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("wal-")).max(Path::compareTo).orElseThrow();
+        }
+    }
+
+    private static Student student(long id, String firstName, long version) {
+        return new Student(id, firstName, "Student", 20.5, version);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.stage6.persistence;
+
+import org.example.stage6.model.Student;
+import org.example.stage6.repository.InMemoryStudentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SnapshotFile round trip and the checks done when a snapshot is read
+ */
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotHoldsEveryStudentWithItsVersion() throws IOException {
+        InMemoryStudentRepository store = new InMemoryStudentRepository();
+        for (long id = 1; id <= 25_000; id++) {
+            store.insertIfAbsent(new Student(id, "First" + id, "Last" + id, id % 80, id * 10));
+        }
+
+        Path file = SnapshotFile.write(directory, 42, store);
+        List<Student> read = new ArrayList<>();
+
+        assertEquals(42, SnapshotFile.read(file, read::add));
+        assertEquals(store.findPage(null, 30_000), read);
+        assertEquals(file, SnapshotFile.latest(directory).orElseThrow());
+    }
+
+    @Test
+    void damagedSnapshotIsRejected() throws IOException {
+        InMemoryStudentRepository store = new InMemoryStudentRepository();
+        store.insertIfAbsent(new Student(1L, "Alice", "Student", 20.5, 1));
+        Path file = SnapshotFile.write(directory, 1, store);
+        byte[] bytes = Files.readAllBytes(file);
+        // a changed student name, the checksum at the end no longer matches
+        bytes[bytes.length - 12] ^= 0x55;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(file, student -> {
+        }));
+    }
+
+    @Test
+    void olderSnapshotsAreDeleted() throws IOException {
+        InMemoryStudentRepository store = new InMemoryStudentRepository();
+        Path older = SnapshotFile.write(directory, 1, store);
+        Path newer = SnapshotFile.write(directory, 2, store);
+
+        SnapshotFile.deleteOlderThan(directory, newer);
+
+        assertFalse(Files.exists(older));
+        assertEquals(newer, SnapshotFile.latest(directory).orElseThrow());
+    }
+}
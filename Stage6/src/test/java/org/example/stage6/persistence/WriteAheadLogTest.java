@@ -0,0 +1,144 @@
+package org.example.stage6.persistence;
+
+import org.example.stage6.model.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * WriteAheadLog replay, including the damage a crash can leave behind
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsAreReplayedInLsnOrder() throws IOException {
+        try (WriteAheadLog log = open(0)) {
+            log.appendPut(student(1, "Alice", 1));
+            log.appendPut(student(2, "Bob", 2));
+            log.awaitDurable(log.appendDelete(1));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        assertEquals(3, WriteAheadLog.replay(directory, 0, recorder(replayed)));
+        assertEquals(List.of("1 put 1 Alice v1", "2 put 2 Bob v2", "3 delete 1"), replayed);
+
+        replayed.clear();
+        assertEquals(3, WriteAheadLog.replay(directory, 2, recorder(replayed)));
+        assertEquals(List.of("3 delete 1"), replayed);
+    }
+
+    @Test
+    void tornTailIsCutOffAndTheLogContinuesAfterIt() throws IOException {
+        writeThreeRecords();
+        Path segment = onlySegment();
+        long size = Files.size(segment);
+        // a crash in the middle of writing the last record
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        long last = WriteAheadLog.replay(directory, 0, recorder(replayed));
+
+        assertEquals(2, last);
+        assertEquals(List.of("1 put 1 Alice v1", "2 put 2 Bob v1"), replayed);
+        assertTrue(Files.size(segment) < size - 3);
+
+        try (WriteAheadLog log = open(last)) {
+            log.awaitDurable(log.appendPut(student(3, "Carol", 2)));
+        }
+        replayed.clear();
+        assertEquals(3, WriteAheadLog.replay(directory, 0, recorder(replayed)));
+        assertEquals("3 put 3 Carol v2", replayed.get(2));
+    }
+
+    @Test
+    void checksumMismatchInTheLastSegmentCutsOffFromThatRecord() throws IOException {
+        writeThreeRecords();
+        Path segment = onlySegment();
+        flipLastByte(segment);
+
+        List<String> replayed = new ArrayList<>();
+        assertEquals(2, WriteAheadLog.replay(directory, 0, recorder(replayed)));
+        assertEquals(List.of("1 put 1 Alice v1", "2 put 2 Bob v1"), replayed);
+    }
+
+    @Test
+    void checksumMismatchInAnEarlierSegmentIsAnError() throws IOException {
+        Path first;
+        try (WriteAheadLog log = open(0)) {
+            log.appendPut(student(1, "Alice", 1));
+            log.rotate();
+            first = segments().get(0);
+            log.awaitDurable(log.appendPut(student(2, "Bob", 1)));
+        }
+        flipLastByte(first);
+
+        assertThrows(IOException.class, () -> WriteAheadLog.replay(directory, 0, recorder(new ArrayList<>())));
+    }
+
+    private void writeThreeRecords() {
+        try (WriteAheadLog log = open(0)) {
+            log.appendPut(student(1, "Alice", 1));
+            log.appendPut(student(2, "Bob", 1));
+            log.awaitDurable(log.appendPut(student(1, "Alicia", 2)));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private WriteAheadLog open(long lastLsn) {
+        return new WriteAheadLog(directory, lastLsn, 0, 4096, 64L * 1024 * 1024);
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("wal-")).sorted().toList();
+        }
+    }
+
+    static void flipLastByte(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(file, bytes);
+    }
+
+    private static WriteAheadLog.ReplayHandler recorder(List<String> replayed) {
+        return new WriteAheadLog.ReplayHandler() {
+            @Override
+            public void put(long lsn, Student student) {
+                replayed.add(lsn + " put " + student.getId() + " " + student.getFirstName() + " v" + student.getVersion());
+            }
+
+            @Override
+            public void delete(long lsn, long id) {
+                replayed.add(lsn + " delete " + id);
+            }
+        };
+    }
+
+    private static Student student(long id, String firstName, long version) {
+        return new Student(id, firstName, "Student", 20.5, version);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.stage6.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.stage6.Stage6Application;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A leader and a follower on localhost
+ * Checks the snapshot catch-up, read-your-writes with the sequence token and the redirects to the leader
+ */
+class ReplicationTest {
+
+    private static final String SECRET = "replication-test";
+
+    // redirects are not followed, so the test sees them
+    private final RestClient client = RestClient.builder()
+            .requestFactory(new JdkClientHttpRequestFactory(HttpClient.newHttpClient()))
+            .build();
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void followerCopiesTheLeaderAndServesReads() throws IOException {
+        String leader = start("--student.replication.role=leader", "--student.replication.secret=" + SECRET);
+        for (long id = 100; id < 110; id++) {
+            add(leader, id);
+        }
+
+        // students written before the follower started come with the snapshot
+        String follower = start("--student.replication.role=follower",
+                "--student.replication.leader-url=" + leader,
+                "--student.replication.secret=" + SECRET,
+                "--student.replication.max-staleness=2s",
+                "--student.repository.initial-data=false");
+        await(() -> get(follower + "/student/getAllStudents", null).getStatusCode().value() == 200);
+        assertEquals(14, data(get(follower + "/student/getAllStudents", null)).size());
+
+        // only the followers can read the change log
+        assertEquals(401, get(leader + "/replication/log?from=1", null).getStatusCode().value());
+
+        // read-your-writes: the token of the write makes the follower wait for it
+        String token = add(leader, 200).getHeaders().getFirst(ReplicationHeaders.SEQUENCE);
+        ResponseEntity<JsonNode> read = get(follower + "/student/getStudent/200", token);
+        assertEquals(200, read.getStatusCode().value());
+        assertEquals("First200", data(read).path("firstName").asText());
+
+        token = client.delete().uri(leader + "/student/deleteStudent/200").retrieve().toBodilessEntity()
+                .getHeaders().getFirst(ReplicationHeaders.SEQUENCE);
+        assertEquals(404, get(follower + "/student/getStudent/200", token).getStatusCode().value());
+
+        ResponseEntity<JsonNode> invalid = get(follower + "/student/getStudent/1", "latest");
+        assertEquals(400, invalid.getStatusCode().value());
+        assertEquals("Bad Request", invalid.getBody().path("error").path("type").asText());
+
+        // writes go to the leader
+        ResponseEntity<Void> write = client.delete().uri(follower + "/student/deleteStudent/1")
+                .exchange((request, response) -> ResponseEntity.status(response.getStatusCode())
+                        .headers(response.getHeaders()).build());
+        assertEquals(HttpStatusCode.valueOf(307), write.getStatusCode());
+        assertEquals(leader + "/student/deleteStudent/1", write.getHeaders().getFirst(HttpHeaders.LOCATION));
+
+        // without the leader the copy gets too old, reads are sent to the leader too
+        nodes.remove(0).close();
+        await(() -> get(follower + "/student/getAllStudents", null).getStatusCode().value() == 307);
+    }
+
+    private String start(String... settings) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> args = new ArrayList<>(List.of(settings));
+        args.add("--server.port=" + port);
+        args.add("--spring.application.name=node-" + port);
+        nodes.add(new SpringApplicationBuilder(Stage6Application.class).run(args.toArray(String[]::new)));
+        return "http://localhost:" + port;
+    }
+
+    private ResponseEntity<Void> add(String node, long id) {
+        return client.post().uri(node + "/student/addStudent")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("id", id, "firstName", "First" + id, "lastName", "Last" + id, "age", 20))
+                .retrieve().toBodilessEntity();
+    }
+
+    private ResponseEntity<JsonNode> get(String uri, String minSequence) {
+        return client.get().uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (minSequence != null) {
+                        headers.set(ReplicationHeaders.MIN_SEQUENCE, minSequence);
+                    }
+                })
+                .exchange((request, response) -> ResponseEntity.status(response.getStatusCode())
+                        .headers(response.getHeaders())
+                        .body(response.getStatusCode().value() == 200 || response.getStatusCode().value() == 400
+                                ? response.bodyTo(JsonNode.class) : null));
+    }
+
+    private static JsonNode data(ResponseEntity<JsonNode> response) {
+        return response.getBody().path("data");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 30 s");
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.stage6.repository;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.model.Student;
+import org.example.stage6.service.BatchMode;
+import org.example.stage6.service.StudentChangeFeed;
+import org.example.stage6.service.StudentServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JdbcStudentRepository against an embedded H2 database, no server or network needed
+ */
+class JdbcStudentRepositoryTest {
+
+    private JdbcStudentRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new JdbcStudentRepository(settings("jdbc:h2:mem:" + UUID.randomUUID()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void singleChangesFollowTheRepositoryContract() {
+        assertTrue(repository.insertIfAbsent(student(1, "Alice", 1)));
+        assertFalse(repository.insertIfAbsent(student(1, "Other", 1)));
+        assertTrue(repository.existsById(1L));
+        assertFalse(repository.existsById(2L));
+
+        assertEquals("Alice", repository.replaceIfPresent(student(1, "Alicia", 2)).getFirstName());
+        assertNull(repository.replaceIfPresent(student(2, "Bob", 1)));
+
+        // wrong version: nothing changes, the stored student is returned
+        assertEquals(2, repository.replaceIfVersion(student(1, "Stale", 3), 1).getVersion());
+        assertEquals("Alicia", repository.findById(1L).orElseThrow().getFirstName());
+        assertEquals(2, repository.removeIfVersion(1L, 1).getVersion());
+        assertTrue(repository.existsById(1L));
+
+        assertEquals(2, repository.removeIfVersion(1L, 2).getVersion());
+        assertFalse(repository.existsById(1L));
+        assertNull(repository.removeById(1L));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void cachedStudentIsDroppedAfterAChange() {
+        repository.insertIfAbsent(student(1, "Alice", 1));
+        assertEquals("Alice", repository.findById(1L).orElseThrow().getFirstName());
+
+        repository.replaceIfPresent(student(1, "Alicia", 2));
+        assertEquals("Alicia", repository.findById(1L).orElseThrow().getFirstName());
+
+        repository.removeById(1L);
+        assertTrue(repository.findById(1L).isEmpty());
+        assertFalse(repository.existsById(1L));
+    }
+
+    @Test
+    void pagesAreOrderedById() {
+        for (long id = 10; id >= 1; id--) {
+            repository.insertIfAbsent(student(id, "S" + id, 1));
+        }
+        assertEquals(List.of(1L, 2L, 3L), ids(repository.findPage(null, 3)));
+        assertEquals(List.of(9L, 10L), ids(repository.findPage(8L, 3)));
+        assertEquals(10, repository.findAll().size());
+    }
+
+    @Test
+    void batchSeesItsOwnChangesAndWritesThemTogether() {
+        repository.insertIfAbsent(student(1, "Alice", 1));
+        // more rows than one JDBC batch holds
+        repository.executeAtomically(() -> {
+            for (long id = 2; id <= 1_200; id++) {
+                repository.insertIfAbsent(student(id, "S" + id, 1));
+            }
+            repository.replaceIfPresent(student(2, "Changed", 2));
+            repository.removeById(1L);
+            assertFalse(repository.existsById(1L));
+            assertEquals("Changed", repository.findById(2L).orElseThrow().getFirstName());
+            return null;
+        });
+        assertEquals(1_199, repository.count());
+        assertFalse(repository.existsById(1L));
+        assertEquals(2, repository.findById(2L).orElseThrow().getVersion());
+    }
+
+    @Test
+    void failedBatchWritesNothing() {
+        repository.insertIfAbsent(student(1, "Alice", 1));
+        assertThrows(IllegalStateException.class, () -> repository.executeAtomically(() -> {
+            repository.insertIfAbsent(student(2, "Bob", 1));
+            repository.removeById(1L);
+            // the read writes the changes so far into the transaction of the batch, it does not commit them
+            assertEquals(List.of(2L), ids(repository.findAll()));
+            throw new IllegalStateException("stop");
+        }));
+        assertTrue(repository.existsById(1L));
+        assertFalse(repository.existsById(2L));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void batchTheDatabaseRejectsLeavesIndexesAndChangeFeedAlone() {
+        IndexedStudentRepository indexed = new IndexedStudentRepository(repository);
+        StudentChangeFeed changeFeed = new StudentChangeFeed(16);
+        StudentServiceImpl service = new StudentServiceImpl(indexed, new StudentMapper(), changeFeed);
+        service.addStudent(new StudentDto(1L, "Alice", "Student", 20.5, 0));
+        service.addStudent(new StudentDto(2L, "Bob", "Student", 20.5, 0));
+        long sequence = changeFeed.getLastSequence();
+
+        // first_name is VARCHAR(50), the database fails the batch when it is written at its end
+        List<StudentDto> students = List.of(new StudentDto(1L, "Alicia", "Student", 20.5, 0),
+                new StudentDto(2L, "B".repeat(60), "Student", 20.5, 0));
+        assertThrows(IllegalStateException.class, () -> service.updateStudents(students, BatchMode.ATOMIC));
+
+        assertEquals(sequence, changeFeed.getLastSequence());
+        assertEquals("Alice", service.getStudent(1L).getFirstName());
+        assertEquals(List.of(1L), service.searchStudents(null, "Alice", null, null, 10).stream().map(StudentDto::getId).toList());
+        assertEquals(0, service.searchStudents(null, "Alicia", null, null, 10).size());
+    }
+
+    @Test
+    void fileDatabaseKeepsStudentsAcrossRestarts(@TempDir Path directory) {
+        String url = "jdbc:h2:file:" + directory.resolve("students");
+        StudentRepositoryProperties properties = new StudentRepositoryProperties();
+        properties.setType(StudentRepositoryProperties.Type.JDBC);
+        properties.getJdbc().setUrl(url);
+
+        IndexedStudentRepository first = (IndexedStudentRepository) new StudentRepositoryConfiguration().studentRepository(properties);
+        first.removeById(1L);
+        first.insertIfAbsent(student(5, "Eve", 1));
+        close(first);
+
+        // the database is not empty, so the initial data is not inserted again
+        IndexedStudentRepository second = (IndexedStudentRepository) new StudentRepositoryConfiguration().studentRepository(properties);
+        assertFalse(second.existsById(1L));
+        assertEquals(List.of(2L, 3L, 4L, 5L), ids(second.findAll()));
+        assertEquals(1, second.search(new StudentSearchCriteria(null, "Eve", null, null), 10).size());
+        close(second);
+    }
+
+    private static StudentRepositoryProperties.Jdbc settings(String url) {
+        StudentRepositoryProperties.Jdbc settings = new StudentRepositoryProperties.Jdbc();
+        settings.setUrl(url);
+        settings.setBatchSize(500);
+        return settings;
+    }
+
+    private static Student student(long id, String firstName, long version) {
+        return new Student(id, firstName, "Student", 20.5, version);
+    }
+
+    private static List<Long> ids(List<Student> students) {
+        return students.stream().map(Student::getId).toList();
+    }
+
+    private static void close(IndexedStudentRepository repository) {
+        try {
+            repository.close();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.stage6.repository;
+
+import org.example.stage6.model.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset paging of OffHeapStudentRepository, checked against a TreeSet of the stored IDs, and its capacity limit
+ */
+class OffHeapStudentRepositoryTest {
+
+    @Test
+    void pagesFollowTheIdOrderAcrossInsertsAndRemoves() {
+        OffHeapStudentRepository repository = new OffHeapStudentRepository(16);
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        // enough random IDs to split and empty many blocks of the sorted id index
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(10_000);
+            if (random.nextInt(3) == 0) {
+                repository.removeById(id);
+                expected.remove(id);
+            } else if (repository.insertIfAbsent(student(id))) {
+                expected.add(id);
+            }
+        }
+
+        assertEquals(new ArrayList<>(expected), pagedIds(repository, 97));
+        assertEquals(List.copyOf(expected.tailSet(5_000L, false)).subList(0, 10),
+                ids(repository.findPage(5_000L, 10)));
+        assertEquals(List.of(), repository.findPage(expected.last(), 10));
+    }
+
+    @Test
+    void pagesOfAnEmptiedRepositoryAreEmpty() {
+        OffHeapStudentRepository repository = new OffHeapStudentRepository(16);
+        for (long id = 1; id <= 3_000; id++) {
+            repository.insertIfAbsent(student(id));
+        }
+        for (long id = 1; id <= 3_000; id++) {
+            repository.removeById(id);
+        }
+
+        assertEquals(List.of(), repository.findPage(null, 10));
+
+        repository.insertIfAbsent(student(7));
+        assertEquals(List.of(7L), ids(repository.findPage(null, 10)));
+    }
+
+    @Test
+    void capacityAboveTheLimitIsRejectedBeforeAnythingIsAllocated() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> new OffHeapStudentRepository(OffHeapStudentRepository.MAX_CAPACITY + 1));
+        assertTrue(error.getMessage().contains(Integer.toString(OffHeapStudentRepository.MAX_CAPACITY)));
+    }
+
+    private static List<Long> pagedIds(StudentRepository repository, int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        List<Student> page = repository.findPage(null, pageSize);
+        while (!page.isEmpty()) {
+            ids.addAll(ids(page));
+            page = repository.findPage(page.get(page.size() - 1).getId(), pageSize);
+        }
+        return ids;
+    }
+
+    private static Student student(long id) {
+        return new Student(id, "First" + id, "Last" + id, 20.5, 1);
+    }
+
+    private static List<Long> ids(List<Student> students) {
+        return students.stream().map(Student::getId).toList();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.stage6.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.stage6.dto.StudentDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * StandardResponseHttpMessageConverter writes the same JSON as Jackson, also for DTOs changed after they were written
+ */
+class StandardResponseHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final StandardResponseHttpMessageConverter converter = new StandardResponseHttpMessageConverter(objectMapper, 100);
+
+    @Test
+    void writesTheSameJsonAsJackson() throws IOException {
+        StandardResponse success = new StandardResponse("success", new StudentDto(1L, "Alice", "Moskovitz", 21.3, 7), null);
+        StandardResponse error = new StandardResponse("error", null, new ErrorDetails("Resource Not Found", "Student \"2\" is gone"));
+
+        assertEquals(objectMapper.writeValueAsString(success), write(success));
+        assertEquals(objectMapper.writeValueAsString(error), write(error));
+    }
+
+    @Test
+    void aModifiedStudentIsEncodedAgain() throws IOException {
+        StudentDto student = new StudentDto(1L, "Alice", "Moskovitz", 21.3, 7);
+        write(new StandardResponse("success", student, null));
+
+        student.setFirstName("Alicia");
+        student.setVersion(8);
+        StandardResponse response = new StandardResponse("success", student, null);
+
+        assertEquals(objectMapper.writeValueAsString(response), write(response));
+    }
+
+    @Test
+    void timestampsAreTruncatedToTheMillisecond() {
+        LocalDateTime timestamp = new StandardResponse("success", null, null).getTimestamp();
+
+        assertEquals(0, timestamp.getNano() % 1_000_000);
+    }
+
+    private String write(StandardResponse response) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(response, MediaType.APPLICATION_JSON, output);
+        assertEquals(output.getBodyAsBytes().length, output.getHeaders().getContentLength());
+        return output.getBodyAsString();
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.stage6.service;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.repository.StudentRepositoryConfiguration;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * CachingStudentService in front of the in-memory store
+ */
+class CachingStudentServiceTest {
+
+    private final StudentServiceImpl store = new StudentServiceImpl(
+            new StudentRepositoryConfiguration().studentRepository(new StudentRepositoryProperties()),
+            new StudentMapper(), new StudentChangeFeed(1024));
+
+    private final CachingStudentService service = new CachingStudentService(store, 100, Duration.ofMinutes(1));
+
+    @Test
+    void versionOfAStudentIsNeverTheCachedOne() {
+        service.addStudent(new StudentDto(100L, "Alice", "Moskovitz", 20.5, 0));
+        StudentDto cached = service.getStudent(100L);
+
+        // the store has the write, the cache is not invalidated yet: the state while a write is returning
+        long version = store.updateStudent(new StudentDto(100L, "Alice", "Levi", 20.5, 0), 100L).getVersion();
+
+        assertEquals(cached.getVersion(), service.getStudent(100L).getVersion());
+        assertEquals(version, service.getStudentVersion(100L));
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.stage6.service;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.NotExists;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SingleFlightStudentService in front of a service whose reads block until the test releases them
+ */
+class SingleFlightStudentServiceTest {
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private final CountDownLatch readStarted = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    private final SingleFlightStudentService service = new SingleFlightStudentService(blockingService(), null);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneRead() throws Exception {
+        Future<List<StudentDto>> first = callers.submit(service::getAllStudents);
+        assertTrue(readStarted.await(5, TimeUnit.SECONDS));
+        Future<List<StudentDto>> second = callers.submit(service::getAllStudents);
+        awaitShared(1);
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, reads.get());
+        // the flight is over, the next caller reads again
+        service.getAllStudents();
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void concurrentCallersShareNotExists() throws Exception {
+        Future<StudentDto> first = callers.submit(() -> service.getStudent(404L));
+        assertTrue(readStarted.await(5, TimeUnit.SECONDS));
+        Future<StudentDto> second = callers.submit(() -> service.getStudent(404L));
+        awaitShared(1);
+        release.countDown();
+
+        Exception firstError = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        Exception secondError = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NotExists.class, firstError.getCause());
+        assertSame(firstError.getCause(), secondError.getCause());
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void callerAfterAWriteDoesNotJoinAnOlderRead() throws Exception {
+        Future<StudentDto> before = callers.submit(() -> service.getStudent(1L));
+        assertTrue(readStarted.await(5, TimeUnit.SECONDS));
+        service.deleteStudent(1L);
+        Future<StudentDto> after = callers.submit(() -> service.getStudent(1L));
+        release.countDown();
+
+        before.get(5, TimeUnit.SECONDS);
+        after.get(5, TimeUnit.SECONDS);
+        assertEquals(2, reads.get());
+        assertEquals(0, service.getSharedCount());
+    }
+
+    private void awaitShared(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getSharedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, service.getSharedCount());
+    }
+
+    /**
+     * Reads wait for the release, getStudent(404) throws NotExists, writes do nothing
+     */
+    private StudentService blockingService() {
+        return (StudentService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{StudentService.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("get")) {
+                        return null;
+                    }
+                    reads.incrementAndGet();
+                    readStarted.countDown();
+                    release.await();
+                    if (method.getName().equals("getAllStudents")) {
+                        return List.of(new StudentDto(1L, "Alice", "Moskovitz", 20.5, 1));
+                    }
+                    if ((Long) args[0] == 404L) {
+                        throw new NotExists("Student with ID 404 does not exist");
+                    }
+                    return new StudentDto((Long) args[0], "Alice", "Moskovitz", 20.5, 1);
+                });
+    }
+}
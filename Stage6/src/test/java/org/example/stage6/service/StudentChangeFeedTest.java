@@ -0,0 +1,50 @@
+package org.example.stage6.service;
+
+import org.example.stage6.dto.StudentChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StudentChangeFeed with a ring of four events
+ */
+class StudentChangeFeedTest {
+
+    private final StudentChangeFeed feed = new StudentChangeFeed(4);
+
+    @Test
+    void readerResumesAfterItsLastEvent() {
+        for (long id = 1; id <= 3; id++) {
+            feed.publish(StudentChangeEvent.Type.ADDED, id, id, null);
+        }
+        assertEquals(List.of(2L, 3L), sequences(feed.read(2, 10)));
+        assertEquals(List.of(2L), sequences(feed.read(2, 1)));
+        // the next sequence: nothing yet, the reader waits for it
+        assertTrue(feed.read(4, 10).isEmpty());
+    }
+
+    @Test
+    void readerTooFarBehindMustStartOver() {
+        for (long id = 1; id <= 6; id++) {
+            feed.publish(StudentChangeEvent.Type.ADDED, id, id, null);
+        }
+        assertNull(feed.read(2, 10));
+        assertEquals(List.of(3L, 4L, 5L, 6L), sequences(feed.read(3, 10)));
+    }
+
+    @Test
+    void readerFromAnEarlierRunMustStartOver() {
+        feed.publish(StudentChangeEvent.Type.ADDED, 1L, 1, null);
+        // sequence 10 was reached before a restart, this run is at 1
+        assertNull(feed.read(10, 10));
+        assertNull(feed.read(3, 10));
+    }
+
+    private static List<Long> sequences(List<StudentChangeEvent> events) {
+        return events.stream().map(StudentChangeEvent::getSequence).toList();
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.stage6.service;
+
+import org.example.stage6.dto.BatchItemResult;
+import org.example.stage6.dto.StudentChangeEvent;
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.repository.StudentRepositoryConfiguration;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.example.stage6.response.ErrorDetails;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ATOMIC and BEST_EFFORT batches of StudentServiceImpl, on the in-memory store with the four initial students
+ */
+class StudentServiceBatchTest {
+
+    private final StudentChangeFeed changeFeed = new StudentChangeFeed(1024);
+
+    private final StudentServiceImpl service = new StudentServiceImpl(
+            new StudentRepositoryConfiguration().studentRepository(new StudentRepositoryProperties()),
+            new StudentMapper(), changeFeed);
+
+    @Test
+    void atomicBatchWithAFailingItemAppliesNothing() {
+        long sequence = changeFeed.getLastSequence();
+
+        List<BatchItemResult> added = service.addStudents(
+                List.of(student(10, "Dana"), student(1, "Again"), student(11, "Eli")), BatchMode.ATOMIC);
+        List<BatchItemResult> updated = service.updateStudents(
+                List.of(student(2, "Robert"), student(99, "Nobody")), BatchMode.ATOMIC);
+        List<BatchItemResult> deleted = service.deleteStudents(List.of(3L, 98L), BatchMode.ATOMIC);
+
+        assertEquals(List.of("skipped", "error", "skipped"), statuses(added));
+        assertEquals("Resource Conflict", errorType(added.get(1)));
+        assertEquals(List.of("skipped", "error"), statuses(updated));
+        assertEquals("Resource Not Found", errorType(updated.get(1)));
+        assertEquals(List.of("skipped", "error"), statuses(deleted));
+
+        assertFalse(exists(10L));
+        assertFalse(exists(11L));
+        assertEquals("Bob", service.getStudent(2L).getFirstName());
+        assertTrue(exists(3L));
+        assertEquals(sequence, changeFeed.getLastSequence());
+    }
+
+    @Test
+    void bestEffortBatchAppliesTheValidItems() {
+        List<BatchItemResult> added = service.addStudents(
+                List.of(student(10, "Dana"), student(1, "Again"), student(11, "Eli")), BatchMode.BEST_EFFORT);
+        List<BatchItemResult> deleted = service.deleteStudents(List.of(3L, 98L), BatchMode.BEST_EFFORT);
+
+        assertEquals(List.of("success", "error", "success"), statuses(added));
+        assertEquals("Dana", added.get(0).getData().getFirstName());
+        assertNull(added.get(1).getData());
+        assertEquals("Alice", service.getStudent(1L).getFirstName());
+        assertTrue(exists(10L));
+        assertTrue(exists(11L));
+        assertEquals(List.of("success", "error"), statuses(deleted));
+        assertFalse(exists(3L));
+    }
+
+    @Test
+    void duplicateIdsAreCheckedAgainstTheItemsBeforeThem() {
+        List<BatchItemResult> added = service.addStudents(List.of(student(20, "First"), student(20, "Second")), BatchMode.BEST_EFFORT);
+        List<BatchItemResult> addedAtomically = service.addStudents(List.of(student(21, "First"), student(21, "Second")), BatchMode.ATOMIC);
+        List<BatchItemResult> updated = service.updateStudents(List.of(student(1, "Alicia"), student(1, "Ally")), BatchMode.ATOMIC);
+        List<BatchItemResult> deleted = service.deleteStudents(List.of(2L, 2L), BatchMode.BEST_EFFORT);
+
+        assertEquals(List.of("success", "error"), statuses(added));
+        assertEquals("First", service.getStudent(20L).getFirstName());
+        assertEquals(List.of("skipped", "error"), statuses(addedAtomically));
+        assertFalse(exists(21L));
+        // updating a student twice is valid, the last one wins
+        assertEquals(List.of("success", "success"), statuses(updated));
+        assertEquals("Ally", service.getStudent(1L).getFirstName());
+        assertEquals(List.of("success", "error"), statuses(deleted));
+        assertEquals("Resource Not Found", errorType(deleted.get(1)));
+    }
+
+    @Test
+    void resultsAndChangesFollowTheOrderOfTheItems() {
+        long sequence = changeFeed.getLastSequence();
+
+        List<BatchItemResult> updated = service.updateStudents(
+                List.of(student(4, "Dave"), student(97, "Nobody"), student(3, "Charles"), student(1, "Alicia")),
+                BatchMode.BEST_EFFORT);
+
+        assertEquals(List.of(4L, 97L, 3L, 1L), updated.stream().map(BatchItemResult::getId).toList());
+        assertEquals(List.of("success", "error", "success", "success"), statuses(updated));
+        assertEquals(List.of("Dave", "Charles", "Alicia"), List.of(updated.get(0).getData().getFirstName(),
+                updated.get(2).getData().getFirstName(), updated.get(3).getData().getFirstName()));
+        List<StudentChangeEvent> events = changeFeed.read(sequence + 1, 10);
+        assertEquals(List.of(4L, 3L, 1L), events.stream().map(StudentChangeEvent::getId).toList());
+        // versions grow in item order too
+        assertTrue(events.get(0).getVersion() < events.get(1).getVersion());
+        assertTrue(events.get(1).getVersion() < events.get(2).getVersion());
+    }
+
+    private boolean exists(Long id) {
+        try {
+            service.getStudent(id);
+            return true;
+        } catch (NotExists e) {
+            return false;
+        }
+    }
+
+    private static List<String> statuses(List<BatchItemResult> results) {
+        return results.stream().map(BatchItemResult::getStatus).toList();
+    }
+
+    private static String errorType(BatchItemResult result) {
+        return ((ErrorDetails) result.getError()).getType();
+    }
+
+    private static StudentDto student(long id, String firstName) {
+        return new StudentDto(id, firstName, "Moskovitz", 20.5, 0);
+    }
+}
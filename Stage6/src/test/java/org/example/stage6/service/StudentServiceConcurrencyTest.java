@@ -0,0 +1,242 @@
+package org.example.stage6.service;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.VersionMismatch;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.repository.StudentRepository;
+import org.example.stage6.repository.StudentRepositoryConfiguration;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Stress test of the StudentService under contention, on every store, with and without the cache
+ * Several threads read, blindly update and compare-and-set increment a few students at the same time.
+ * The recorded history is then checked against the rules of a linearizable register:
+ * - no torn reads: every field of a read student comes from the same write
+ * - every read returns a value some write produced, and that write started before the read ended
+ * - real-time order: an operation that starts after another one ended never sees an older version
+ * - no lost updates: the counters end at exactly the number of successful increments
+ */
+class StudentServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2_000;
+
+    // few keys, so the threads collide all the time
+    private static final long[] REGISTER_IDS = {1, 2, 3};
+    private static final long[] COUNTER_IDS = {10, 11};
+
+    /**
+     * One completed operation on a register student, times are taken around the call,
+     * so the recorded interval always contains the real one
+     */
+    private record Operation(long id, boolean write, long start, long end, long version, long token) {
+    }
+
+    @ParameterizedTest(name = "{0}, cached={1}")
+    @CsvSource({"IN_MEMORY,false", "IN_MEMORY,true", "OFF_HEAP,false", "OFF_HEAP,true", "JDBC,false", "JDBC,true"})
+    void concurrentOperationsAreLinearizable(StudentRepositoryProperties.Type type, boolean cached) throws Exception {
+        StudentService service = service(type, cached);
+        AtomicLong tokens = new AtomicLong();
+        History history = new History();
+        Map<Long, LongAdder> increments = new ConcurrentHashMap<>();
+
+        // start every register from a known token and every counter from 0
+        for (long id : REGISTER_IDS) {
+            long token = tokens.incrementAndGet();
+            long start = System.nanoTime();
+            StudentDto written = service.updateStudent(register(id, token), id);
+            history.add(new Operation(id, true, start, System.nanoTime(), written.getVersion(), token));
+        }
+        for (long id : COUNTER_IDS) {
+            service.addStudent(new StudentDto(id, "Counter", "Student", 0, 0));
+            increments.put(id, new LongAdder());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                go.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int dice = random.nextInt(10);
+                    if (dice < 4) {
+                        long id = REGISTER_IDS[random.nextInt(REGISTER_IDS.length)];
+                        long start = System.nanoTime();
+                        StudentDto read = service.getStudent(id);
+                        long end = System.nanoTime();
+                        history.add(new Operation(id, false, start, end, read.getVersion(), tokenOf(read)));
+                    } else if (dice < 7) {
+                        long id = REGISTER_IDS[random.nextInt(REGISTER_IDS.length)];
+                        long token = tokens.incrementAndGet();
+                        long start = System.nanoTime();
+                        StudentDto written = service.updateStudent(register(id, token), id);
+                        long end = System.nanoTime();
+                        history.add(new Operation(id, true, start, end, written.getVersion(), token));
+                    } else {
+                        long id = COUNTER_IDS[random.nextInt(COUNTER_IDS.length)];
+                        increment(service, id);
+                        increments.get(id).increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        for (long id : COUNTER_IDS) {
+            assertEquals(increments.get(id).sum(), (long) service.getStudent(id).getAge(),
+                    "lost update on counter " + id);
+        }
+        for (long id : REGISTER_IDS) {
+            checkRegister(id, history.of(id));
+        }
+    }
+
+    /**
+     * Read-modify-write with If-Match semantics, retried until no other change interleaved
+     */
+    private static void increment(StudentService service, long id) {
+        while (true) {
+            StudentDto current = service.getStudent(id);
+            StudentDto next = new StudentDto(id, current.getFirstName(), current.getLastName(), current.getAge() + 1, 0);
+            try {
+                service.updateStudent(next, id, current.getVersion());
+                return;
+            } catch (VersionMismatch retry) {
+                // another thread won, read again
+            }
+        }
+    }
+
+    private static void checkRegister(long id, List<Operation> operations) {
+        Map<Long, Operation> writesByVersion = new HashMap<>();
+        for (Operation op : operations) {
+            if (op.write() && writesByVersion.put(op.version(), op) != null) {
+                fail("two writes of student " + id + " got version " + op.version());
+            }
+        }
+        for (Operation op : operations) {
+            if (!op.write()) {
+                Operation write = writesByVersion.get(op.version());
+                assertTrue(write != null && write.token() == op.token(),
+                        "student " + id + " read a value no write produced: " + op);
+                assertTrue(write.start() < op.end(), "student " + id + " read a write from the future: " + op);
+            }
+        }
+
+        // every operation must see at least the highest version of all operations that ended before it started
+        List<Operation> byEnd = new ArrayList<>(operations);
+        byEnd.sort(Comparator.comparingLong(Operation::end));
+        long[] ends = new long[byEnd.size()];
+        long[] maxVersionUpTo = new long[byEnd.size()];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < byEnd.size(); i++) {
+            ends[i] = byEnd.get(i).end();
+            max = Math.max(max, byEnd.get(i).version());
+            maxVersionUpTo[i] = max;
+        }
+        for (Operation op : operations) {
+            int endedBefore = lowerBound(ends, op.start());
+            if (endedBefore > 0 && maxVersionUpTo[endedBefore - 1] > op.version()) {
+                fail("student " + id + " went back in time: " + op + " started after version "
+                        + maxVersionUpTo[endedBefore - 1] + " was visible");
+            }
+        }
+    }
+
+    /**
+     * Number of values strictly below the key
+     */
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Every field of a register student carries the token of its write, so a torn read shows up as mixed tokens
+     */
+    private static StudentDto register(long id, long token) {
+        return new StudentDto(id, "F" + token, "L" + token, token, 0);
+    }
+
+    private static long tokenOf(StudentDto student) {
+        long token = (long) student.getAge();
+        Set<String> names = new HashSet<>(List.of(student.getFirstName().substring(1), student.getLastName().substring(1)));
+        if (names.size() != 1 || !names.contains(Long.toString(token))) {
+            fail("torn read: " + student);
+        }
+        return token;
+    }
+
+    private static StudentService service(StudentRepositoryProperties.Type type, boolean cached) {
+        StudentRepositoryProperties properties = new StudentRepositoryProperties();
+        properties.setType(type);
+        // a separate in-memory H2 database for every run
+        properties.getJdbc().setUrl("jdbc:h2:mem:concurrency-" + UUID.randomUUID());
+        StudentRepository repository = new StudentRepositoryConfiguration().studentRepository(properties);
+        StudentService service = new StudentServiceImpl(repository, new StudentMapper(), new StudentChangeFeed(1024));
+        return cached ? new CachingStudentService(service, 1_000, Duration.ofMinutes(1)) : service;
+    }
+
+    /**
+     * History of all threads
+     */
+    private static final class History {
+        private final ConcurrentLinkedQueue<Operation> operations = new ConcurrentLinkedQueue<>();
+
+        void add(Operation operation) {
+            operations.add(operation);
+        }
+
+        List<Operation> of(long id) {
+            List<Operation> result = new ArrayList<>();
+            for (Operation op : operations) {
+                if (op.id() == id) {
+                    result.add(op);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+}
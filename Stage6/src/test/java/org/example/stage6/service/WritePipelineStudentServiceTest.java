@@ -0,0 +1,108 @@
+package org.example.stage6.service;
+
+import org.example.stage6.dto.StudentDto;
+import org.example.stage6.exception.AlreadyExists;
+import org.example.stage6.exception.NotExists;
+import org.example.stage6.exception.StudentIdAndIdMismatch;
+import org.example.stage6.mapper.StudentMapper;
+import org.example.stage6.repository.StudentRepositoryConfiguration;
+import org.example.stage6.repository.StudentRepositoryProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * WritePipelineStudentService in front of the in-memory store
+ */
+class WritePipelineStudentServiceTest {
+
+    private final WritePipelineStudentService service = new WritePipelineStudentService(
+            new StudentServiceImpl(new StudentRepositoryConfiguration().studentRepository(new StudentRepositoryProperties()),
+                    new StudentMapper(), new StudentChangeFeed(1024)),
+            64, 16, null);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.close();
+    }
+
+    @Test
+    void writesFailAsTheDirectCallsDo() {
+        service.addStudent(student(100, "Alice"));
+
+        assertThrows(AlreadyExists.class, () -> service.addStudent(student(100, "Bob")));
+        assertThrows(NotExists.class, () -> service.updateStudent(student(101, "Bob"), 101L));
+        assertThrows(StudentIdAndIdMismatch.class, () -> service.updateStudent(student(101, "Bob"), 100L));
+        assertThrows(NotExists.class, () -> service.deleteStudent(101L));
+        assertEquals("Alice", service.getStudent(100L).getFirstName());
+    }
+
+    @Test
+    void queuedWritesApplyInOrderAndKeepTheLastUpdate() throws Exception {
+        List<CompletableFuture<StudentDto>> results = new ArrayList<>();
+        for (long id = 200; id < 210; id++) {
+            results.add(service.submitAdd(student(id, "First")));
+            // the second add of an ID in the same batch is a conflict, as it is one after the other
+            results.add(service.submitAdd(student(id, "Again")));
+        }
+        for (int i = 0; i < 100; i++) {
+            for (long id = 200; id < 210; id++) {
+                results.add(service.submitUpdate(student(id, "Name" + i), id));
+            }
+        }
+        CompletableFuture<StudentDto> deleted = service.submitDelete(209L);
+        CompletableFuture<StudentDto> deletedTwice = service.submitDelete(209L);
+
+        for (int i = 0; i < results.size(); i++) {
+            if (i < 20 && i % 2 == 1) {
+                CompletableFuture<StudentDto> conflict = results.get(i);
+                Exception error = assertThrows(Exception.class, () -> conflict.get(5, TimeUnit.SECONDS));
+                assertEquals(AlreadyExists.class, error.getCause().getClass());
+            } else {
+                results.get(i).get(5, TimeUnit.SECONDS);
+            }
+        }
+        deleted.get(5, TimeUnit.SECONDS);
+        Exception error = assertThrows(Exception.class, () -> deletedTwice.get(5, TimeUnit.SECONDS));
+        assertEquals(NotExists.class, error.getCause().getClass());
+        for (long id = 200; id < 209; id++) {
+            assertEquals("Name99", service.getStudent(id).getFirstName());
+        }
+        assertThrows(NotExists.class, () -> service.getStudent(209L));
+    }
+
+    @Test
+    void writesAfterCloseFailInsteadOfWaiting() throws InterruptedException {
+        CompletableFuture<StudentDto> queued = service.submitAdd(student(300, "Alice"));
+        service.close();
+
+        assertEquals(300L, queued.join().getId());
+        assertThrows(IllegalStateException.class, () -> service.addStudent(student(301, "Bob")));
+    }
+
+    @Test
+    void theConfigurationClosesThePipelineOnShutdown() {
+        StudentService[] studentService = new StudentService[1];
+        new ApplicationContextRunner()
+                .withUserConfiguration(StudentRepositoryConfiguration.class, StudentMapper.class, StudentServiceConfiguration.class)
+                .withPropertyValues("student.write-pipeline.enabled=true")
+                .run(context -> {
+                    studentService[0] = context.getBean(StudentService.class);
+                    studentService[0].addStudent(student(400, "Alice"));
+                });
+
+        assertThrows(IllegalStateException.class, () -> studentService[0].addStudent(student(401, "Bob")));
+    }
+
+    private static StudentDto student(long id, String firstName) {
+        return new StudentDto(id, firstName, "Moskovitz", 20.5, 0);
+    }
+}